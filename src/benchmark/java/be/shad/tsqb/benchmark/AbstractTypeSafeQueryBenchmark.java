@@ -0,0 +1,52 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeRootQueryImpl;
+
+/**
+ * Builds the session factory of the test domain once per trial,
+ * the benchmarks only use its metadata and don't query the database.
+ */
+public abstract class AbstractTypeSafeQueryBenchmark {
+    protected SessionFactory sessionFactory;
+    protected TypeSafeQueryHelperImpl helper;
+
+    @Setup(Level.Trial)
+    public void setUpSessionFactory() {
+        Configuration config = new Configuration();
+        config.configure("be/shad/tsqb/tests/hibernate.cfg.xml");
+        sessionFactory = config.buildSessionFactory();
+        helper = new TypeSafeQueryHelperImpl(sessionFactory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownSessionFactory() {
+        sessionFactory.close();
+    }
+
+    protected TypeSafeRootQuery createQuery() {
+        return new TypeSafeRootQueryImpl(helper);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import be.shad.tsqb.domain.Product;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.TownProperty;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.domain.people.Relation;
+import be.shad.tsqb.domain.properties.ManyProperties;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeSubQuery;
+
+/**
+ * The query shapes which are used by the benchmarks.
+ */
+public enum BenchmarkQueries {
+    /**
+     * One entity, a dto selection and a few restrictions.
+     */
+    simple {
+        @Override
+        public void build(TypeSafeRootQuery query) {
+            Person person = query.from(Person.class);
+            query.where(person.getName()).startsWith("J").and(person.getAge()).gt(18);
+
+            PersonDto dto = query.select(PersonDto.class);
+            dto.setId(person.getId());
+            dto.setThePersonsName(person.getName());
+            dto.setPersonAge(person.getAge());
+            query.orderBy().asc(person.getName());
+        }
+    },
+    /**
+     * Inner and left joins over collections and associations,
+     * with restrictions on the joined entities.
+     */
+    joins {
+        @Override
+        public void build(TypeSafeRootQuery query) {
+            Town town = query.from(Town.class);
+            Person inhabitant = query.join(town.getInhabitants());
+            Relation childRelation = query.join(inhabitant.getChildRelations(), JoinType.Left);
+            Person child = childRelation.getChild();
+            Person spouse = query.join(inhabitant.getSpouse(), JoinType.Left);
+            TownProperty property = query.join(town.getProperties(), JoinType.Left);
+            query.joinWith(property).where(property.getPropertyKey()).eq("Mayor");
+
+            query.where(inhabitant.getAge()).gte(18).and(inhabitant.getAge()).lte(65).
+                and(child.getName()).isNotNull().
+                and(spouse.getName()).notEq(inhabitant.getName());
+
+            query.select(town.getName());
+            query.select(inhabitant.getName());
+            query.select(child.getName());
+            query.select(property.getPropertyValue());
+        }
+    },
+    /**
+     * Subqueries in the select and where clauses,
+     * which are correlated with the root query.
+     */
+    subqueries {
+        @Override
+        public void build(TypeSafeRootQuery query) {
+            Town town = query.from(Town.class);
+
+            TypeSafeSubQuery<Long> inhabitantsSQ = query.subquery(Long.class);
+            Person inhabitant = inhabitantsSQ.from(Person.class);
+            inhabitantsSQ.where(inhabitant.getTown().getId()).eq(town.getId());
+            inhabitantsSQ.select(inhabitantsSQ.hqlFunction().count());
+
+            TypeSafeSubQuery<String> oldestSQ = query.subquery(String.class);
+            Person oldest = oldestSQ.from(Person.class);
+            TypeSafeSubQuery<Integer> maxAgeSQ = oldestSQ.subquery(Integer.class);
+            Person other = maxAgeSQ.from(Person.class);
+            maxAgeSQ.where(other.getTown().getId()).eq(town.getId());
+            maxAgeSQ.select(maxAgeSQ.hqlFunction().max(other.getAge()));
+            oldestSQ.where(oldest.getTown().getId()).eq(town.getId()).
+                and(oldest.getAge()).eq(maxAgeSQ.select());
+            oldestSQ.select(oldest.getName());
+
+            TypeSafeSubQuery<Long> marriedSQ = query.subquery(Long.class);
+            Person married = marriedSQ.from(Person.class);
+            marriedSQ.where(married.getTown().getId()).eq(town.getId()).
+                and(married.isMarried());
+            marriedSQ.select(married.getId());
+
+            query.where(inhabitantsSQ.select()).gt(10L).andExists(marriedSQ);
+            query.select(town.getName());
+            query.select(inhabitantsSQ);
+            query.select(oldestSQ);
+        }
+    },
+    /**
+     * Many getter and setter calls on a component with a lot of properties,
+     * restricted and selected into a dto of the same class.
+     */
+    manyProperties {
+        @Override
+        public void build(TypeSafeRootQuery query) {
+            Product product = query.from(Product.class);
+            ManyProperties properties = product.getManyProperties();
+            query.where(properties.getProperty1()).isNotNull().
+                and(properties.getProperty2()).isNotNull().
+                and(properties.getProperty3()).isNotNull().
+                and(properties.getProperty4()).isNotNull().
+                and(properties.getProperty5()).isNotNull().
+                and(properties.getProperty6()).isNotNull().
+                and(properties.getProperty7()).isNotNull().
+                and(properties.getProperty8()).isNotNull().
+                and(properties.getProperty9()).isNotNull().
+                and(properties.getProperty10()).isNotNull();
+
+            ManyProperties dto = query.select(ManyProperties.class);
+            dto.setProperty1(properties.getProperty1());
+            dto.setProperty2(properties.getProperty2());
+            dto.setProperty3(properties.getProperty3());
+            dto.setProperty4(properties.getProperty4());
+            dto.setProperty5(properties.getProperty5());
+            dto.setProperty6(properties.getProperty6());
+            dto.setProperty7(properties.getProperty7());
+            dto.setProperty8(properties.getProperty8());
+            dto.setProperty9(properties.getProperty9());
+            dto.setProperty10(properties.getProperty10());
+            dto.setProperty11(properties.getProperty11());
+            dto.setProperty12(properties.getProperty12());
+            dto.setProperty13(properties.getProperty13());
+            dto.setProperty14(properties.getProperty14());
+            dto.setProperty15(properties.getProperty15());
+            dto.setProperty16(properties.getProperty16());
+            dto.setProperty17(properties.getProperty17());
+            dto.setProperty18(properties.getProperty18());
+            dto.setProperty19(properties.getProperty19());
+            dto.setProperty20(properties.getProperty20());
+        }
+    };
+
+    /**
+     * Builds the query shape in the given query.
+     */
+    public abstract void build(TypeSafeRootQuery query);
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeQueryInternal;
+
+/**
+ * Measures the throughput of proxy creation when many threads share the helper,
+ * and thereby its proxy factory. Compare with a single thread to see the scaling:
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="ConcurrentProxyCreation -t 1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrentProxyCreationBenchmark extends AbstractTypeSafeQueryBenchmark {
+
+    @Benchmark
+    public Person createPersonProxy() {
+        return helper.createTypeSafeFromProxy((TypeSafeQueryInternal) createQuery(), Person.class);
+    }
+
+    /**
+     * Proxy creation including the proxies of the joined entities.
+     */
+    @Benchmark
+    public Person createJoinedProxies() {
+        TypeSafeQueryInternal query = (TypeSafeQueryInternal) createQuery();
+        Town town = helper.createTypeSafeFromProxy(query, Town.class);
+        Person inhabitant = query.join(town.getInhabitants());
+        return query.join(inhabitant.getSpouse());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+/**
+ * Measures building the queries of the {@link BenchmarkQueries} shapes,
+ * transforming them to hql and copying them.
+ * <p>
+ * Run with '-prof gc' to see the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuildingBenchmark extends AbstractTypeSafeQueryBenchmark {
+
+    @Param({"simple", "joins", "subqueries", "manyProperties"})
+    public BenchmarkQueries shape;
+
+    private TypeSafeRootQuery query;
+
+    @Setup(Level.Trial)
+    public void setUpQuery() {
+        query = createQuery();
+        shape.build(query);
+    }
+
+    /**
+     * Creates the proxies, the restrictions and the selection of the query.
+     */
+    @Benchmark
+    public TypeSafeRootQuery build() {
+        TypeSafeRootQuery query = createQuery();
+        shape.build(query);
+        return query;
+    }
+
+    /**
+     * Transforms the query which was built during setup.
+     */
+    @Benchmark
+    public HqlQuery toHqlQuery() {
+        return query.toHqlQuery();
+    }
+
+    /**
+     * Builds the query and transforms it, as is done when a query is executed.
+     */
+    @Benchmark
+    public HqlQuery buildAndToHqlQuery() {
+        return build().toHqlQuery();
+    }
+
+    @Benchmark
+    public TypeSafeRootQuery copy() {
+        return query.copy();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.transform.ResultTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.HasId;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.dto.TownDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.selection.TypeSafeQueryResultTransformer;
+import be.shad.tsqb.selection.collection.IdentityFieldProvider;
+
+/**
+ * Measures {@link TypeSafeQueryResultTransformer#transformList} over synthetic tuples,
+ * for flat dto results and for results which are grouped into a collection.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ResultTransformerBenchmark extends AbstractTypeSafeQueryBenchmark {
+    private static final int INHABITANTS_PER_TOWN = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    @Param({"flat", "grouped"})
+    public String selection;
+
+    private ResultTransformer transformer;
+    private List<Object[]> tuples;
+
+    @Setup(Level.Trial)
+    public void setUpTuples() {
+        TypeSafeRootQuery query = createQuery();
+        tuples = new ArrayList<>(rows);
+        if ("flat".equals(selection)) {
+            Person person = query.from(Person.class);
+            PersonDto dto = query.select(PersonDto.class);
+            dto.setId(person.getId());
+            dto.setThePersonsName(person.getName());
+            dto.setPersonAge(person.getAge());
+            for(long i=0; i < rows; i++) {
+                tuples.add(new Object[] { i, "Person" + i, (int) (i % 100) });
+            }
+        } else {
+            IdentityFieldProvider<HasId> hasIdIdentifierProvider = new IdentityFieldProvider<HasId>() {
+                @Override
+                protected Object getIdentifier(HasId resultProxy) {
+                    return resultProxy.getId();
+                }
+            };
+            Town town = query.from(Town.class);
+            Person inhabitant = query.join(town.getInhabitants());
+            TownDto townDto = query.select(TownDto.class, hasIdIdentifierProvider);
+            PersonDto inhabitantDto = query.select(townDto.getInhabitants(),
+                    PersonDto.class, hasIdIdentifierProvider);
+            townDto.setId(town.getId());
+            inhabitantDto.setId(inhabitant.getId());
+            inhabitantDto.setThePersonsName(inhabitant.getName());
+            for(long i=0; i < rows; i++) {
+                tuples.add(new Object[] { i / INHABITANTS_PER_TOWN, i, "Person" + i });
+            }
+        }
+        transformer = query.toHqlQuery().getResultTransformer();
+    }
+
+    @Benchmark
+    public List<?> transformList() {
+        return transformer.transformList(tuples);
+    }
+}
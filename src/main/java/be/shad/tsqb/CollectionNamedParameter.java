@@ -17,6 +17,8 @@ package be.shad.tsqb;
 
 import java.util.Collection;
 
+import be.shad.tsqb.values.NamedValueEnabled;
+
 /**
  * Specialized named parameter which can have an associated batchSize.
  * The batch size is used during the doQuery of the TypeSafeQueryDao
@@ -24,10 +26,21 @@ import java.util.Collection;
  */
 public class CollectionNamedParameter extends NamedParameter {
     private Integer batchSize;
+    private boolean chunkable;
 
     public CollectionNamedParameter(String name, Collection<?> value, Integer batchSize) {
-        super(name, value);
+        this(name, value, batchSize, null, false);
+    }
+
+    /**
+     * @param chunkable whether the param is used in an 'in' restriction which is
+     *        only combined with 'and' in the where clause of the root query.
+     */
+    public CollectionNamedParameter(String name, Collection<?> value, Integer batchSize,
+            NamedValueEnabled source, boolean chunkable) {
+        super(name, value, source);
         this.batchSize = batchSize;
+        this.chunkable = chunkable;
     }
 
     @Override
@@ -42,4 +55,14 @@ public class CollectionNamedParameter extends NamedParameter {
     public Integer getBatchSize() {
         return batchSize;
     }
+
+    /**
+     * Whether the query can be executed once per chunk of the values without
+     * changing the results: each row matches the restriction with at most one chunk.
+     * This is not the case for 'not in' restrictions, restrictions combined with 'or'
+     * and restrictions in subqueries.
+     */
+    public boolean isChunkable() {
+        return chunkable;
+    }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb;
+
+import java.util.Collection;
+
+import be.shad.tsqb.values.NamedValueEnabled;
+
+/**
+ * Specialized named parameter of which the values are inserted in the in values table
+ * before the query is executed. The name is bound to the list key of the inserted values.
+ *
+ * @see be.shad.tsqb.values.TypeSafeQueryInValue
+ */
+public class InValuesParameter extends NamedParameter {
+    private final boolean numberValues;
+
+    public InValuesParameter(String name, Collection<?> value, boolean numberValues, NamedValueEnabled source) {
+        super(name, value, source);
+        this.numberValues = numberValues;
+    }
+
+    @Override
+    public Collection<?> getValue() {
+        return (Collection<?>) super.getValue();
+    }
+
+    /**
+     * Whether the values are stored in the number column, or in the string column otherwise.
+     */
+    public boolean isNumberValues() {
+        return numberValues;
+    }
+}
@@ -15,13 +15,25 @@
  */
 package be.shad.tsqb;
 
+import be.shad.tsqb.values.NamedValueEnabled;
+
 public class NamedParameter {
     private final String name;
     private final Object value;
+    private final NamedValueEnabled source;
 
     public NamedParameter(String name, Object value) {
+        this(name, value, null);
+    }
+
+    /**
+     * @param source the value which created this parameter, used
+     *        to rebind the parameter when the value is named.
+     */
+    public NamedParameter(String name, Object value, NamedValueEnabled source) {
         this.name = name;
         this.value = value;
+        this.source = source;
     }
 
     public String getName() {
@@ -32,6 +44,13 @@ public class NamedParameter {
         return value;
     }
 
+    /**
+     * @return the value which created this parameter, null if not known.
+     */
+    public NamedValueEnabled getSource() {
+        return source;
+    }
+
     @Override
     public String toString() {
         return String.format("[:%s, %s]", name, value);
@@ -0,0 +1,63 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.concurrent.Future;
+
+import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+/**
+ * Executes queries on an executor, each query with its own session,
+ * to run independent queries at the same time.
+ * <p>
+ * The query is transformed to hql before this method returns,
+ * it can be modified or reused for the next query immediately.
+ */
+public interface AsyncTypeSafeQueryDao {
+
+    /**
+     * Creates a query to use with this dao.
+     */
+    TypeSafeRootQuery createQuery();
+
+    /**
+     * Delegates to {@link #doQueryAsync(TypeSafeRootQuery, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> Future<QueryResult<T>> doQueryAsync(TypeSafeRootQuery query);
+
+    /**
+     * Executes the query on the executor with a new read only session which
+     * is closed when the results are listed. Changes of the current session
+     * which aren't committed yet are not visible to the query, and entities
+     * which are selected are detached and can't be lazy loaded.
+     *
+     * @see TypeSafeQueryDao#doQuery(TypeSafeRootQuery, HibernateQueryConfigurer)
+     */
+    <T> Future<QueryResult<T>> doQueryAsync(TypeSafeRootQuery query, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueryAsync(TypeSafeQueryTemplateBinding, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> Future<QueryResult<T>> doQueryAsync(TypeSafeQueryTemplateBinding binding);
+
+    /**
+     * Executes the compiled query of the template with the bound values on the executor.
+     *
+     * @see #doQueryAsync(TypeSafeRootQuery, HibernateQueryConfigurer)
+     */
+    <T> Future<QueryResult<T>> doQueryAsync(TypeSafeQueryTemplateBinding binding, HibernateQueryConfigurer configurer);
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+/**
+ * Executes the queries with the configuration of the dao (compiled query cache,
+ * chunk planner, in values table threshold, ...) on the executor.
+ * <p>
+ * The executor decides how many queries run at the same time, it should not
+ * run more queries than the connection pool has connections.
+ */
+public class AsyncTypeSafeQueryDaoImpl implements AsyncTypeSafeQueryDao {
+    private final TypeSafeQueryDaoImpl dao;
+    private final ExecutorService executor;
+
+    public AsyncTypeSafeQueryDaoImpl(TypeSafeQueryDaoImpl dao, ExecutorService executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    public TypeSafeQueryDaoImpl getDao() {
+        return dao;
+    }
+
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeRootQuery createQuery() {
+        return dao.createQuery();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<QueryResult<T>> doQueryAsync(TypeSafeRootQuery query) {
+        return doQueryAsync(query, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<QueryResult<T>> doQueryAsync(TypeSafeRootQuery tsqbQuery, HibernateQueryConfigurer configurer) {
+        // the query isn't thread safe, it is compiled before it is submitted:
+        long buildStart = System.nanoTime();
+        CompiledTypeSafeQueryCache cache = dao.getCompiledQueryCache(tsqbQuery);
+        HqlQuery hqlQuery = dao.toHqlQuery(tsqbQuery, cache);
+        CompiledTypeSafeQuery compiledQuery = dao.compile(tsqbQuery, hqlQuery, cache);
+        return submit(compiledQuery, hqlQuery.getParams(), tsqbQuery.getFirstResult(),
+                tsqbQuery.getMaxResults(), configurer, System.nanoTime() - buildStart);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<QueryResult<T>> doQueryAsync(TypeSafeQueryTemplateBinding binding) {
+        return doQueryAsync(binding, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> Future<QueryResult<T>> doQueryAsync(TypeSafeQueryTemplateBinding binding,
+            HibernateQueryConfigurer configurer) {
+        return submit(binding.getTemplate().getCompiledQuery(), binding.getParams(),
+                binding.getFirstResult(), binding.getMaxResults(), configurer, 0);
+    }
+
+    /**
+     * Submits the execution of the compiled query with its own session and transaction.
+     */
+    private <T> Future<QueryResult<T>> submit(final CompiledTypeSafeQuery compiledQuery,
+            final Collection<Object> params, final int firstResult, final int maxResults,
+            final HibernateQueryConfigurer configurer, final long buildNanos) {
+        return executor.submit(new Callable<QueryResult<T>>() {
+            @Override
+            public QueryResult<T> call() throws Exception {
+                Session session = dao.getSessionFactory().openSession();
+                try {
+                    session.setDefaultReadOnly(true);
+                    Transaction transaction = session.beginTransaction();
+                    try {
+                        QueryResult<T> result = dao.doQuery(session, compiledQuery,
+                                params, firstResult, maxResults, configurer, buildNanos);
+                        transaction.commit();
+                        return result;
+                    } catch (RuntimeException e) {
+                        transaction.rollback();
+                        throw e;
+                    }
+                } finally {
+                    session.close();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.hibernate.Query;
+
+import be.shad.tsqb.CollectionNamedParameter;
+
+/**
+ * The chunks to bind for the collection params which are too large to bind at once.
+ * The query is listed once for each combination of chunks, see {@link ChunkPlanner}.
+ */
+public class ChunkPlan {
+    private final List<String> names = new ArrayList<>();
+    private final List<List<List<Object>>> chunks = new ArrayList<>();
+    private int combinationCount = 1;
+
+    /**
+     * Splits the values of the param in chunks of <code>chunkSize</code>.
+     */
+    void addChunkedParam(CollectionNamedParameter param, int chunkSize) {
+        List<List<Object>> paramChunks = new ArrayList<>();
+        List<Object> chunk = new ArrayList<>(chunkSize);
+        Iterator<?> it = param.getValue().iterator();
+        while (it.hasNext()) {
+            chunk.add(it.next());
+            if (chunk.size() == chunkSize || !it.hasNext()) {
+                paramChunks.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        names.add(param.getName());
+        chunks.add(paramChunks);
+        combinationCount *= paramChunks.size();
+    }
+
+    /**
+     * Whether the named param is bound in chunks.
+     */
+    public boolean isChunked(String name) {
+        return names.contains(name);
+    }
+
+    /**
+     * The names of the params which are bound in chunks.
+     */
+    public Collection<String> getChunkedNames() {
+        return names;
+    }
+
+    /**
+     * The amount of times the query must be listed, once for each combination of chunks.
+     */
+    public int getCombinationCount() {
+        return combinationCount;
+    }
+
+    /**
+     * Binds the chunks of the combination, the chunks of the last param vary the fastest.
+     * With a single chunked param, the combination is the index of the chunk.
+     */
+    public void bindCombination(Query query, int combination) {
+        int remainder = combination;
+        for(int i=names.size()-1; i >= 0; i--) {
+            List<List<Object>> paramChunks = chunks.get(i);
+            query.setParameterList(names.get(i), paramChunks.get(remainder % paramChunks.size()));
+            remainder /= paramChunks.size();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.NamedParameter;
+
+/**
+ * Decides which collection params are bound in chunks and how large the chunks are.
+ * <p>
+ * Only collection params with a batch size are chunked, the batch size is the opt-in
+ * to list the query once per chunk. A param with a batch size is only chunked if it is
+ * chunkable: used in an 'in' restriction which is and-ed into the where clause of the
+ * root query, see {@link CollectionNamedParameter#isChunkable()}. Otherwise it is bound
+ * at once, chunking would list wrong or duplicate rows. The chunk size of such a param is limited by its
+ * batch size and by the max list parameters. When the total amount of bind parameters
+ * exceeds the max bind parameters, the chunks are made smaller:
+ * <ul>
+ * <li>By default only the largest list is chunked, the query is listed once per chunk.
+ *     More than one chunked list is not allowed.</li>
+ * <li>With cartesian chunking, the largest chunks are made smaller until they are
+ *     as large as the next largest chunks, and the query is listed once per combination
+ *     of chunks. This is only correct if the chunked restrictions are combined with 'and',
+ *     with 'or' the same rows are listed for multiple combinations.</li>
+ * </ul>
+ * Collection params without a batch size are never chunked, they may be used in
+ * 'not in' or 'or' restrictions for which chunking changes the results.
+ * An exception is thrown if they, or params which are not chunkable, exceed the limits.
+ * <p>
+ * For example, use a max list parameters of 1000 for oracle,
+ * or a max bind parameters of 2100 for sql server.
+ */
+public class ChunkPlanner {
+    private int maxListParameters;
+    private int maxBindParameters;
+    private boolean cartesianChunking;
+
+    /**
+     * The max amount of values in a single collection param, 0 if not limited.
+     */
+    public int getMaxListParameters() {
+        return maxListParameters;
+    }
+
+    public void setMaxListParameters(int maxListParameters) {
+        this.maxListParameters = maxListParameters;
+    }
+
+    /**
+     * The max amount of bind parameters in a query, 0 if not limited.
+     */
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    public void setMaxBindParameters(int maxBindParameters) {
+        this.maxBindParameters = maxBindParameters;
+    }
+
+    /**
+     * Whether more than one collection param may be chunked.
+     */
+    public boolean isCartesianChunking() {
+        return cartesianChunking;
+    }
+
+    public void setCartesianChunking(boolean cartesianChunking) {
+        this.cartesianChunking = cartesianChunking;
+    }
+
+    /**
+     * Plans the chunks for the params of the compiled query.
+     *
+     * @return null if all params can be bound at once.
+     * @throws IllegalStateException when the params can't be bound within the limits.
+     */
+    public ChunkPlan plan(CompiledTypeSafeQuery compiledQuery, Collection<Object> params) {
+        List<CollectionNamedParameter> lists = new ArrayList<>();
+        List<String> batchedNames = new ArrayList<>();
+        int fixedCount = 0;
+        for(Object param: params) {
+            if (isChunkable(param)) {
+                lists.add((CollectionNamedParameter) param);
+            } else if (param instanceof NamedParameter && ((NamedParameter) param).getValue() instanceof Collection) {
+                NamedParameter named = (NamedParameter) param;
+                int size = ((Collection<?>) named.getValue()).size();
+                if (maxListParameters > 0 && size > maxListParameters) {
+                    // chunking could change the results, e.g. for 'not in' or 'or'
+                    throw new IllegalStateException(String.format(
+                            "Param [%s] has [%d] values, which exceeds the limit of [%d] list parameters "
+                            + "in query [%s]. Set a batch size on an 'in' restriction which is and-ed into "
+                            + "the where clause to list it in chunks or use the in values table.",
+                            named.getName(), size, maxListParameters, compiledQuery.getHql()));
+                }
+                if (param instanceof CollectionNamedParameter && ((CollectionNamedParameter) param).hasBatchSize()
+                        && size > ((CollectionNamedParameter) param).getBatchSize()) {
+                    // batched but not chunkable, it is bound at once
+                    batchedNames.add(named.getName());
+                }
+                fixedCount += size;
+            } else {
+                fixedCount++;
+            }
+        }
+        if (maxBindParameters > 0 && fixedCount > maxBindParameters) {
+            throw new IllegalStateException(String.format(
+                    "The params of query [%s] can't be bound within the limit of [%d] bind parameters, "
+                    + "only params with a batch size can be listed in chunks.",
+                    compiledQuery.getHql(), maxBindParameters));
+        }
+        if (lists.isEmpty()) {
+            checkBatchedParams(compiledQuery, batchedNames);
+            return null;
+        }
+
+        int total = fixedCount;
+        int[] chunkSizes = new int[lists.size()];
+        for(int i=0; i < chunkSizes.length; i++) {
+            CollectionNamedParameter list = lists.get(i);
+            int chunkSize = Math.min(list.getValue().size(), list.getBatchSize());
+            if (maxListParameters > 0) {
+                chunkSize = Math.min(chunkSize, maxListParameters);
+            }
+            chunkSizes[i] = chunkSize;
+            total += chunkSize;
+        }
+        if (maxBindParameters > 0 && total > maxBindParameters) {
+            reduceChunkSizes(compiledQuery, chunkSizes, total - maxBindParameters);
+        }
+
+        ChunkPlan plan = null;
+        for(int i=0; i < chunkSizes.length; i++) {
+            CollectionNamedParameter list = lists.get(i);
+            if (chunkSizes[i] < list.getValue().size()) {
+                if (plan == null) {
+                    plan = new ChunkPlan();
+                }
+                plan.addChunkedParam(list, chunkSizes[i]);
+                batchedNames.add(list.getName());
+            }
+        }
+        checkBatchedParams(compiledQuery, batchedNames);
+        return plan;
+    }
+
+    /**
+     * Without cartesian chunking, at most one param may have more values than fit in one batch,
+     * also when it is bound at once because it isn't chunkable.
+     */
+    private void checkBatchedParams(CompiledTypeSafeQuery compiledQuery, List<String> batchedNames) {
+        if (!cartesianChunking && batchedNames.size() > 1) {
+            throw new IllegalStateException(String.format(
+                    "More than one batched param [%s, %s] was used in query [%s]. "
+                    + "Enable cartesian chunking if the restrictions are combined with 'and'.",
+                    batchedNames.get(0), batchedNames.get(1), compiledQuery.getHql()));
+        }
+    }
+
+    private boolean isChunkable(Object param) {
+        if (param instanceof CollectionNamedParameter) {
+            CollectionNamedParameter list = (CollectionNamedParameter) param;
+            return list.hasBatchSize() && list.isChunkable();
+        }
+        return false;
+    }
+
+    /**
+     * Reduces the largest chunk size by the excess, or with cartesian chunking
+     * only until it is as large as the next largest chunk size.
+     */
+    private void reduceChunkSizes(CompiledTypeSafeQuery compiledQuery, int[] chunkSizes, int excess) {
+        while (excess > 0) {
+            int largest = 0;
+            int nextLargest = 0;
+            for(int i=1; i < chunkSizes.length; i++) {
+                if (chunkSizes[i] > chunkSizes[largest]) {
+                    largest = i;
+                }
+            }
+            for(int i=0; i < chunkSizes.length; i++) {
+                if (i != largest && chunkSizes[i] > nextLargest) {
+                    nextLargest = chunkSizes[i];
+                }
+            }
+            int reduced = chunkSizes[largest] - excess;
+            if (cartesianChunking && reduced < nextLargest) {
+                // level with the next largest, or reduce by one if they're equal already:
+                reduced = Math.min(nextLargest, chunkSizes[largest] - 1);
+            }
+            if (reduced < 1) {
+                throw new IllegalStateException(String.format(
+                        "The params of query [%s] can't be bound within the limit of [%d] bind parameters.",
+                        compiledQuery.getHql(), maxBindParameters));
+            }
+            excess -= chunkSizes[largest] - reduced;
+            chunkSizes[largest] = reduced;
+        }
+    }
+}
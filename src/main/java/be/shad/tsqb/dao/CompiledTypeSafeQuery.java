@@ -0,0 +1,152 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.hibernate.Query;
+import org.hibernate.transform.ResultTransformer;
+
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.hql.HqlQuery;
+
+/**
+ * The reusable part of an {@link HqlQuery}: the hql, the parameter slots
+ * and the result transformer with its prepared selection trees.
+ * <p>
+ * A compiled query is immutable and the result transformer doesn't keep state
+ * while transforming results, so it can be shared by all executions of queries
+ * with the same {@link TypeSafeQueryFingerprint}. Only the parameter values
+ * differ per execution, they are bound with {@link #bindParameters(Query, Collection, ChunkPlan)}.
+ * The value transformers and selection mergers of a query are bound to a copy
+ * of the compiled query with {@link #withResultTransformer(ResultTransformer)}.
+ */
+public class CompiledTypeSafeQuery {
+    private final String hql;
+    private final String[] parameterSlots;
+    private final ResultTransformer resultTransformer;
+    private final TypeSafeQueryFingerprint fingerprint;
+
+    /**
+     * Compiles an hql query of which the result transformer layout is not known,
+     * the fingerprint only consists of the hql.
+     */
+    public CompiledTypeSafeQuery(HqlQuery hqlQuery) {
+        this(hqlQuery, new TypeSafeQueryFingerprint(hqlQuery.getHql(), Collections.<Object>emptyList()));
+    }
+
+    public CompiledTypeSafeQuery(HqlQuery hqlQuery, TypeSafeQueryFingerprint fingerprint) {
+        this.hql = hqlQuery.getHql();
+        this.fingerprint = fingerprint;
+        this.resultTransformer = hqlQuery.getResultTransformer();
+        this.parameterSlots = new String[hqlQuery.getParams().size()];
+        int slot = 0;
+        for(Object param: hqlQuery.getParams()) {
+            if (param instanceof NamedParameter) {
+                parameterSlots[slot] = ((NamedParameter) param).getName();
+            }
+            slot++;
+        }
+    }
+
+    private CompiledTypeSafeQuery(CompiledTypeSafeQuery original, ResultTransformer resultTransformer) {
+        this.hql = original.hql;
+        this.parameterSlots = original.parameterSlots;
+        this.fingerprint = original.fingerprint;
+        this.resultTransformer = resultTransformer;
+    }
+
+    /**
+     * @return a compiled query with the same hql and parameter slots, which uses the result transformer.
+     */
+    public CompiledTypeSafeQuery withResultTransformer(ResultTransformer resultTransformer) {
+        if (resultTransformer == this.resultTransformer) {
+            return this;
+        }
+        return new CompiledTypeSafeQuery(this, resultTransformer);
+    }
+
+    public String getHql() {
+        return hql;
+    }
+
+    public ResultTransformer getResultTransformer() {
+        return resultTransformer;
+    }
+
+    public TypeSafeQueryFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * The amount of params, named and positional, the hql requires.
+     */
+    public int getParameterCount() {
+        return parameterSlots.length;
+    }
+
+    /**
+     * The name of the named param in the slot, null if it is a positional param.
+     */
+    public String getParameterName(int slot) {
+        return parameterSlots[slot];
+    }
+
+    /**
+     * Binds the params to the query, the params must have the same layout
+     * as the params of the hql query this query was compiled from.
+     * <p>
+     * The params which are chunked by the chunk plan are not bound,
+     * their chunks are bound by the chunk plan.
+     *
+     * @param chunkPlan the chunk plan for the params, may be null.
+     * @throws IllegalArgumentException when the params don't match the parameter slots.
+     */
+    public void bindParameters(Query query, Collection<Object> params, ChunkPlan chunkPlan) {
+        if (params.size() != parameterSlots.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected [%d] params but got [%d] for query [%s].",
+                    parameterSlots.length, params.size(), hql));
+        }
+        int slot = 0;
+        int position = 0;
+        for(Object param: params) {
+            String slotName = parameterSlots[slot++];
+            if (param instanceof NamedParameter) {
+                NamedParameter named = (NamedParameter) param;
+                if (!named.getName().equals(slotName)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Param [%s] doesn't match the expected param [%s] for query [%s].",
+                            named.getName(), slotName, hql));
+                }
+                if (chunkPlan != null && chunkPlan.isChunked(named.getName())) {
+                    // bound per chunk combination when listing
+                } else if (named.getValue() instanceof Collection) {
+                    query.setParameterList(named.getName(), (Collection<?>) named.getValue());
+                } else {
+                    query.setParameter(named.getName(), named.getValue());
+                }
+            } else if (slotName != null) {
+                throw new IllegalArgumentException(String.format(
+                        "Expected named param [%s] but got [%s] for query [%s].",
+                        slotName, param, hql));
+            } else {
+                query.setParameter(position++, param);
+            }
+        }
+    }
+}
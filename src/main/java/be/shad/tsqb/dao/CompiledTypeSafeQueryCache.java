@@ -0,0 +1,146 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of compiled queries by fingerprint, the least recently
+ * used compiled query is evicted when the cache is full.
+ * <p>
+ * The hit, miss and eviction counts can be used to size the cache.
+ */
+public class CompiledTypeSafeQueryCache {
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final LruMap compiledQueries;
+
+    public CompiledTypeSafeQueryCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public CompiledTypeSafeQueryCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "The max size must be at least 1, but was [%d].", maxSize));
+        }
+        this.compiledQueries = new LruMap(maxSize, evictionCount);
+    }
+
+    /**
+     * @return the compiled query for the fingerprint or null if it is not cached.
+     */
+    public CompiledTypeSafeQuery get(TypeSafeQueryFingerprint fingerprint) {
+        CompiledTypeSafeQuery compiledQuery;
+        synchronized (compiledQueries) {
+            compiledQuery = compiledQueries.get(fingerprint);
+        }
+        if (compiledQuery == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return compiledQuery;
+    }
+
+    /**
+     * Caches the compiled query unless another thread cached
+     * a compiled query for the same fingerprint first.
+     *
+     * @return the cached compiled query.
+     */
+    public CompiledTypeSafeQuery putIfAbsent(TypeSafeQueryFingerprint fingerprint,
+            CompiledTypeSafeQuery compiledQuery) {
+        synchronized (compiledQueries) {
+            CompiledTypeSafeQuery existing = compiledQueries.get(fingerprint);
+            if (existing != null) {
+                return existing;
+            }
+            compiledQueries.put(fingerprint, compiledQuery);
+            return compiledQuery;
+        }
+    }
+
+    /**
+     * Removes all compiled queries, the counters are not reset.
+     */
+    public void clear() {
+        synchronized (compiledQueries) {
+            compiledQueries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (compiledQueries) {
+            return compiledQueries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return compiledQueries.maxSize;
+    }
+
+    /**
+     * The amount of times a compiled query was found.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * The amount of times a query had to be compiled.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * The amount of compiled queries which were removed because the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Access ordered map which removes the eldest entry when the max size is exceeded.
+     */
+    private static final class LruMap extends LinkedHashMap<TypeSafeQueryFingerprint, CompiledTypeSafeQuery> {
+        private static final long serialVersionUID = -2519460578357735066L;
+
+        private final int maxSize;
+        private final AtomicLong evictionCount;
+
+        LruMap(int maxSize, AtomicLong evictionCount) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TypeSafeQueryFingerprint, CompiledTypeSafeQuery> eldest) {
+            if (size() > maxSize) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
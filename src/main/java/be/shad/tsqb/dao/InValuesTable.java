@@ -0,0 +1,142 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import static be.shad.tsqb.values.TypeSafeQueryInValue.LIST_KEY_COLUMN;
+import static be.shad.tsqb.values.TypeSafeQueryInValue.NUMBER_VALUE_COLUMN;
+import static be.shad.tsqb.values.TypeSafeQueryInValue.POSITION_COLUMN;
+import static be.shad.tsqb.values.TypeSafeQueryInValue.STRING_VALUE_COLUMN;
+import static be.shad.tsqb.values.TypeSafeQueryInValue.TABLE_NAME;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+
+import be.shad.tsqb.InValuesParameter;
+import be.shad.tsqb.NamedParameter;
+
+/**
+ * Inserts the values of the {@link InValuesParameter}s of a query execution in the
+ * in values table using jdbc batches, and deletes them after the execution.
+ * <p>
+ * The values are inserted using the connection of the session,
+ * so they are visible for the query without committing them.
+ */
+public class InValuesTable {
+    private static final int JDBC_BATCH_SIZE = 1000;
+    private static final String INSERT_SQL = String.format("insert into %s (%s, %s, %s, %s) values (?, ?, ?, ?)",
+            TABLE_NAME, LIST_KEY_COLUMN, POSITION_COLUMN, NUMBER_VALUE_COLUMN, STRING_VALUE_COLUMN);
+    private static final String DELETE_SQL = String.format("delete from %s where %s = ?",
+            TABLE_NAME, LIST_KEY_COLUMN);
+
+    private final Session session;
+    private final List<String> listKeys = new ArrayList<>();
+
+    public InValuesTable(Session session) {
+        this.session = session;
+    }
+
+    /**
+     * Inserts the values of the in values params in the table.
+     *
+     * @return the params with the in values params replaced by
+     *         named params with the list key of the inserted values.
+     */
+    public Collection<Object> insertValues(Collection<Object> params) {
+        List<Object> insertedParams = null;
+        int slot = 0;
+        for(Object param: params) {
+            if (param instanceof InValuesParameter) {
+                if (insertedParams == null) {
+                    insertedParams = new ArrayList<>(params);
+                }
+                InValuesParameter valuesParam = (InValuesParameter) param;
+                String listKey = UUID.randomUUID().toString();
+                insert(listKey, valuesParam);
+                insertedParams.set(slot, new NamedParameter(valuesParam.getName(), listKey));
+            }
+            slot++;
+        }
+        return insertedParams == null ? params: insertedParams;
+    }
+
+    private void insert(final String listKey, final InValuesParameter param) {
+        listKeys.add(listKey);
+        session.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                    int position = 0;
+                    for(Object value: param.getValue()) {
+                        statement.setString(1, listKey);
+                        statement.setInt(2, position++);
+                        if (param.isNumberValues()) {
+                            statement.setLong(3, ((Number) value).longValue());
+                            statement.setNull(4, Types.VARCHAR);
+                        } else {
+                            statement.setNull(3, Types.BIGINT);
+                            statement.setString(4, (String) value);
+                        }
+                        statement.addBatch();
+                        if (position % JDBC_BATCH_SIZE == 0) {
+                            statement.executeBatch();
+                        }
+                    }
+                    if (position % JDBC_BATCH_SIZE != 0) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return true if values were inserted which weren't deleted yet.
+     */
+    public boolean hasValues() {
+        return !listKeys.isEmpty();
+    }
+
+    /**
+     * Deletes the values which were inserted.
+     */
+    public void deleteValues() {
+        if (listKeys.isEmpty()) {
+            return;
+        }
+        session.doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+                    for(String listKey: listKeys) {
+                        statement.setString(1, listKey);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        });
+        listKeys.clear();
+    }
+}
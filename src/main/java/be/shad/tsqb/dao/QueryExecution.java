@@ -0,0 +1,155 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The metrics of one query execution, passed to the {@link QueryExecutionListener}s.
+ * <p>
+ * The execution is split in phases:
+ * <ul>
+ * <li>build: transforming the query to hql and compiling it,
+ *     0 if a template or an already built hql query was executed.</li>
+ * <li>bind: inserting the in values and binding the params.</li>
+ * <li>list: listing the rows of all chunk combinations.</li>
+ * <li>transform: transforming the rows into the results.</li>
+ * </ul>
+ * The phases which weren't reached when the execution failed have a time of 0.
+ */
+public class QueryExecution {
+    private final TypeSafeQueryFingerprint fingerprint;
+    private final Collection<Object> params;
+    private final long buildNanos;
+    private long bindNanos;
+    private long listNanos;
+    private long transformNanos;
+    private int chunkCount;
+    private int rowCount;
+    private int resultCount;
+    private RuntimeException failure;
+
+    QueryExecution(TypeSafeQueryFingerprint fingerprint, Collection<Object> params, long buildNanos) {
+        this.fingerprint = fingerprint;
+        this.params = params;
+        this.buildNanos = buildNanos;
+    }
+
+    void bound(long nanos) {
+        this.bindNanos = nanos;
+    }
+
+    void listed(int chunkCount, int rowCount, long nanos) {
+        this.chunkCount = chunkCount;
+        this.rowCount = rowCount;
+        this.listNanos = nanos;
+    }
+
+    void transformed(int resultCount, long nanos) {
+        this.resultCount = resultCount;
+        this.transformNanos = nanos;
+    }
+
+    void failed(RuntimeException failure) {
+        this.failure = failure;
+    }
+
+    /**
+     * The fingerprint of the executed query, the same for all
+     * executions of queries which only differ in their param values.
+     */
+    public TypeSafeQueryFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getHql() {
+        return fingerprint.getHql();
+    }
+
+    /**
+     * The params the query was executed with, before the in values were inserted.
+     */
+    public Collection<Object> getParams() {
+        return params;
+    }
+
+    public long getBuildTime(TimeUnit unit) {
+        return unit.convert(buildNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getBindTime(TimeUnit unit) {
+        return unit.convert(bindNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The time it took to list the rows, when the chunk combinations
+     * are listed concurrently this is the time until all were listed.
+     */
+    public long getListTime(TimeUnit unit) {
+        return unit.convert(listNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getTransformTime(TimeUnit unit) {
+        return unit.convert(transformNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The sum of the times of all phases.
+     */
+    public long getTotalTime(TimeUnit unit) {
+        return unit.convert(buildNanos + bindNanos + listNanos + transformNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The amount of times the query was listed, 1 if no params were chunked.
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * The amount of rows which were listed, before they were transformed.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * The amount of results after the rows were transformed,
+     * less than the row count when rows were grouped.
+     */
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    /**
+     * The exception which made the execution fail, null if it succeeded.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] build %dus, bind %dus, list %dus (%d chunks, %d rows), "
+                + "transform %dus (%d results)%s", fingerprint.getHql(),
+                getBuildTime(TimeUnit.MICROSECONDS), getBindTime(TimeUnit.MICROSECONDS),
+                getListTime(TimeUnit.MICROSECONDS), chunkCount, rowCount,
+                getTransformTime(TimeUnit.MICROSECONDS), resultCount,
+                failure == null ? "": ", failed: " + failure);
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+/**
+ * Is notified by the {@link TypeSafeQueryDaoImpl} each time a query was executed,
+ * to collect metrics about the queries without wrapping the dao.
+ * <p>
+ * Listeners are notified on the thread which executed the query, after the results
+ * were transformed or after the execution failed. They should return quickly and
+ * must not throw exceptions, an exception would replace the result of the query.
+ *
+ * @see TypeSafeQueryDaoImpl#addQueryExecutionListener(QueryExecutionListener)
+ */
+public interface QueryExecutionListener {
+
+    /**
+     * Called after a query was executed, check {@link QueryExecution#getFailure()}
+     * to know whether the execution succeeded.
+     */
+    void queryExecuted(QueryExecution execution);
+
+}
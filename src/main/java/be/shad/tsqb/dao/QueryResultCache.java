@@ -0,0 +1,312 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import be.shad.tsqb.dao.result.QueryResult;
+
+/**
+ * Bounded cache of query results, used by the dao for queries which are marked cacheable.
+ * <p>
+ * Each result is tagged with the entity classes queried by its query (including
+ * subqueries), the results are evicted when one of these entities is changed.
+ * Register a {@link QueryResultCacheInvalidator} on the session factory to
+ * evict the results when entities are inserted, updated or deleted.
+ * <p>
+ * The dao doesn't cache results which select entities, the entities are managed by the
+ * session which queried them. Each get returns an unmodifiable copy of the cached list,
+ * the selected dtos are shared with the other callers and must not be modified.
+ */
+public class QueryResultCache {
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    /**
+     * Decides which result is evicted when the cache is full.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evicts the least recently used result.
+         */
+        LRU,
+
+        /**
+         * Evicts the least frequently used result,
+         * the least recently cached of these if there are several.
+         */
+        LFU
+    }
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final Map<Class<?>, Integer> lockedEntityClasses = new HashMap<>();
+    private final LinkedHashMap<QueryResultCacheKey, CachedResult> results;
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final EvictionPolicy evictionPolicy;
+    private long invalidationCount;
+
+    /**
+     * Creates an LRU cache with the default max size, results don't expire.
+     */
+    public QueryResultCache() {
+        this(DEFAULT_MAX_SIZE, 0, TimeUnit.MILLISECONDS, EvictionPolicy.LRU);
+    }
+
+    /**
+     * @param timeToLive the time after which a cached result expires, 0 if results don't expire.
+     */
+    public QueryResultCache(int maxSize, long timeToLive, TimeUnit unit, EvictionPolicy evictionPolicy) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "The max size must be at least 1, but was [%d].", maxSize));
+        }
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "The time to live can't be negative, but was [%d].", timeToLive));
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.evictionPolicy = evictionPolicy;
+        this.results = new LinkedHashMap<>(16, 0.75f, evictionPolicy == EvictionPolicy.LRU);
+    }
+
+    /**
+     * @return an unmodifiable copy of the cached result or null if it is not cached or expired.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> QueryResult<T> get(QueryResultCacheKey key) {
+        CachedResult cachedResult;
+        synchronized (results) {
+            cachedResult = results.get(key);
+            if (cachedResult != null && isExpired(cachedResult)) {
+                results.remove(key);
+                evictionCount.incrementAndGet();
+                cachedResult = null;
+            }
+            if (cachedResult != null) {
+                cachedResult.useCount++;
+            }
+        }
+        if (cachedResult == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        hitCount.incrementAndGet();
+        return new QueryResult<>(Collections.unmodifiableList(new ArrayList<>((List<T>) cachedResult.results)));
+    }
+
+    /**
+     * Caches the result unless one of its entity classes was invalidated since the
+     * invalidation count was read, or is changed by a transaction which isn't completed yet.
+     * Read the invalidation count before executing the query to not cache stale results.
+     *
+     * @param entityClasses the entity classes queried by the query.
+     * @param invalidationCount the invalidation count read before the query was executed.
+     */
+    public void put(QueryResultCacheKey key, QueryResult<?> result,
+            Set<Class<?>> entityClasses, long invalidationCount) {
+        CachedResult cachedResult = new CachedResult(Collections.unmodifiableList(
+                new ArrayList<>(result.getResults())), entityClasses, nanoTime());
+        synchronized (results) {
+            if (this.invalidationCount != invalidationCount) {
+                return;
+            }
+            for(Class<?> lockedEntityClass: lockedEntityClasses.keySet()) {
+                if (cachedResult.isQuerying(lockedEntityClass)) {
+                    return;
+                }
+            }
+            results.put(key, cachedResult);
+            if (results.size() > maxSize) {
+                evictOne(key);
+            }
+        }
+    }
+
+    /**
+     * Evicts the results which query the entity class, its super classes or its subclasses.
+     */
+    public void evict(Class<?> entityClass) {
+        synchronized (results) {
+            invalidationCount++;
+            Iterator<CachedResult> it = results.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().isQuerying(entityClass)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts the results of the entity class and doesn't cache new results for it until
+     * it is unlocked, used while a transaction which changed the entity isn't completed.
+     */
+    public void lock(Class<?> entityClass) {
+        synchronized (results) {
+            Integer lockCount = lockedEntityClasses.get(entityClass);
+            lockedEntityClasses.put(entityClass, lockCount == null ? 1: lockCount + 1);
+            evict(entityClass);
+        }
+    }
+
+    /**
+     * Evicts the results of the entity class again, new results are cached
+     * as soon as all transactions which locked the entity class are completed.
+     */
+    public void unlock(Class<?> entityClass) {
+        synchronized (results) {
+            Integer lockCount = lockedEntityClasses.get(entityClass);
+            if (lockCount == null) {
+                throw new IllegalStateException(String.format(
+                        "Entity class [%s] was unlocked, but it isn't locked.", entityClass));
+            }
+            if (lockCount == 1) {
+                lockedEntityClasses.remove(entityClass);
+            } else {
+                lockedEntityClasses.put(entityClass, lockCount - 1);
+            }
+            evict(entityClass);
+        }
+    }
+
+    /**
+     * Removes all results, the counters are not reset.
+     */
+    public void clear() {
+        synchronized (results) {
+            invalidationCount++;
+            results.clear();
+        }
+    }
+
+    /**
+     * Incremented each time results are evicted because entities changed.
+     */
+    public long getInvalidationCount() {
+        synchronized (results) {
+            return invalidationCount;
+        }
+    }
+
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTimeToLive(TimeUnit unit) {
+        return unit.convert(timeToLiveNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    /**
+     * The amount of times a result was found.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * The amount of times a result had to be queried.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * The amount of results which were removed because the cache was full or they expired.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * The current time in nanos, used to expire results.
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private boolean isExpired(CachedResult cachedResult) {
+        return timeToLiveNanos > 0 && nanoTime() - cachedResult.cachedNanos >= timeToLiveNanos;
+    }
+
+    /**
+     * Evicts the least recently or least frequently used result,
+     * the map is ordered by access for LRU and by insertion for LFU.
+     * The result which was just cached is not evicted, it wasn't used yet.
+     */
+    private void evictOne(QueryResultCacheKey cachedKey) {
+        Iterator<Map.Entry<QueryResultCacheKey, CachedResult>> it = results.entrySet().iterator();
+        if (evictionPolicy == EvictionPolicy.LRU) {
+            it.next();
+            it.remove();
+        } else {
+            QueryResultCacheKey leastUsedKey = null;
+            long leastUseCount = Long.MAX_VALUE;
+            while (it.hasNext()) {
+                Map.Entry<QueryResultCacheKey, CachedResult> entry = it.next();
+                if (entry.getValue().useCount < leastUseCount && !entry.getKey().equals(cachedKey)) {
+                    leastUsedKey = entry.getKey();
+                    leastUseCount = entry.getValue().useCount;
+                }
+            }
+            results.remove(leastUsedKey);
+        }
+        evictionCount.incrementAndGet();
+    }
+
+    private static final class CachedResult {
+        private final List<?> results;
+        private final Set<Class<?>> entityClasses;
+        private final long cachedNanos;
+        private long useCount;
+
+        CachedResult(List<?> results, Set<Class<?>> entityClasses, long cachedNanos) {
+            this.results = results;
+            this.entityClasses = entityClasses;
+            this.cachedNanos = cachedNanos;
+        }
+
+        boolean isQuerying(Class<?> entityClass) {
+            for(Class<?> queriedClass: entityClasses) {
+                if (queriedClass.isAssignableFrom(entityClass) || entityClass.isAssignableFrom(queriedClass)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import be.shad.tsqb.NamedParameter;
+
+/**
+ * Identifies the results of a query: the fingerprint of the query
+ * combined with the bound parameter values and the first/max results.
+ */
+public final class QueryResultCacheKey {
+    private final TypeSafeQueryFingerprint fingerprint;
+    private final List<Object> paramValues;
+    private final int firstResult;
+    private final int maxResults;
+    private final int hashCode;
+
+    public QueryResultCacheKey(TypeSafeQueryFingerprint fingerprint,
+            Collection<Object> params, int firstResult, int maxResults) {
+        this.fingerprint = fingerprint;
+        this.paramValues = new ArrayList<>(params.size() * 2);
+        for(Object param: params) {
+            if (param instanceof NamedParameter) {
+                paramValues.add(((NamedParameter) param).getName());
+                paramValues.add(copyValue(((NamedParameter) param).getValue()));
+            } else {
+                paramValues.add(param);
+            }
+        }
+        this.firstResult = firstResult;
+        this.maxResults = maxResults;
+        this.hashCode = 31 * (31 * (31 * fingerprint.hashCode()
+                + paramValues.hashCode()) + firstResult) + maxResults;
+    }
+
+    /**
+     * Collection values are copied, the key must not change
+     * when the caller modifies the collection after querying.
+     */
+    private static Object copyValue(Object value) {
+        if (value instanceof Collection) {
+            return new ArrayList<>((Collection<?>) value);
+        }
+        return value;
+    }
+
+    public TypeSafeQueryFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof QueryResultCacheKey)) {
+            return false;
+        }
+        QueryResultCacheKey other = (QueryResultCacheKey) obj;
+        return hashCode == other.hashCode
+                && firstResult == other.firstResult
+                && maxResults == other.maxResults
+                && fingerprint.equals(other.fingerprint)
+                && paramValues.equals(other.paramValues);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s [%d, %d]", fingerprint, paramValues, firstResult, maxResults);
+    }
+}
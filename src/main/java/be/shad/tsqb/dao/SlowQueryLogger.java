@@ -0,0 +1,218 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.logging.Logger;
+
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.hql.HqlQuery;
+
+/**
+ * Logs the executions which took longer than the threshold with the formatted hql,
+ * the params and the time of each phase. Register it as a listener on the dao:
+ * <pre>
+ * dao.addQueryExecutionListener(new SlowQueryLogger(500, TimeUnit.MILLISECONDS));
+ * </pre>
+ * A slow query is logged at most once per log interval for each fingerprint, the
+ * executions in between are counted and the count is added to the next log entry.
+ * The hql is only formatted for the executions which are logged.
+ */
+public class SlowQueryLogger implements QueryExecutionListener {
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLogger.class);
+
+    private final ConcurrentMap<TypeSafeQueryFingerprint, LogState> logStates = new ConcurrentHashMap<>();
+    private final long thresholdNanos;
+    private long logIntervalNanos = TimeUnit.MINUTES.toNanos(1);
+    private int maxLoggedCollectionValues = 10;
+    private int maxTrackedFingerprints = 1000;
+
+    /**
+     * The last time the fingerprint was logged and the
+     * amount of slow executions which weren't logged since.
+     */
+    private static final class LogState {
+        private final AtomicLong lastLogged;
+        private final AtomicInteger suppressed = new AtomicInteger();
+
+        private LogState(long lastLogged) {
+            this.lastLogged = new AtomicLong(lastLogged);
+        }
+    }
+
+    public SlowQueryLogger(long threshold, TimeUnit unit) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "The threshold can't be negative, was [%d].", threshold));
+        }
+        this.thresholdNanos = unit.toNanos(threshold);
+    }
+
+    public long getThreshold(TimeUnit unit) {
+        return unit.convert(thresholdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getLogInterval(TimeUnit unit) {
+        return unit.convert(logIntervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sets the minimum time between two log entries of the same fingerprint, 1 minute by default.
+     */
+    public void setLogInterval(long logInterval, TimeUnit unit) {
+        this.logIntervalNanos = unit.toNanos(logInterval);
+    }
+
+    public int getMaxLoggedCollectionValues() {
+        return maxLoggedCollectionValues;
+    }
+
+    /**
+     * Sets the amount of values which are logged for collection params, 10 by default.
+     * The remaining values are only counted.
+     */
+    public void setMaxLoggedCollectionValues(int maxLoggedCollectionValues) {
+        this.maxLoggedCollectionValues = maxLoggedCollectionValues;
+    }
+
+    public int getMaxTrackedFingerprints() {
+        return maxTrackedFingerprints;
+    }
+
+    /**
+     * Sets the amount of fingerprints of which the last log time is kept, 1000 by default.
+     * All log times are forgotten when the amount is exceeded.
+     */
+    public void setMaxTrackedFingerprints(int maxTrackedFingerprints) {
+        this.maxTrackedFingerprints = maxTrackedFingerprints;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void queryExecuted(QueryExecution execution) {
+        if (execution.getTotalTime(TimeUnit.NANOSECONDS) < thresholdNanos) {
+            return;
+        }
+        int suppressed = acquireLogEntry(execution.getFingerprint());
+        if (suppressed >= 0) {
+            log(createLogEntry(execution, suppressed));
+        }
+    }
+
+    /**
+     * @return the amount of slow executions which weren't logged since the
+     *         previous log entry, -1 if the execution should not be logged.
+     */
+    private int acquireLogEntry(TypeSafeQueryFingerprint fingerprint) {
+        long now = nanoTime();
+        LogState state = logStates.get(fingerprint);
+        if (state == null) {
+            if (logStates.size() >= maxTrackedFingerprints) {
+                logStates.clear();
+            }
+            state = logStates.putIfAbsent(fingerprint, new LogState(now));
+            if (state == null) {
+                return 0;
+            }
+        }
+        long lastLogged = state.lastLogged.get();
+        if (now - lastLogged < logIntervalNanos || !state.lastLogged.compareAndSet(lastLogged, now)) {
+            state.suppressed.incrementAndGet();
+            return -1;
+        }
+        return state.suppressed.getAndSet(0);
+    }
+
+    private String createLogEntry(QueryExecution execution, int suppressed) {
+        StringBuilder entry = new StringBuilder();
+        entry.append(String.format("Slow query took %dms: build %dms, bind %dms, "
+                + "list %dms (%d chunks, %d rows), transform %dms (%d results).",
+                execution.getTotalTime(TimeUnit.MILLISECONDS), execution.getBuildTime(TimeUnit.MILLISECONDS),
+                execution.getBindTime(TimeUnit.MILLISECONDS), execution.getListTime(TimeUnit.MILLISECONDS),
+                execution.getChunkCount(), execution.getRowCount(),
+                execution.getTransformTime(TimeUnit.MILLISECONDS), execution.getResultCount()));
+        if (suppressed > 0) {
+            entry.append(String.format(" %d slow executions of this query were not logged.", suppressed));
+        }
+        if (execution.getFailure() != null) {
+            entry.append(" Failed with: ").append(execution.getFailure());
+        }
+        entry.append('\n').append(HqlQuery.toFormattedString(
+                execution.getHql(), truncateParams(execution.getParams())));
+        return entry.toString();
+    }
+
+    /**
+     * Replaces the collection values with more than the max logged values
+     * with a description of the first values and the amount of values.
+     */
+    private List<Object> truncateParams(Collection<Object> params) {
+        List<Object> truncated = new ArrayList<>(params.size());
+        for(Object param: params) {
+            if (param instanceof NamedParameter) {
+                NamedParameter named = (NamedParameter) param;
+                truncated.add(new NamedParameter(named.getName(), truncate(named.getValue())));
+            } else {
+                truncated.add(truncate(param));
+            }
+        }
+        return truncated;
+    }
+
+    private Object truncate(Object value) {
+        if (!(value instanceof Collection)) {
+            return value;
+        }
+        Collection<?> values = (Collection<?>) value;
+        if (values.size() <= maxLoggedCollectionValues) {
+            return value;
+        }
+        StringBuilder description = new StringBuilder("[");
+        int logged = 0;
+        for(Object element: values) {
+            if (logged == maxLoggedCollectionValues) {
+                break;
+            }
+            description.append(element).append(", ");
+            logged++;
+        }
+        return description.append("... ").append(values.size() - logged).append(" more]").toString();
+    }
+
+    /**
+     * Logs the entry as a warning, can be overridden to log elsewhere.
+     */
+    protected void log(String entry) {
+        LOGGER.warn(entry);
+    }
+
+    /**
+     * The current time in nanoseconds, can be overridden for testing.
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+}
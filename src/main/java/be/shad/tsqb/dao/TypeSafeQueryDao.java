@@ -17,8 +17,16 @@ package be.shad.tsqb.dao;
 
 import java.util.List;
 
+import be.shad.tsqb.dao.result.MultiQueryResult;
+import be.shad.tsqb.dao.result.PagedQueryResult;
 import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.dao.result.QueryResultIterator;
+import be.shad.tsqb.dao.result.SeekQueryResult;
+import be.shad.tsqb.ordering.SeekToken;
+import be.shad.tsqb.query.TypeSafeBulkQuery;
+import be.shad.tsqb.query.TypeSafeDeleteQuery;
 import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
 
 public interface TypeSafeQueryDao {
 
@@ -27,6 +35,16 @@ public interface TypeSafeQueryDao {
      */
     TypeSafeRootQuery createQuery();
 
+    /**
+     * Creates a bulk update statement, execute it with {@link #executeUpdate(TypeSafeBulkQuery)}.
+     */
+    TypeSafeUpdateQuery createUpdateQuery();
+
+    /**
+     * Creates a bulk delete statement, execute it with {@link #executeUpdate(TypeSafeBulkQuery)}.
+     */
+    TypeSafeDeleteQuery createDeleteQuery();
+
     /**
      * Delegates to {@link #doQuery(TypeSafeRootQuery, HibernateQueryConfigurer)} without configurer.
      */
@@ -60,4 +78,113 @@ public interface TypeSafeQueryDao {
      * Delegates to {@link #doQuery(TypeSafeRootQuery)} and returns the results.
      */
     <T> List<T> doQueryResults(TypeSafeRootQuery query, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueryIterate(TypeSafeRootQuery, int, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> QueryResultIterator<T> doQueryIterate(TypeSafeRootQuery query, int fetchSize);
+
+    /**
+     * Scrolls forward only through the results instead of listing them, the rows
+     * are fetched from the database in batches of <code>fetchSize</code> and are
+     * transformed one by one, so the results don't have to fit in memory.
+     * <p>
+     * The iterator must be closed when it is not iterated until the end,
+     * the configurer's afterQuery is called when the iterator is closed.
+     * <p>
+     * Without configurer, the results are scrolled with a stateless session which uses the
+     * connection of the current session: selected entities are detached and can't be lazy loaded.
+     * With a configurer, the current session is used and the entities of each row are evicted
+     * once the row is transformed, unless they were already managed by the session.
+     * <p>
+     * Selections which are grouped by identity (for example selecting into collections)
+     * are completed when the identity of the result changes, so the query must be
+     * ordered by the identity of the result dto. Batched 'in' params are not supported.
+     */
+    <T> QueryResultIterator<T> doQueryIterate(TypeSafeRootQuery query, int fetchSize, HibernateQueryConfigurer configurer);
+
+    /**
+     * Creates a template of the query, the query is transformed to hql in the
+     * same way as when it's executed by this dao (the in values table threshold
+     * is applied to its collection values).
+     *
+     * @see TypeSafeQueryTemplate
+     */
+    TypeSafeQueryTemplate createTemplate(TypeSafeRootQuery query);
+
+    /**
+     * Executes the compiled query of the template with the bound values,
+     * the query isn't transformed to hql again.
+     *
+     * @see TypeSafeQueryTemplate
+     */
+    <T> QueryResult<T> doQuery(TypeSafeQueryTemplateBinding binding, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQuerySeek(TypeSafeRootQuery, SeekToken, int, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> SeekQueryResult<T> doQuerySeek(TypeSafeRootQuery query, SeekToken after, int pageSize);
+
+    /**
+     * Queries a page of at most pageSize results which are ordered after the token,
+     * the first page is queried when the token is null.
+     * <p>
+     * Unlike paging with first result, the rows of previous pages are not scanned
+     * by the database, the query is restricted on the ordered values instead.
+     * The query itself is not modified, a copy is restricted and executed.
+     *
+     * @see TypeSafeRootQuery#seekAfter(SeekToken)
+     */
+    <T> SeekQueryResult<T> doQuerySeek(TypeSafeRootQuery query, SeekToken after,
+            int pageSize, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueryPage(TypeSafeRootQuery, HibernateQueryConfigurer)} without configurer.
+     */
+    <T> PagedQueryResult<T> doQueryPage(TypeSafeRootQuery query);
+
+    /**
+     * Queries the page defined by the first and max results of the query
+     * together with the total amount of results.
+     * <p>
+     * The total is counted with the query derived by {@link TypeSafeRootQuery#toCountHqlQuery()},
+     * the configurer is used for both the page query and the count query.
+     * The count can't be derived when collection params are listed in chunks,
+     * the counts of the chunks can't be added up reliably.
+     */
+    <T> PagedQueryResult<T> doQueryPage(TypeSafeRootQuery query, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #doQueries(List, HibernateQueryConfigurer)} without configurer.
+     */
+    MultiQueryResult doQueries(TypeSafeRootQuery... queries);
+
+    /**
+     * Executes the queries one after another with the current session, in one transaction:
+     * the active transaction is used, or a read only transaction is started for the queries.
+     * When the transaction is started for the queries, the session is read only while
+     * the queries are executed and the connection is read only until the transaction
+     * completes, unless a query uses the in values table.
+     * All queries are transformed to hql before the first query is executed.
+     * Queries which are marked cacheable use the query result cache, as with doQuery.
+     * <p>
+     * The results are returned in the order of the queries,
+     * together with the execution time of each query.
+     */
+    MultiQueryResult doQueries(List<TypeSafeRootQuery> queries, HibernateQueryConfigurer configurer);
+
+    /**
+     * Delegates to {@link #executeUpdate(TypeSafeBulkQuery, HibernateQueryConfigurer)} without configurer.
+     */
+    int executeUpdate(TypeSafeBulkQuery query);
+
+    /**
+     * Executes the bulk update or delete statement with the current session.
+     * <p>
+     * Collection params which are batched are bound in chunks, the statement
+     * is executed for each chunk combination.
+     *
+     * @return the amount of updated or deleted entities.
+     */
+    int executeUpdate(TypeSafeBulkQuery query, HibernateQueryConfigurer configurer);
 }
@@ -15,28 +15,79 @@
  */
 package be.shad.tsqb.dao;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 
+import javax.transaction.Synchronization;
+
+import org.hibernate.FlushMode;
+import org.hibernate.JDBCException;
 import org.hibernate.Query;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.jdbc.ReturningWork;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.hibernate.transform.ResultTransformer;
 
 import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.InValuesParameter;
 import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.dao.result.MultiQueryResult;
+import be.shad.tsqb.dao.result.PagedQueryResult;
 import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.dao.result.QueryResultIterator;
+import be.shad.tsqb.dao.result.ScrollableQueryResultIterator;
+import be.shad.tsqb.dao.result.SeekQueryResult;
 import be.shad.tsqb.helper.TypeSafeQueryHelper;
 import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
 import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.ordering.SeekToken;
+import be.shad.tsqb.query.TypeSafeBulkQuery;
+import be.shad.tsqb.query.TypeSafeBulkQueryInternal;
+import be.shad.tsqb.query.TypeSafeDeleteQuery;
+import be.shad.tsqb.query.TypeSafeDeleteQueryImpl;
 import be.shad.tsqb.query.TypeSafeRootQuery;
 import be.shad.tsqb.query.TypeSafeRootQueryImpl;
+import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQueryImpl;
+import be.shad.tsqb.selection.TypeSafeQueryProjections;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
 
 public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
     private final SessionFactory sessionFactory;
     private final TypeSafeQueryHelper typeSafeQueryHelper;
+    private CompiledTypeSafeQueryCache compiledQueryCache = new CompiledTypeSafeQueryCache();
+    private QueryResultCache queryResultCache;
+    private ExecutorService batchExecutor;
+    private ExecutorService pageCountExecutor;
+    private ChunkPlanner chunkPlanner = new ChunkPlanner();
+    private final List<QueryExecutionListener> executionListeners = new CopyOnWriteArrayList<>();
+    private int inValuesTableThreshold;
+    private boolean statelessProjectionQueries;
 
     public TypeSafeQueryDaoImpl(SessionFactory sessionFactory,
             TypeSafeQueryHelper typeSafeQueryHelper) {
@@ -48,6 +99,153 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
         this(sessionFactory, new TypeSafeQueryHelperImpl(sessionFactory));
     }
 
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    /**
+     * The cache used to reuse the hql and result transformer of queries
+     * with the same shape, null if queries are compiled on each execution.
+     */
+    public CompiledTypeSafeQueryCache getCompiledQueryCache() {
+        return compiledQueryCache;
+    }
+
+    /**
+     * Sets the cache for compiled queries, use null to disable caching.
+     */
+    public void setCompiledQueryCache(CompiledTypeSafeQueryCache compiledQueryCache) {
+        this.compiledQueryCache = compiledQueryCache;
+    }
+
+    /**
+     * The cache of the results of queries which are marked cacheable,
+     * null if results are not cached.
+     */
+    public QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    /**
+     * Sets the cache for the results of queries which are marked cacheable, null by default.
+     * Register a {@link QueryResultCacheInvalidator} to evict the results when entities change.
+     *
+     * @see TypeSafeRootQuery#setCacheable(boolean)
+     */
+    public void setQueryResultCache(QueryResultCache queryResultCache) {
+        this.queryResultCache = queryResultCache;
+    }
+
+    /**
+     * The executor used to list the batches of a batched 'in' param concurrently,
+     * null if the batches are listed one after another.
+     */
+    public ExecutorService getBatchExecutor() {
+        return batchExecutor;
+    }
+
+    /**
+     * Sets the executor to list the batches of a batched 'in' param concurrently, null by default.
+     * <p>
+     * Each batch is listed with its own stateless session, so the rows are read
+     * in another transaction and changes which aren't committed yet are not visible.
+     * Entities which are selected are detached and can't be lazy loaded.
+     * Queries with a configurer are listed one batch after another with the current session.
+     * The rows of all batches are merged before they are transformed, as when
+     * the batches are listed one after another.
+     */
+    public void setBatchExecutor(ExecutorService batchExecutor) {
+        this.batchExecutor = batchExecutor;
+    }
+
+    /**
+     * The executor used to count the total results of a page concurrently,
+     * null if the page is queried before the results are counted.
+     */
+    public ExecutorService getPageCountExecutor() {
+        return pageCountExecutor;
+    }
+
+    /**
+     * Sets the executor to count the total results while the page is queried, null by default.
+     * <p>
+     * The results are counted with a stateless session which uses another connection,
+     * so the results are only counted concurrently when the connection of the current
+     * session is read-only: its transaction can't have changes which the other connection
+     * doesn't see. Queries with a configurer or which use the in values table are counted
+     * after the page query as well.
+     */
+    public void setPageCountExecutor(ExecutorService pageCountExecutor) {
+        this.pageCountExecutor = pageCountExecutor;
+    }
+
+    /**
+     * The planner which decides how collection params are bound in chunks.
+     */
+    public ChunkPlanner getChunkPlanner() {
+        return chunkPlanner;
+    }
+
+    public void setChunkPlanner(ChunkPlanner chunkPlanner) {
+        this.chunkPlanner = chunkPlanner;
+    }
+
+    /**
+     * The collection size from which supported collection params are
+     * restricted using the in values table, 0 if it is never used implicitly.
+     */
+    public int getInValuesTableThreshold() {
+        return inValuesTableThreshold;
+    }
+
+    /**
+     * Sets the collection size from which number and string collection params
+     * are inserted in the {@link be.shad.tsqb.values.TypeSafeQueryInValue} table
+     * and restricted with a subquery, instead of binding each value as a parameter.
+     * <p>
+     * The values are inserted in the current session before the query is executed
+     * and deleted afterwards. Batches are not listed concurrently when values
+     * were inserted, because the stateless sessions wouldn't see them.
+     */
+    public void setInValuesTableThreshold(int inValuesTableThreshold) {
+        this.inValuesTableThreshold = inValuesTableThreshold;
+    }
+
+    /**
+     * Whether the queries which don't select entities are listed with a stateless session.
+     */
+    public boolean isStatelessProjectionQueries() {
+        return statelessProjectionQueries;
+    }
+
+    /**
+     * Sets whether the queries which only select values, and no entities, are listed with
+     * a stateless session, false by default. Queries which select entities are only listed
+     * with a stateless session when they are marked stateless.
+     * <p>
+     * The stateless session uses the connection of the current session, after the current
+     * session is flushed unless its flush mode is manual or commit. Queries with a configurer
+     * are only listed stateless when they are marked stateless, because the session filters
+     * enabled by a configurer don't apply to a stateless session.
+     *
+     * @see TypeSafeRootQuery#setStateless(boolean)
+     */
+    public void setStatelessProjectionQueries(boolean statelessProjectionQueries) {
+        this.statelessProjectionQueries = statelessProjectionQueries;
+    }
+
+    /**
+     * Adds a listener which is notified each time a query is listed by this dao,
+     * listeners can be added and removed while queries are executed.
+     */
+    public void addQueryExecutionListener(QueryExecutionListener listener) {
+        executionListeners.add(listener);
+    }
+
+    public void removeQueryExecutionListener(QueryExecutionListener listener) {
+        executionListeners.remove(listener);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -56,6 +254,22 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
         return new TypeSafeRootQueryImpl(typeSafeQueryHelper);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeUpdateQuery createUpdateQuery() {
+        return new TypeSafeUpdateQueryImpl(typeSafeQueryHelper);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeDeleteQuery createDeleteQuery() {
+        return new TypeSafeDeleteQueryImpl(typeSafeQueryHelper);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -85,100 +299,453 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
      */
     @Override
     public <T> QueryResult<T> doQuery(TypeSafeRootQuery tsqbQuery, HibernateQueryConfigurer configurer) {
-        HqlQuery hqlQuery = tsqbQuery.toHqlQuery();
+        long buildStart = System.nanoTime();
+        CompiledTypeSafeQueryCache cache = getCompiledQueryCache(tsqbQuery);
+        HqlQueryBuilderParams params = new HqlQueryBuilderParamsImpl();
+        HqlQuery hqlQuery = toHqlQuery(tsqbQuery, cache, params);
+        CompiledTypeSafeQuery compiledQuery = compile(tsqbQuery, hqlQuery, cache);
+        long buildNanos = System.nanoTime() - buildStart;
+        return doQuery(sessionFactory.getCurrentSession(), tsqbQuery, compiledQuery,
+                hqlQuery, params, configurer, buildNanos);
+    }
 
-        Session currentSession = sessionFactory.getCurrentSession();
-        Query query = currentSession.createQuery(hqlQuery.getHql());
-        int position = 0;
-        CollectionNamedParameter chunkedParam = null;
-        for(Object param: hqlQuery.getParams()) {
-            if (param instanceof NamedParameter) {
-                NamedParameter named = (NamedParameter) param;
-                if (isChunkedParam(named)) {
-                    if (chunkedParam != null) {
-                        throw new IllegalStateException(String.format(
-                                "More than one batched param [%s, %s] was used in query [%s].",
-                                chunkedParam.getName(), named.getName(), query.getQueryString()));
+    /**
+     * Lists the compiled query with the session, or gets its results
+     * from the query result cache if they may be cached.
+     * The session is flushed before the cache is used, as hibernate would do before
+     * listing the query, so the results of the flushed changes are evicted first.
+     *
+     * @param params the params which were used to transform the query to hql.
+     */
+    private <T> QueryResult<T> doQuery(Session currentSession, TypeSafeRootQuery tsqbQuery,
+            CompiledTypeSafeQuery compiledQuery, HqlQuery hqlQuery, HqlQueryBuilderParams params,
+            HibernateQueryConfigurer configurer, long buildNanos) {
+        boolean stateless = isStateless(tsqbQuery, configurer);
+        if (!isResultCacheable(tsqbQuery, configurer)) {
+            return doQuery(currentSession, compiledQuery, hqlQuery.getParams(),
+                    tsqbQuery.getFirstResult(), tsqbQuery.getMaxResults(), configurer, buildNanos, stateless);
+        }
+
+        if (!currentSession.getFlushMode().lessThan(FlushMode.AUTO)) {
+            currentSession.flush();
+        }
+        QueryResultCacheKey key = new QueryResultCacheKey(compiledQuery.getFingerprint(),
+                hqlQuery.getParams(), tsqbQuery.getFirstResult(), tsqbQuery.getMaxResults());
+        QueryResult<T> result = queryResultCache.get(key);
+        if (result == null) {
+            long invalidationCount = queryResultCache.getInvalidationCount();
+            result = doQuery(currentSession, compiledQuery, hqlQuery.getParams(),
+                    tsqbQuery.getFirstResult(), tsqbQuery.getMaxResults(), null, buildNanos, stateless);
+            queryResultCache.put(key, result, params.getQueriedEntityClasses(), invalidationCount);
+        }
+        return result;
+    }
+
+    /**
+     * Queries which are marked stateless are always listed stateless, the queries which don't
+     * select entities only if stateless projection queries are enabled and there is no configurer.
+     */
+    private boolean isStateless(TypeSafeRootQuery query, HibernateQueryConfigurer configurer) {
+        if (query.isStateless()) {
+            return true;
+        }
+        return statelessProjectionQueries && configurer == null && query instanceof TypeSafeRootQueryInternal
+                && !((TypeSafeRootQueryInternal) query).getProjections().isSelectingEntities();
+    }
+
+    /**
+     * Results are only cached for cacheable queries without configurer,
+     * the configurer could change the results (filters, ...).
+     * Selected entities are not cached, they are managed by the session which queried them.
+     */
+    private boolean isResultCacheable(TypeSafeRootQuery query, HibernateQueryConfigurer configurer) {
+        return queryResultCache != null && configurer == null && query.isCacheable()
+                && query instanceof TypeSafeRootQueryInternal
+                && !((TypeSafeRootQueryInternal) query).getProjections().isSelectingEntities();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResultIterator<T> doQueryIterate(TypeSafeRootQuery query, int fetchSize) {
+        return doQueryIterate(query, fetchSize, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResultIterator<T> doQueryIterate(TypeSafeRootQuery tsqbQuery, int fetchSize,
+            final HibernateQueryConfigurer configurer) {
+        CompiledTypeSafeQueryCache cache = getCompiledQueryCache(tsqbQuery);
+        HqlQuery hqlQuery = toHqlQuery(tsqbQuery, cache);
+        CompiledTypeSafeQuery compiledQuery = compile(tsqbQuery, hqlQuery, cache);
+
+        final Session currentSession = sessionFactory.getCurrentSession();
+        ChunkPlan chunkPlan = chunkPlanner.plan(compiledQuery, hqlQuery.getParams());
+        if (chunkPlan != null) {
+            throw new IllegalStateException(String.format(
+                    "Batched params %s can't be used when iterating query [%s].",
+                    chunkPlan.getChunkedNames(), compiledQuery.getHql()));
+        }
+        final InValuesTable inValuesTable = new InValuesTable(currentSession);
+        Collection<Object> boundParams = inValuesTable.insertValues(hqlQuery.getParams());
+        // the configurer can only prepare the current session:
+        final StatelessSession statelessSession = configurer == null ? openStatelessSession(currentSession): null;
+        Runnable closeCallback = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (statelessSession != null) {
+                        statelessSession.close();
+                    } else if (configurer != null) {
+                        configurer.afterQuery(currentSession);
                     }
-                    // remember batched param to bind iterate and bind chunks later:
-                    chunkedParam = (CollectionNamedParameter) named;
-                } else if (named.getValue() instanceof Collection) {
-                    query.setParameterList(named.getName(), (Collection<?>) named.getValue());
-                } else {
-                    query.setParameter(named.getName(), named.getValue());
+                } finally {
+                    inValuesTable.deleteValues();
                 }
-            } else {
-                query.setParameter(position++, param);
             }
+        };
+        try {
+            SharedSessionContract querySession = statelessSession == null ? currentSession: statelessSession;
+            Query query = querySession.createQuery(compiledQuery.getHql());
+            compiledQuery.bindParameters(query, boundParams, null);
+            if (tsqbQuery.getFirstResult() >= 0) {
+                query.setFirstResult(tsqbQuery.getFirstResult());
+            }
+            if (tsqbQuery.getMaxResults() > 0) {
+                query.setMaxResults(tsqbQuery.getMaxResults());
+            }
+            query.setFetchSize(fetchSize);
+            query.setReadOnly(true);
+
+            if (configurer != null) {
+                configurer.beforeQuery(currentSession);
+                configurer.configureQuery(query);
+            }
+            // rows are transformed one by one by the iterator:
+            if (statelessSession != null) {
+                return new ScrollableQueryResultIterator<>(query,
+                        compiledQuery.getResultTransformer(), closeCallback);
+            }
+            return new EvictingQueryResultIterator<>(currentSession, query,
+                    compiledQuery.getResultTransformer(), closeCallback);
+        } catch (RuntimeException e) {
+            closeCallback.run();
+            throw e;
         }
-        if (tsqbQuery.getFirstResult() >= 0) {
-            query.setFirstResult(tsqbQuery.getFirstResult());
+    }
+
+    /**
+     * Evicts the entities which were loaded for a row once the row is transformed, so the
+     * persistence context doesn't grow with the results. The entities which were managed
+     * by the session before the iteration started are kept.
+     */
+    private static final class EvictingQueryResultIterator<T> extends ScrollableQueryResultIterator<T> {
+        private final Session session;
+        private final PersistenceContext persistenceContext;
+        private final Set<Object> managedEntities;
+
+        EvictingQueryResultIterator(Session session, Query query,
+                ResultTransformer resultTransformer, Runnable closeCallback) {
+            super(query, resultTransformer, closeCallback);
+            this.session = session;
+            this.persistenceContext = ((SessionImplementor) session).getPersistenceContext();
+            this.managedEntities = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            Map<?, ?> entitiesByKey = persistenceContext.getEntitiesByKey();
+            managedEntities.addAll(entitiesByKey.values());
         }
-        if (tsqbQuery.getMaxResults() > 0) {
-            query.setMaxResults(tsqbQuery.getMaxResults());
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void rowTransformed(Object[] row) {
+            for(Object value: row) {
+                if (value != null && !managedEntities.contains(value) && persistenceContext.isEntryFor(value)) {
+                    session.evict(value);
+                }
+            }
         }
-        query.setResultTransformer(hqlQuery.getResultTransformer());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryTemplate createTemplate(TypeSafeRootQuery query) {
+        return new TypeSafeQueryTemplate(query, toHqlQuery(query, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> QueryResult<T> doQuery(TypeSafeQueryTemplateBinding binding, HibernateQueryConfigurer configurer) {
+        return doQuery(sessionFactory.getCurrentSession(), binding.getTemplate().getCompiledQuery(),
+                binding.getParams(), binding.getFirstResult(), binding.getMaxResults(), configurer, 0);
+    }
+
+    /**
+     * Lists the query with the session, see
+     * {@link #doQuery(Session, CompiledTypeSafeQuery, Collection, int, int, HibernateQueryConfigurer, long, boolean)}
+     */
+    <T> QueryResult<T> doQuery(Session currentSession, CompiledTypeSafeQuery compiledQuery,
+            Collection<Object> params, int firstResult, int maxResults,
+            HibernateQueryConfigurer configurer, long buildNanos) {
+        return doQuery(currentSession, compiledQuery, params, firstResult, maxResults, configurer, buildNanos, false);
+    }
+
+    /**
+     * Creates a hibernate query object for the session, binds the params,
+     * sets the start/max results and lists the transformed results.
+     * The query execution listeners are notified with the time of each phase.
+     *
+     * @param buildNanos the time it took to build and compile the query.
+     * @param stateless whether to list the query with a stateless session
+     *        which uses the connection of the current session.
+     */
+    <T> QueryResult<T> doQuery(Session currentSession, CompiledTypeSafeQuery compiledQuery,
+            Collection<Object> params, int firstResult, int maxResults,
+            HibernateQueryConfigurer configurer, long buildNanos, boolean stateless) {
+        QueryExecution execution = new QueryExecution(compiledQuery.getFingerprint(), params, buildNanos);
+        InValuesTable inValuesTable = new InValuesTable(currentSession);
+        try {
+            long start = System.nanoTime();
+            Collection<Object> boundParams = inValuesTable.insertValues(params);
+            StatelessSession statelessSession = stateless ? openStatelessSession(currentSession): null;
+            try {
+                SharedSessionContract querySession = statelessSession == null ? currentSession: statelessSession;
+                Query query = querySession.createQuery(compiledQuery.getHql());
+                ChunkPlan chunkPlan = chunkPlanner.plan(compiledQuery, boundParams);
+                compiledQuery.bindParameters(query, boundParams, chunkPlan);
+                if (firstResult >= 0) {
+                    query.setFirstResult(firstResult);
+                }
+                if (maxResults > 0) {
+                    query.setMaxResults(maxResults);
+                }
+                // stateless sessions can't see the inserted in values and aren't configured:
+                ExecutorService executor = inValuesTable.hasValues() || configurer != null ? null: batchExecutor;
+                if (configurer != null) {
+                    configurer.beforeQuery(currentSession);
+                    configurer.configureQuery(query);
+                }
+                execution.bound(System.nanoTime() - start);
 
-        List<T> results = null;
-        if (configurer != null) {
-            configurer.beforeQuery(currentSession);
-            configurer.configureQuery(query);
+                start = System.nanoTime();
+                List<Object> rows;
+                try {
+                    rows = listAll(query, compiledQuery, boundParams, chunkPlan, executor, configurer);
+                } finally {
+                    if (configurer != null) {
+                        configurer.afterQuery(currentSession);
+                    }
+                }
+                execution.listed(chunkPlan == null ? 1: chunkPlan.getCombinationCount(),
+                        rows.size(), System.nanoTime() - start);
+
+                start = System.nanoTime();
+                List<T> results = transform(query, compiledQuery.getResultTransformer(), rows);
+                execution.transformed(results.size(), System.nanoTime() - start);
+                return new QueryResult<>(results);
+            } finally {
+                if (statelessSession != null) {
+                    statelessSession.close();
+                }
+            }
+        } catch (RuntimeException e) {
+            execution.failed(e);
+            throw e;
+        } finally {
             try {
-                results = listAll(query, hqlQuery, chunkedParam);
+                inValuesTable.deleteValues();
             } finally {
-                configurer.afterQuery(currentSession);
+                notifyExecuted(execution);
             }
-        } else {
-            results = listAll(query, hqlQuery, chunkedParam);
         }
-        return new QueryResult<>(results);
+    }
+
+    private void notifyExecuted(QueryExecution execution) {
+        for(QueryExecutionListener listener: executionListeners) {
+            listener.queryExecuted(execution);
+        }
     }
 
     /**
-     * Check if the parameter specifies splitting by batchsize.
-     * Check if the amount of params exceeds the batch size,
-     * otherwise no splitting is required anyway.
+     * Opens a stateless session with the connection of the session, so the changes of the
+     * current transaction are visible. The session is flushed first, as hibernate would do
+     * before listing a query with the session itself.
      */
-    private boolean isChunkedParam(NamedParameter named) {
-        if (!(named instanceof CollectionNamedParameter)) {
-            return false;
+    private StatelessSession openStatelessSession(Session currentSession) {
+        if (!currentSession.getFlushMode().lessThan(FlushMode.AUTO)) {
+            currentSession.flush();
+        }
+        return sessionFactory.openStatelessSession(((SessionImplementor) currentSession).connection());
+    }
+
+    /**
+     * @return the compiled query cache if it can be used for the query, null otherwise.
+     */
+    CompiledTypeSafeQueryCache getCompiledQueryCache(TypeSafeRootQuery query) {
+        if (query instanceof TypeSafeRootQueryInternal) {
+            return compiledQueryCache;
+        }
+        return null;
+    }
+
+    /**
+     * Transforms the query to hql, the result transformer
+     * is not created when the compiled query cache is used.
+     * The in values table threshold is applied to the collection values.
+     */
+    HqlQuery toHqlQuery(TypeSafeRootQuery query, CompiledTypeSafeQueryCache cache) {
+        return toHqlQuery(query, cache, new HqlQueryBuilderParamsImpl());
+    }
+
+    /**
+     * Transforms the query to hql with the params, the params collect
+     * the information which is not part of the hql query.
+     */
+    HqlQuery toHqlQuery(TypeSafeRootQuery query, CompiledTypeSafeQueryCache cache, HqlQueryBuilderParams params) {
+        if (!(query instanceof TypeSafeRootQueryInternal)) {
+            return query.toHqlQuery();
+        }
+        params.setCreatingResultTransformer(cache == null);
+        params.setInValuesTableThreshold(inValuesTableThreshold);
+        return ((TypeSafeRootQueryInternal) query).toHqlQuery(params);
+    }
+
+    /**
+     * Looks up the compiled query by fingerprint, the result transformer
+     * is only created and prepared if the query wasn't compiled yet.
+     * The cached result transformer is shared by queries with transformers and
+     * mergers of the same classes, the instances of the query are bound to it.
+     * <p>
+     * The fingerprint consists of the hql, so the query is still transformed to hql
+     * to look up the compiled query. Deriving a key from the query's structure instead
+     * would duplicate the hql generation of every value and restriction, and a key which
+     * doesn't follow it exactly would bind the values to the hql of another query.
+     */
+    CompiledTypeSafeQuery compile(TypeSafeRootQuery query, HqlQuery hqlQuery,
+            CompiledTypeSafeQueryCache cache) {
+        if (!(query instanceof TypeSafeRootQueryInternal)) {
+            return new CompiledTypeSafeQuery(hqlQuery);
+        }
+        TypeSafeQueryProjections projections = ((TypeSafeRootQueryInternal) query).getProjections();
+        TypeSafeQueryFingerprint fingerprint = new TypeSafeQueryFingerprint(
+                hqlQuery.getHql(), projections.getResultTransformerLayout());
+        if (cache == null) {
+            return new CompiledTypeSafeQuery(hqlQuery, fingerprint);
         }
-        CollectionNamedParameter cp = (CollectionNamedParameter) named;
-        return cp.hasBatchSize() && cp.getBatchSize() < cp.getValue().size();
+        CompiledTypeSafeQuery compiledQuery = cache.get(fingerprint);
+        if (compiledQuery == null) {
+            hqlQuery.setResultTransformer(projections.createUnboundResultTransformer());
+            compiledQuery = cache.putIfAbsent(fingerprint, new CompiledTypeSafeQuery(hqlQuery, fingerprint));
+        }
+        return compiledQuery.withResultTransformer(
+                projections.bindResultTransformer(compiledQuery.getResultTransformer()));
     }
 
     /**
-     * Lists the same query with an updated collection in the named param for the batched named param.
+     * Lists the same query with updated collections in the named params for each chunk combination.
+     * The rows are not transformed yet.
      */
     @SuppressWarnings("unchecked")
-    private <T> List<T> listAll(Query query, HqlQuery hqlQuery, CollectionNamedParameter chunkedParam) {
-        if (chunkedParam == null) {
+    private List<Object> listAll(Query query, CompiledTypeSafeQuery compiledQuery, Collection<Object> params,
+            ChunkPlan chunkPlan, ExecutorService executor, HibernateQueryConfigurer configurer) {
+        if (chunkPlan == null) {
             return query.list();
         }
+        if (executor != null) {
+            return listConcurrently(executor, query, compiledQuery, params, chunkPlan);
+        }
+        List<Object> results = new LinkedList<>();
+        for(int combination=0; combination < chunkPlan.getCombinationCount(); combination++) {
+            chunkPlan.bindCombination(query, combination);
+            results.addAll(query.list());
+        }
+        return results;
+    }
 
-        // all results need to be listed before applying the result transformer because
-        // the values may need to be grouped and this grouping could be done incorrectly
-        // if it is applied on a partial result
-        query.setResultTransformer(null);
+    /**
+     * Transforms the rows as hibernate would if the result transformer was set on the query.
+     * <p>
+     * All rows need to be listed before applying the result transformer because
+     * the values may need to be grouped and this grouping could be done incorrectly
+     * if it is applied on the rows of a single chunk combination.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> transform(Query query, ResultTransformer resultTransformer, List<Object> rows) {
+        if (resultTransformer == null) {
+            return (List<T>) rows;
+        }
+        // hibernate only unwraps the rows with a single column when there is no result transformer:
+        boolean singleColumn = query.getReturnTypes().length == 1;
+        String[] aliases = query.getReturnAliases();
+        for(ListIterator<Object> it = rows.listIterator(); it.hasNext();) {
+            Object row = it.next();
+            Object[] tuple = singleColumn ? new Object[] { row }: (Object[]) row;
+            it.set(resultTransformer.transformTuple(tuple, aliases));
+        }
+        return resultTransformer.transformList(rows);
+    }
 
-        List<Object[]> results = new LinkedList<>();
-        int p = chunkedParam.getBatchSize();
-        List<Object> values = new ArrayList<>(p);
-        Iterator<?> it = chunkedParam.getValue().iterator();
-        while (it.hasNext()) {
-            values.add(it.next());
-            if (values.size() == p || !it.hasNext()) {
-                query.setParameterList(chunkedParam.getName(), values);
-                results.addAll(query.list());
-                values.clear();
-            }
+    /**
+     * Lists each chunk combination with its own stateless session using the executor.
+     * The rows are merged in the same order as when the combinations are listed one after another.
+     * Queries with a configurer are not listed concurrently, the configurer
+     * can only prepare the current session (filters, ...).
+     */
+    private List<Object> listConcurrently(ExecutorService executor, final Query query,
+            final CompiledTypeSafeQuery compiledQuery, final Collection<Object> params,
+            final ChunkPlan chunkPlan) {
+        List<Future<List<Object>>> futures = new ArrayList<>(chunkPlan.getCombinationCount());
+        for(int i=0; i < chunkPlan.getCombinationCount(); i++) {
+            final int combination = i;
+            futures.add(executor.submit(new Callable<List<Object>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public List<Object> call() throws Exception {
+                    StatelessSession session = sessionFactory.openStatelessSession();
+                    try {
+                        Query batchQuery = session.createQuery(compiledQuery.getHql());
+                        compiledQuery.bindParameters(batchQuery, params, chunkPlan);
+                        chunkPlan.bindCombination(batchQuery, combination);
+                        if (query.getFirstResult() != null) {
+                            batchQuery.setFirstResult(query.getFirstResult());
+                        }
+                        if (query.getMaxResults() != null) {
+                            batchQuery.setMaxResults(query.getMaxResults());
+                        }
+                        return batchQuery.list();
+                    } finally {
+                        session.close();
+                    }
+                }
+            }));
         }
 
-        if (hqlQuery.getResultTransformer() != null) {
-            return (List<T>) hqlQuery.getResultTransformer().transformList(results);
-        } else {
-            return (List<T>) results;
+        List<Object> results = new ArrayList<>();
+        try {
+            for(Future<List<Object>> future: futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while listing batches.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for(Future<List<Object>> future: futures) {
+                future.cancel(true);
+            }
         }
+        return results;
     }
 
     /**
@@ -199,4 +766,417 @@ public class TypeSafeQueryDaoImpl implements TypeSafeQueryDao {
         QueryResult<T> queryResult = doQuery(query, configurer);
         return queryResult.getResults();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> SeekQueryResult<T> doQuerySeek(TypeSafeRootQuery query, SeekToken after, int pageSize) {
+        return doQuerySeek(query, after, pageSize, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> SeekQueryResult<T> doQuerySeek(TypeSafeRootQuery query, SeekToken after,
+            int pageSize, HibernateQueryConfigurer configurer) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException(String.format(
+                    "The page size must be at least 1, was [%d].", pageSize));
+        }
+        TypeSafeRootQuery pageQuery = query.copy();
+        if (after != null) {
+            pageQuery.seekAfter(after);
+        }
+        pageQuery.setFirstResult(-1);
+        pageQuery.setMaxResults(pageSize);
+        QueryResult<T> queryResult = doQuery(pageQuery, configurer);
+        List<T> results = queryResult.getResults();
+        SeekToken nextToken = null;
+        if (results.size() == pageSize) {
+            nextToken = pageQuery.createSeekToken(results.get(pageSize - 1));
+        }
+        return new SeekQueryResult<>(results, nextToken);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> PagedQueryResult<T> doQueryPage(TypeSafeRootQuery query) {
+        return doQueryPage(query, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> PagedQueryResult<T> doQueryPage(TypeSafeRootQuery query, HibernateQueryConfigurer configurer) {
+        final HqlQuery countHqlQuery = toCountHqlQuery(query);
+        CompiledTypeSafeQuery compiledCountQuery = new CompiledTypeSafeQuery(countHqlQuery);
+        checkCountNotChunked(compiledCountQuery, countHqlQuery.getParams());
+        Session currentSession = sessionFactory.getCurrentSession();
+        Future<Long> concurrentCount = null;
+        if (isCountedConcurrently(currentSession, countHqlQuery, configurer)) {
+            concurrentCount = pageCountExecutor.submit(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    return countStateless(countHqlQuery);
+                }
+            });
+        }
+        try {
+            QueryResult<T> page = doQuery(query, configurer);
+            long totalCount;
+            if (concurrentCount == null) {
+                QueryResult<Number> counts = doQuery(currentSession, compiledCountQuery,
+                        countHqlQuery.getParams(), -1, -1, configurer, 0);
+                totalCount = sumCounts(counts.getResults());
+            } else {
+                totalCount = getConcurrentCount(concurrentCount);
+            }
+            return new PagedQueryResult<>(page.getResults(), Math.max(query.getFirstResult(), 0), totalCount);
+        } finally {
+            if (concurrentCount != null) {
+                concurrentCount.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * The count session uses another connection, it only sees the same data if the current
+     * transaction can't have changes: when the connection of the current session is read-only.
+     * The configurer is only applied to the current session, the count session can't see
+     * the inserted in values.
+     */
+    private boolean isCountedConcurrently(Session currentSession, HqlQuery countHqlQuery,
+            HibernateQueryConfigurer configurer) {
+        if (pageCountExecutor == null || configurer != null || hasInValuesParameter(countHqlQuery.getParams())) {
+            return false;
+        }
+        return currentSession.doReturningWork(new ReturningWork<Boolean>() {
+            @Override
+            public Boolean execute(Connection connection) throws SQLException {
+                return connection.isReadOnly();
+            }
+        });
+    }
+
+    /**
+     * The counts of chunk combinations can't be added up: a count distinct counts results
+     * which match several chunks more than once. The in values are not listed in chunks,
+     * they are only counted as the list key param which replaces them.
+     */
+    private void checkCountNotChunked(CompiledTypeSafeQuery compiledCountQuery, Collection<Object> params) {
+        List<Object> boundParams = new ArrayList<>(params.size());
+        for(Object param: params) {
+            if (param instanceof InValuesParameter) {
+                String name = ((InValuesParameter) param).getName();
+                boundParams.add(new NamedParameter(name, name));
+            } else {
+                boundParams.add(param);
+            }
+        }
+        ChunkPlan chunkPlan = chunkPlanner.plan(compiledCountQuery, boundParams);
+        if (chunkPlan != null) {
+            throw new IllegalStateException(String.format("The results of query [%s] can't be counted "
+                    + "because params %s are listed in chunks. Use the in values table for these params.",
+                    compiledCountQuery.getHql(), chunkPlan.getChunkedNames()));
+        }
+    }
+
+    /**
+     * Derives the count query, the in values table threshold is applied to the collection values.
+     */
+    private HqlQuery toCountHqlQuery(TypeSafeRootQuery query) {
+        if (!(query instanceof TypeSafeRootQueryInternal)) {
+            return query.toCountHqlQuery();
+        }
+        HqlQueryBuilderParams params = new HqlQueryBuilderParamsImpl();
+        params.setInValuesTableThreshold(inValuesTableThreshold);
+        return ((TypeSafeRootQueryInternal) query).toCountHqlQuery(params);
+    }
+
+    private boolean hasInValuesParameter(Collection<Object> params) {
+        for(Object param: params) {
+            if (param instanceof InValuesParameter) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the results with a stateless session, the count query is never chunked.
+     */
+    @SuppressWarnings("unchecked")
+    private long countStateless(HqlQuery countHqlQuery) {
+        CompiledTypeSafeQuery compiledQuery = new CompiledTypeSafeQuery(countHqlQuery);
+        StatelessSession session = sessionFactory.openStatelessSession();
+        try {
+            Query query = session.createQuery(compiledQuery.getHql());
+            compiledQuery.bindParameters(query, countHqlQuery.getParams(), null);
+            return sumCounts(query.list());
+        } finally {
+            session.close();
+        }
+    }
+
+    private long sumCounts(List<Number> counts) {
+        long count = 0;
+        for(Number value: counts) {
+            count += value.longValue();
+        }
+        return count;
+    }
+
+    private long getConcurrentCount(Future<Long> concurrentCount) {
+        try {
+            return concurrentCount.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while counting the results.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MultiQueryResult doQueries(TypeSafeRootQuery... queries) {
+        return doQueries(Arrays.asList(queries), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MultiQueryResult doQueries(List<TypeSafeRootQuery> queries, HibernateQueryConfigurer configurer) {
+        List<CompiledTypeSafeQuery> compiledQueries = new ArrayList<>(queries.size());
+        List<HqlQuery> hqlQueries = new ArrayList<>(queries.size());
+        List<HqlQueryBuilderParams> params = new ArrayList<>(queries.size());
+        long[] buildNanos = new long[queries.size()];
+        for(int i=0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            TypeSafeRootQuery query = queries.get(i);
+            CompiledTypeSafeQueryCache cache = getCompiledQueryCache(query);
+            HqlQueryBuilderParams queryParams = new HqlQueryBuilderParamsImpl();
+            HqlQuery hqlQuery = toHqlQuery(query, cache, queryParams);
+            compiledQueries.add(compile(query, hqlQuery, cache));
+            hqlQueries.add(hqlQuery);
+            params.add(queryParams);
+            buildNanos[i] = System.nanoTime() - start;
+        }
+
+        Session currentSession = sessionFactory.getCurrentSession();
+        if (currentSession.getTransaction().getStatus() == TransactionStatus.ACTIVE) {
+            // the caller's transaction may change the loaded entities, they are not loaded read only
+            return doQueries(currentSession, queries, compiledQueries, hqlQueries, params, configurer, buildNanos);
+        }
+
+        Transaction transaction = currentSession.beginTransaction();
+        boolean defaultReadOnly = currentSession.isDefaultReadOnly();
+        try {
+            if (!hasInValuesParameter(hqlQueries)) {
+                // the in values table is filled with the connection, it can't be read only then
+                setConnectionReadOnly(currentSession, transaction);
+            }
+            currentSession.setDefaultReadOnly(true);
+            MultiQueryResult result = doQueries(currentSession, queries,
+                    compiledQueries, hqlQueries, params, configurer, buildNanos);
+            transaction.commit();
+            return result;
+        } catch (RuntimeException | Error e) {
+            try {
+                transaction.rollback();
+            } catch (RuntimeException | Error rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+            throw e;
+        } finally {
+            currentSession.setDefaultReadOnly(defaultReadOnly);
+        }
+    }
+
+    private MultiQueryResult doQueries(Session currentSession, List<TypeSafeRootQuery> queries,
+            List<CompiledTypeSafeQuery> compiledQueries, List<HqlQuery> hqlQueries,
+            List<HqlQueryBuilderParams> params, HibernateQueryConfigurer configurer, long[] buildNanos) {
+        List<QueryResult<?>> results = new ArrayList<>(queries.size());
+        long[] executionNanos = new long[queries.size()];
+        for(int i=0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            results.add(doQuery(currentSession, queries.get(i), compiledQueries.get(i),
+                    hqlQueries.get(i), params.get(i), configurer, buildNanos[i]));
+            executionNanos[i] = System.nanoTime() - start;
+        }
+        return new MultiQueryResult(results, executionNanos);
+    }
+
+    private boolean hasInValuesParameter(List<HqlQuery> hqlQueries) {
+        for(HqlQuery hqlQuery: hqlQueries) {
+            if (hasInValuesParameter(hqlQuery.getParams())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Marks the connection read-only for the transaction which was started for the queries,
+     * so the database doesn't have to prepare for changes. The read-only mode of the connection
+     * is restored when the transaction completes, before the connection is released.
+     */
+    private void setConnectionReadOnly(Session currentSession, Transaction transaction) {
+        final Connection connection = currentSession.doReturningWork(new ReturningWork<Connection>() {
+            @Override
+            public Connection execute(Connection connection) throws SQLException {
+                return connection;
+            }
+        });
+        final boolean readOnly;
+        try {
+            readOnly = connection.isReadOnly();
+            connection.setReadOnly(true);
+        } catch (SQLException e) {
+            throw new JDBCException("Failed to mark the connection read-only.", e);
+        }
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    connection.setReadOnly(readOnly);
+                } catch (SQLException e) {
+                    throw new JDBCException("Failed to restore the read-only mode of the connection.", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int executeUpdate(TypeSafeBulkQuery query) {
+        return executeUpdate(query, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The execution listeners are notified with the amount of
+     * updated entities as row and result count.
+     */
+    @Override
+    public int executeUpdate(TypeSafeBulkQuery bulkQuery, HibernateQueryConfigurer configurer) {
+        long start = System.nanoTime();
+        HqlQuery hqlQuery;
+        if (bulkQuery instanceof TypeSafeBulkQueryInternal) {
+            HqlQueryBuilderParams params = new HqlQueryBuilderParamsImpl();
+            params.setInValuesTableThreshold(inValuesTableThreshold);
+            hqlQuery = ((TypeSafeBulkQueryInternal) bulkQuery).toHqlQuery(params);
+        } else {
+            hqlQuery = bulkQuery.toHqlQuery();
+        }
+        CompiledTypeSafeQuery compiledQuery = new CompiledTypeSafeQuery(hqlQuery);
+        QueryExecution execution = new QueryExecution(compiledQuery.getFingerprint(),
+                hqlQuery.getParams(), System.nanoTime() - start);
+
+        Session currentSession = sessionFactory.getCurrentSession();
+        if (queryResultCache != null && bulkQuery instanceof TypeSafeBulkQueryInternal) {
+            lockQueryResults(currentSession, ((TypeSafeBulkQueryInternal) bulkQuery).getEntityClass());
+        }
+        InValuesTable inValuesTable = new InValuesTable(currentSession);
+        try {
+            start = System.nanoTime();
+            Collection<Object> boundParams = inValuesTable.insertValues(hqlQuery.getParams());
+            Query query = currentSession.createQuery(compiledQuery.getHql());
+            checkBulkBatchedParams(compiledQuery, boundParams);
+            ChunkPlan chunkPlan = chunkPlanner.plan(compiledQuery, boundParams);
+            compiledQuery.bindParameters(query, boundParams, chunkPlan);
+            if (configurer != null) {
+                configurer.beforeQuery(currentSession);
+                configurer.configureQuery(query);
+            }
+            execution.bound(System.nanoTime() - start);
+
+            start = System.nanoTime();
+            int updated = 0;
+            try {
+                if (chunkPlan == null) {
+                    updated = query.executeUpdate();
+                } else {
+                    for(int combination=0; combination < chunkPlan.getCombinationCount(); combination++) {
+                        chunkPlan.bindCombination(query, combination);
+                        updated += query.executeUpdate();
+                    }
+                }
+            } finally {
+                if (configurer != null) {
+                    configurer.afterQuery(currentSession);
+                }
+            }
+            execution.listed(chunkPlan == null ? 1: chunkPlan.getCombinationCount(),
+                    updated, System.nanoTime() - start);
+            execution.transformed(updated, 0);
+            return updated;
+        } catch (RuntimeException e) {
+            execution.failed(e);
+            throw e;
+        } finally {
+            try {
+                inValuesTable.deleteValues();
+            } finally {
+                notifyExecuted(execution);
+            }
+        }
+    }
+
+    /**
+     * A bulk statement is executed once per chunk, which only affects the same rows
+     * as a single execution when each chunk narrows the statement independently:
+     * the chunked param must be the right side of an 'in' restriction which is
+     * and-ed into the where clause of the statement itself.
+     * <p>
+     * The chunk planner binds other batched params at once, but a bulk statement
+     * with a batched param which doesn't fit in one batch is rejected instead, the batch
+     * size was most likely set to keep the statement within the bind parameter limits.
+     */
+    private void checkBulkBatchedParams(CompiledTypeSafeQuery compiledQuery, Collection<Object> params) {
+        for(Object param: params) {
+            if (param instanceof CollectionNamedParameter) {
+                CollectionNamedParameter list = (CollectionNamedParameter) param;
+                if (list.hasBatchSize() && !list.isChunkable() && list.getValue().size() > list.getBatchSize()) {
+                    throw new IllegalStateException(String.format("Param [%s] can't be executed in chunks "
+                            + "because it is not used in an 'in' restriction which is and-ed into the where clause "
+                            + "of the bulk statement [%s]. Remove the batch size or use the in values table.",
+                            list.getName(), compiledQuery.getHql()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Bulk statements don't trigger the entity events which invalidate the query result cache,
+     * the results of the entity class are locked until the transaction is completed instead.
+     */
+    private void lockQueryResults(Session currentSession, final Class<?> entityClass) {
+        final QueryResultCache cache = queryResultCache;
+        cache.lock(entityClass);
+        ((EventSource) currentSession).getActionQueue().registerProcess(new AfterTransactionCompletionProcess() {
+            @Override
+            public void doAfterTransactionCompletion(boolean success, SessionImplementor session) {
+                cache.unlock(entityClass);
+            }
+        });
+    }
 }
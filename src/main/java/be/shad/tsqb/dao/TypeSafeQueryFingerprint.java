@@ -0,0 +1,65 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.List;
+
+/**
+ * Identifies the shape of a query: the generated hql combined with everything
+ * the result transformer depends on which is not part of the hql.
+ * <p>
+ * Two queries with the same fingerprint only differ in their parameter values,
+ * so they can share the same {@link CompiledTypeSafeQuery}.
+ */
+public final class TypeSafeQueryFingerprint {
+    private final String hql;
+    private final List<Object> resultTransformerLayout;
+    private final int hashCode;
+
+    public TypeSafeQueryFingerprint(String hql, List<Object> resultTransformerLayout) {
+        this.hql = hql;
+        this.resultTransformerLayout = resultTransformerLayout;
+        this.hashCode = 31 * hql.hashCode() + resultTransformerLayout.hashCode();
+    }
+
+    public String getHql() {
+        return hql;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof TypeSafeQueryFingerprint)) {
+            return false;
+        }
+        TypeSafeQueryFingerprint other = (TypeSafeQueryFingerprint) obj;
+        return hashCode == other.hashCode
+                && hql.equals(other.hql)
+                && resultTransformerLayout.equals(other.resultTransformerLayout);
+    }
+
+    @Override
+    public String toString() {
+        return hql;
+    }
+}
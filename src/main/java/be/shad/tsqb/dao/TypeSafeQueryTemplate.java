@@ -0,0 +1,249 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.InValuesParameter;
+import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.TypeSafeNameds;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.values.CollectionTypeSafeValue;
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * A query which is transformed to hql once and can be executed many times
+ * with different values for its named values, also from multiple threads.
+ * <p>
+ * Values are named using <code>where(person.getName()).eq().named("name")</code>
+ * or {@link TypeSafeNameds#name(Object, String)}. Binding a value doesn't
+ * copy or transform the query again, only the new values are bound:
+ * <pre>
+ * TypeSafeQueryTemplate template = dao.createTemplate(query);
+ * List&lt;PersonDto&gt; results = template.bind("name", "Josh").execute(dao).getResults();
+ * </pre>
+ * Everything except the named values is frozen when the template is created,
+ * changes to the query afterwards don't affect the template. Only values which
+ * were added to the hql as a param can be bound, not values added as literal.
+ */
+public class TypeSafeQueryTemplate {
+    private final CompiledTypeSafeQuery compiledQuery;
+    private final List<Object> params;
+    private final Map<String, TemplateParameter> namedParameters;
+    private final int firstResult;
+    private final int maxResults;
+
+    /**
+     * Creates the template with the hql of {@link TypeSafeRootQuery#toHqlQuery()},
+     * the settings of a dao such as its in values table threshold are not applied.
+     * Use {@link TypeSafeQueryDao#createTemplate(TypeSafeRootQuery)} to create
+     * the template the way the query would be executed by the dao.
+     */
+    public TypeSafeQueryTemplate(TypeSafeRootQuery query) {
+        this(query, query.toHqlQuery());
+    }
+
+    /**
+     * Creates the template with the hql the query was transformed to.
+     */
+    TypeSafeQueryTemplate(TypeSafeRootQuery query, HqlQuery hqlQuery) {
+        this.compiledQuery = new CompiledTypeSafeQuery(hqlQuery);
+        this.params = Collections.unmodifiableList(new ArrayList<>(hqlQuery.getParams()));
+        this.firstResult = query.getFirstResult();
+        this.maxResults = query.getMaxResults();
+
+        Map<String, TemplateParameter> namedParameters = new HashMap<>();
+        TypeSafeNameds nameds = query.named();
+        for(String name: nameds.getNames()) {
+            Object named = nameds.get(name);
+            TemplateParameter parameter = null;
+            int slot = 0;
+            for(Object param: params) {
+                if (param instanceof NamedParameter && ((NamedParameter) param).getSource() == named) {
+                    if (parameter == null) {
+                        parameter = new TemplateParameter((NamedParameter) param);
+                        namedParameters.put(name, parameter);
+                    }
+                    parameter.slots.add(slot);
+                }
+                slot++;
+            }
+        }
+        this.namedParameters = namedParameters;
+    }
+
+    public CompiledTypeSafeQuery getCompiledQuery() {
+        return compiledQuery;
+    }
+
+    /**
+     * The first result of the query when the template was created.
+     */
+    public int getFirstResult() {
+        return firstResult;
+    }
+
+    /**
+     * The max results of the query when the template was created.
+     */
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * Creates a new binding and binds the value.
+     *
+     * @see TypeSafeQueryTemplateBinding#bind(String, Object)
+     */
+    public TypeSafeQueryTemplateBinding bind(String name, Object value) {
+        return new TypeSafeQueryTemplateBinding(this).bind(name, value);
+    }
+
+    /**
+     * Executes the template with the values of the query when the template was created.
+     */
+    public <T> QueryResult<T> execute(TypeSafeQueryDao dao) {
+        return new TypeSafeQueryTemplateBinding(this).execute(dao);
+    }
+
+    /**
+     * Checks if the value can be bound for the named parameter.
+     *
+     * @return the value to bind, collections are copied.
+     * @throws IllegalArgumentException if the name is not bound as parameter or the value has the wrong type.
+     */
+    Object validate(String name, Object value) {
+        TemplateParameter parameter = namedParameters.get(name);
+        if (parameter == null) {
+            throw new IllegalArgumentException(String.format(
+                    "No named parameter found for [%s] in query [%s]. Only named values "
+                    + "which were added to the hql as param can be bound.",
+                    name, compiledQuery.getHql()));
+        }
+        if (value == null) {
+            throw new IllegalArgumentException(String.format(
+                    "Null value is not allowed for named parameter [%s].", name));
+        }
+        if (!parameter.collection) {
+            checkValueType(parameter, value);
+            return value;
+        }
+
+        Collection<?> values;
+        if (value instanceof Collection<?>) {
+            values = (Collection<?>) value;
+        } else {
+            values = Collections.singleton(value);
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException(String.format(
+                    "Empty collection is not allowed for named parameter [%s].", name));
+        }
+        if (parameter.singleValue && values.size() > 1) {
+            // the template was created with a single value, in which case
+            // the 'in' operator may have been replaced with the equal operator
+            throw new IllegalArgumentException(String.format(
+                    "Named parameter [%s] was created with a single value, "
+                    + "it can't be bound to multiple values: %s.", name, values));
+        }
+        List<Object> copy = new ArrayList<>(values.size());
+        for(Object element: values) {
+            if (element == null) {
+                throw new IllegalArgumentException(String.format("Null value in "
+                        + "collection is not allowed. Collection: %s.", values));
+            }
+            checkValueType(parameter, element);
+            copy.add(element);
+        }
+        return copy;
+    }
+
+    private void checkValueType(TemplateParameter parameter, Object value) {
+        if (parameter.valueClass != null && !parameter.valueClass.isAssignableFrom(value.getClass())) {
+            throw new IllegalArgumentException(String.format("The value must be of type "
+                    + "[%s] but was of type [%s].", parameter.valueClass, value.getClass()));
+        }
+    }
+
+    /**
+     * Creates the params to execute the compiled query with,
+     * the params of the bound values are replaced.
+     */
+    List<Object> createParams(Map<String, Object> values) {
+        if (values.isEmpty()) {
+            return params;
+        }
+        List<Object> boundParams = new ArrayList<>(params);
+        for(Map.Entry<String, Object> value: values.entrySet()) {
+            TemplateParameter parameter = namedParameters.get(value.getKey());
+            for(int slot: parameter.slots) {
+                NamedParameter original = (NamedParameter) params.get(slot);
+                if (original instanceof InValuesParameter) {
+                    boundParams.set(slot, new InValuesParameter(original.getName(), (Collection<?>) value.getValue(),
+                            ((InValuesParameter) original).isNumberValues(), null));
+                } else if (parameter.collection) {
+                    boundParams.set(slot, new CollectionNamedParameter(original.getName(),
+                            (Collection<?>) value.getValue(), parameter.batchSize, null, parameter.chunkable));
+                } else {
+                    boundParams.set(slot, new NamedParameter(original.getName(), value.getValue()));
+                }
+            }
+        }
+        return boundParams;
+    }
+
+    /**
+     * The slots and value info of a named value which was added to the hql as param.
+     */
+    private static final class TemplateParameter {
+        private final List<Integer> slots = new LinkedList<>();
+        private final Class<?> valueClass;
+        private final boolean collection;
+        private final boolean singleValue;
+        private final Integer batchSize;
+        private final boolean chunkable;
+
+        private TemplateParameter(NamedParameter param) {
+            this.valueClass = param.getSource() instanceof TypeSafeValue<?>
+                    ? ((TypeSafeValue<?>) param.getSource()).getValueClass(): null;
+            this.collection = param.getSource() instanceof CollectionTypeSafeValue<?>;
+            if (param instanceof InValuesParameter) {
+                // the subquery restricts any number of values:
+                this.singleValue = false;
+                this.batchSize = null;
+                this.chunkable = false;
+            } else if (collection) {
+                CollectionNamedParameter collectionParam = (CollectionNamedParameter) param;
+                this.singleValue = collectionParam.getValue().size() == 1;
+                this.batchSize = collectionParam.getBatchSize();
+                this.chunkable = collectionParam.isChunkable();
+            } else {
+                this.singleValue = true;
+                this.batchSize = null;
+                this.chunkable = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.shad.tsqb.dao.result.QueryResult;
+
+/**
+ * The values to execute a {@link TypeSafeQueryTemplate} with.
+ * <p>
+ * A binding is meant to be used for a single execution by a single thread,
+ * create a new binding for each execution using {@link TypeSafeQueryTemplate#bind(String, Object)}.
+ */
+public class TypeSafeQueryTemplateBinding {
+    private final TypeSafeQueryTemplate template;
+    private final Map<String, Object> values = new HashMap<>();
+    private int firstResult;
+    private int maxResults;
+
+    TypeSafeQueryTemplateBinding(TypeSafeQueryTemplate template) {
+        this.template = template;
+        this.firstResult = template.getFirstResult();
+        this.maxResults = template.getMaxResults();
+    }
+
+    public TypeSafeQueryTemplate getTemplate() {
+        return template;
+    }
+
+    /**
+     * Binds the value for the named parameter, the value is checked
+     * in the same way as when the value is set on the query.
+     *
+     * @throws IllegalArgumentException if no value is named with the name,
+     *         the named value is not bound as parameter or the value has the wrong type.
+     */
+    public TypeSafeQueryTemplateBinding bind(String name, Object value) {
+        values.put(name, template.validate(name, value));
+        return this;
+    }
+
+    /**
+     * Overrides the first result of the template.
+     */
+    public TypeSafeQueryTemplateBinding firstResult(int firstResult) {
+        this.firstResult = firstResult;
+        return this;
+    }
+
+    /**
+     * Overrides the max results of the template.
+     */
+    public TypeSafeQueryTemplateBinding maxResults(int maxResults) {
+        this.maxResults = maxResults;
+        return this;
+    }
+
+    public int getFirstResult() {
+        return firstResult;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    /**
+     * @return the params to bind to the compiled query of the template.
+     */
+    public List<Object> getParams() {
+        return template.createParams(values);
+    }
+
+    /**
+     * Delegates to {@link #execute(TypeSafeQueryDao, HibernateQueryConfigurer)} without configurer.
+     */
+    public <T> QueryResult<T> execute(TypeSafeQueryDao dao) {
+        return execute(dao, null);
+    }
+
+    /**
+     * Executes the template with the bound values.
+     */
+    public <T> QueryResult<T> execute(TypeSafeQueryDao dao, HibernateQueryConfigurer configurer) {
+        return dao.doQuery(this, configurer);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The results of queries which were executed together,
+ * in the order the queries were passed to the dao.
+ */
+public class MultiQueryResult {
+    private final List<QueryResult<?>> results;
+    private final long[] executionNanos;
+
+    public MultiQueryResult(List<QueryResult<?>> results, long[] executionNanos) {
+        if (results.size() != executionNanos.length) {
+            throw new IllegalArgumentException(String.format("Expected an execution time for each result, "
+                    + "got %d results and %d execution times.", results.size(), executionNanos.length));
+        }
+        this.results = results;
+        this.executionNanos = executionNanos;
+    }
+
+    /**
+     * The amount of executed queries.
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * The result of the query at the index.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> QueryResult<T> getResult(int index) {
+        return (QueryResult<T>) results.get(index);
+    }
+
+    /**
+     * All results, in the order of the queries.
+     */
+    public List<QueryResult<?>> getResults() {
+        return results;
+    }
+
+    /**
+     * The time it took to bind, list and transform the results of the query at the index.
+     */
+    public long getExecutionTime(int index, TimeUnit unit) {
+        return unit.convert(executionNanos[index], TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The time it took to execute all queries.
+     */
+    public long getTotalExecutionTime(TimeUnit unit) {
+        long total = 0;
+        for(long nanos: executionNanos) {
+            total += nanos;
+        }
+        return unit.convert(total, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.util.List;
+
+/**
+ * A page of results, with the total amount of results of the query.
+ */
+public class PagedQueryResult<T> extends QueryResult<T> {
+    private final int offset;
+    private final long totalCount;
+
+    public PagedQueryResult(List<T> results, int offset, long totalCount) {
+        super(results);
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * The index of the first result of this page in all results.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * The amount of results of the query without paging.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * More results follow this page.
+     */
+    public boolean hasNextPage() {
+        return offset + getResults().size() < totalCount;
+    }
+}
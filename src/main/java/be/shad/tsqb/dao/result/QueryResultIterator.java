@@ -0,0 +1,35 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterates the results of a query while they are fetched from the database.
+ * <p>
+ * The iterator keeps the database cursor open until all results are iterated
+ * or until it is closed, so it should be used in a try-with-resources block.
+ */
+public interface QueryResultIterator<T> extends Iterator<T>, Closeable {
+
+    /**
+     * Closes the database cursor, calling close more than once has no effect.
+     */
+    @Override
+    void close();
+
+}
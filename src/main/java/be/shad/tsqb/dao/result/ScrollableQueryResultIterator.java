@@ -0,0 +1,141 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.transform.ResultTransformer;
+
+import be.shad.tsqb.selection.StreamingResultTransformer;
+import be.shad.tsqb.selection.TypeSafeQueryResultTransformer;
+
+/**
+ * Scrolls forward only through the results of a query and transforms the rows one by one.
+ * Only the current row, or the current result when results are grouped by identity,
+ * is kept in memory.
+ */
+public class ScrollableQueryResultIterator<T> implements QueryResultIterator<T> {
+    private final ScrollableResults results;
+    private final ResultTransformer resultTransformer;
+    private final StreamingResultTransformer streamingTransformer;
+    private final Runnable closeCallback;
+    private final LinkedList<Object> completedResults = new LinkedList<>();
+    private boolean exhausted;
+    private boolean closed;
+
+    /**
+     * @param resultTransformer the transformer to transform the rows, may be null.
+     * @param closeCallback called once when the iterator is closed, may be null.
+     */
+    public ScrollableQueryResultIterator(Query query,
+            ResultTransformer resultTransformer, Runnable closeCallback) {
+        this.closeCallback = closeCallback;
+        if (resultTransformer instanceof TypeSafeQueryResultTransformer) {
+            this.streamingTransformer = ((TypeSafeQueryResultTransformer) resultTransformer).createStreamingTransformer();
+            this.resultTransformer = null;
+        } else {
+            this.streamingTransformer = null;
+            this.resultTransformer = resultTransformer;
+        }
+        this.results = query.scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Closes the iterator when there are no more results.
+     */
+    @Override
+    public boolean hasNext() {
+        while (completedResults.isEmpty() && !exhausted && !closed) {
+            if (results.next()) {
+                Object[] row = results.get();
+                transformRow(row);
+                rowTransformed(row);
+            } else {
+                exhausted = true;
+                if (streamingTransformer != null) {
+                    streamingTransformer.finish(completedResults);
+                }
+                close();
+            }
+        }
+        return !completedResults.isEmpty();
+    }
+
+    /**
+     * Transforms the row, the completed results are added to the completed results.
+     */
+    private void transformRow(Object[] row) {
+        if (streamingTransformer != null) {
+            streamingTransformer.transformTuple(row, completedResults);
+        } else if (resultTransformer != null) {
+            completedResults.add(resultTransformer.transformTuple(row, null));
+        } else {
+            completedResults.add(row.length == 1 ? row[0]: row);
+        }
+    }
+
+    /**
+     * Called after each row was transformed, does nothing by default.
+     * Can be overridden to release the values of the row, for example
+     * to evict the entities of the row from the session.
+     */
+    protected void rowTransformed(Object[] row) {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return (T) completedResults.removeFirst();
+    }
+
+    /**
+     * Not supported.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            results.close();
+        } finally {
+            if (closeCallback != null) {
+                closeCallback.run();
+            }
+        }
+    }
+}
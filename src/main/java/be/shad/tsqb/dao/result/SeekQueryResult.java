@@ -0,0 +1,47 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.dao.result;
+
+import java.util.List;
+
+import be.shad.tsqb.ordering.SeekToken;
+
+/**
+ * A page of results, with the token to seek to the next page.
+ */
+public class SeekQueryResult<T> extends QueryResult<T> {
+    private final SeekToken nextToken;
+
+    public SeekQueryResult(List<T> results, SeekToken nextToken) {
+        super(results);
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * The token to seek after the last result of this page,
+     * null if this was the last page.
+     */
+    public SeekToken getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * More results may follow this page.
+     */
+    public boolean hasNext() {
+        return nextToken != null;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package be.shad.tsqb.data;
 
+import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityPropertyType;
 import static java.lang.String.format;
 
 import java.util.LinkedList;
@@ -58,23 +59,33 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
         HqlQueryValueImpl from = new HqlQueryValueImpl();
         from.appendHql(helper.getEntityName(root.getPropertyType()));
         from.appendHql(" ").append(root.getAlias());
+        params.addQueriedEntityClass(root.getPropertyType());
         for(TypeSafeQueryJoin<?> join: joins) {
             TypeSafeQueryProxyData data = join.getData();
-            if (data.getProxy() == null) {
-                throw new IllegalStateException(format("Data [%s] was added as a join, but does not have a proxy.", data));
+            if (data.getProxyType() == EntityPropertyType) {
+                throw new IllegalStateException(format("Data [%s] was added as a join, but is not an entity or component.", data));
             }
             JoinType effectiveJoinType = data.getEffectiveJoinType();
             if (effectiveJoinType == null) {
                 throw new IllegalArgumentException("The getter for [" + data.getProxy() + "] was called, "
                         + "but it was not passed to query.join(object, jointype).");
             }
+            if (params.isCreatingCountQuery()) {
+                if (isFetchOnly(join, query.getWhere())) {
+                    continue;
+                }
+                effectiveJoinType = getCountJoinType(effectiveJoinType);
+            }
+            if (effectiveJoinType != JoinType.None) {
+                params.addQueriedEntityClass(data.getPropertyType());
+            }
             if (data.getPropertyPath() == null) {
-                appendClassJoin(from, join, params);
+                appendClassJoin(from, join, effectiveJoinType, params);
             } else if (effectiveJoinType != JoinType.None) {
                 if (isChildOfClassJoin(join)) {
-                    appendPropertyAsClassJoin(from, join, params);
+                    appendPropertyAsClassJoin(from, join, effectiveJoinType, params);
                 } else {
-                    appendPropertyJoin(from, join, params);
+                    appendPropertyJoin(from, join, effectiveJoinType, params);
                 }
             }
         }
@@ -82,6 +93,104 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
         query.addParams(from.getParams());
     }
 
+    /**
+     * Checks whether the joins which remain in the count query can return
+     * the same root entity on multiple rows, the count query then counts
+     * the distinct root entities.
+     *
+     * @param where the where clause of the count query
+     */
+    public boolean isJoiningMultipleRows(String where) {
+        for(TypeSafeQueryJoin<?> join: joins) {
+            TypeSafeQueryProxyData data = join.getData();
+            if (isFetchOnly(join, where)) {
+                continue;
+            }
+            if (data.getPropertyPath() == null) {
+                return true;
+            }
+            if (data.getProxyType().isCollection() && data.getEffectiveJoinType() != JoinType.None) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A left fetch join doesn't filter the rows and is only used to fetch data when
+     * neither it nor the joins on its data are used by the where clause.
+     * Such a join can be left out of the count query.
+     */
+    private boolean isFetchOnly(TypeSafeQueryJoin<?> join, String where) {
+        TypeSafeQueryProxyData data = join.getData();
+        if (data.getEffectiveJoinType() != JoinType.LeftFetch) {
+            return false;
+        }
+        for(TypeSafeQueryJoin<?> other: joins) {
+            TypeSafeQueryProxyData otherData = other.getData();
+            if (isSameOrChild(data, otherData)) {
+                switch (otherData.getEffectiveJoinType()) {
+                    case None:
+                        continue;
+                    case Left:
+                    case LeftFetch:
+                        if (isReferenced(otherData.getAlias(), where)) {
+                            return false;
+                        }
+                        break;
+                    default:
+                        return false;
+                }
+            } else if (!other.isEmpty()) {
+                // the restrictions of other joins may use this join
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isSameOrChild(TypeSafeQueryProxyData data, TypeSafeQueryProxyData candidate) {
+        while (candidate != null) {
+            if (candidate == data) {
+                return true;
+            }
+            candidate = candidate.getParent();
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the alias occurs in the hql as a whole token,
+     * so alias 'hobj1' is not found in 'hobj10.name'.
+     */
+    private boolean isReferenced(String alias, String hql) {
+        if (hql == null || hql.isEmpty()) {
+            return false;
+        }
+        int index = hql.indexOf(alias);
+        while (index >= 0) {
+            int end = index + alias.length();
+            if ((index == 0 || !Character.isJavaIdentifierPart(hql.charAt(index - 1)))
+                    && (end == hql.length() || !Character.isJavaIdentifierPart(hql.charAt(end)))) {
+                return true;
+            }
+            index = hql.indexOf(alias, end);
+        }
+        return false;
+    }
+
+    /**
+     * The count query joins without fetching, hibernate doesn't allow
+     * fetching when the owner of the association isn't selected.
+     */
+    private JoinType getCountJoinType(JoinType joinType) {
+        switch (joinType) {
+            case Fetch: return JoinType.Inner;
+            case LeftFetch: return JoinType.Left;
+            default: return joinType;
+        }
+    }
+
     /**
      * Check if one of the parents in the hierarchy for this
      * join is a propertyPath-less parent before reaching the root.
@@ -109,11 +218,12 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
     /**
      * Add class join while validating an on case was specified.
      */
-    private void appendClassJoin(HqlQueryValueImpl from, TypeSafeQueryJoin<?> join, HqlQueryBuilderParams params) {
+    private void appendClassJoin(HqlQueryValueImpl from, TypeSafeQueryJoin<?> join,
+            JoinType joinType, HqlQueryBuilderParams params) {
         // example: 'left join Product hobj1 on ...'
         TypeSafeQueryProxyData data = join.getData();
         from.appendHql(new StringBuilder(" ")
-            .append(getJoinTypeString(data.getEffectiveJoinType()))
+            .append(getJoinTypeString(joinType))
             .append(" ").append(helper.getEntityName(data.getPropertyType()))
             .append(" ").append(data.getAlias()).toString());
 
@@ -134,12 +244,13 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
      * This is a work around because hibernate doesn't properly convert the hql to sql in this case.
      * (the hql looks fine, but the sql throws an SqlGrammarException and the sql property join is missing)
      */
-    private void appendPropertyAsClassJoin(HqlQueryValueImpl from, TypeSafeQueryJoin<?> join, HqlQueryBuilderParams params) {
+    private void appendPropertyAsClassJoin(HqlQueryValueImpl from, TypeSafeQueryJoin<?> join,
+            JoinType joinType, HqlQueryBuilderParams params) {
         // example: 'left join Product hobj1 on ...'
         TypeSafeQueryProxyData data = join.getData();
         String alias = data.getAlias();
         StringBuilder joinSB = new StringBuilder(" ")
-            .append(getJoinTypeString(data.getEffectiveJoinType()))
+            .append(getJoinTypeString(joinType))
             .append(" ").append(helper.getEntityName(data.getPropertyType()))
             .append(" ").append(alias).append(" on ");
         if (data.getProxyType().isCollection()) {
@@ -182,11 +293,12 @@ public class TypeSafeQueryFrom implements HqlQueryBuilder {
     /**
      *
      */
-    private void appendPropertyJoin(HqlQueryValueImpl from, TypeSafeQueryJoin<?> join, HqlQueryBuilderParams params) {
+    private void appendPropertyJoin(HqlQueryValueImpl from, TypeSafeQueryJoin<?> join,
+            JoinType joinType, HqlQueryBuilderParams params) {
         TypeSafeQueryProxyData data = join.getData();
         // example: 'left join fetch' 'hobj1'.'propertyPath' 'hobj2'
         from.appendHql(new StringBuilder(" ")
-            .append(getJoinTypeString(data.getEffectiveJoinType()))
+            .append(getJoinTypeString(joinType))
             .append(" ").append(data.getParent().getAlias())
             .append(".").append(data.getPropertyPath())
             .append(" ").append(data.getAlias()).toString());
@@ -36,7 +36,8 @@ public class TypeSafeQueryProxyData {
     private final LinkedHashMap<String, TypeSafeQueryProxyData> children = new LinkedHashMap<>();
     private final TypeSafeQueryProxyType proxyType;
     private final TypeSafeQueryProxyData parent;
-    private final TypeSafeQueryProxy proxy;
+    private TypeSafeQueryProxy proxy;
+    private TypeSafeQueryProxyDataTree lazyProxyDataTree;
     private final TypeSafeQueryProxyData compositeTypeEntityParent;
     private final String compositeTypePropertyPath;
     private final String propertyPath;
@@ -127,10 +128,31 @@ public class TypeSafeQueryProxyData {
         this.customAlias = customAlias;
     }
 
+    /**
+     * The proxy of copied data is created when it is first requested.
+     */
     public TypeSafeQueryProxy getProxy() {
+        if (proxy == null && lazyProxyDataTree != null) {
+            proxy = lazyProxyDataTree.createProxy(this);
+            lazyProxyDataTree = null;
+        }
         return proxy;
     }
 
+    /**
+     * @return whether the data has a proxy, without creating it if it is lazy.
+     */
+    boolean hasProxy() {
+        return proxy != null || lazyProxyDataTree != null;
+    }
+
+    /**
+     * Lets the data tree create the proxy when it is first requested.
+     */
+    void setLazyProxy(TypeSafeQueryProxyDataTree dataTree) {
+        this.lazyProxyDataTree = dataTree;
+    }
+
     public TypeSafeQueryProxyData getCompositeTypeEntityParent() {
         return compositeTypeEntityParent;
     }
@@ -192,7 +214,7 @@ public class TypeSafeQueryProxyData {
                             joinType, getPropertyType()));
             }
         }
-        if (proxy == null && joinType != null) {
+        if (proxyType == EntityPropertyType && joinType != null) {
             throw new IllegalStateException("Trying to join on a field "
                     + "value instead of an entity. " + toString());
         }
@@ -241,7 +263,7 @@ public class TypeSafeQueryProxyData {
         } else {
             s = propertyType.getSimpleName();
         }
-        if (proxy == null) {
+        if (proxyType == EntityPropertyType) {
             s += ":"+propertyType.getSimpleName();
         }
         return s;
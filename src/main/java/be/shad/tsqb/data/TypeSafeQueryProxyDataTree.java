@@ -15,6 +15,8 @@
  */
 package be.shad.tsqb.data;
 
+import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityPropertyType;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
@@ -56,6 +58,10 @@ public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder {
     /**
      * Replays the original data tree into this datatree.
      * This data tree should still be empty when replay is called.
+     * <p>
+     * The data is copied from the original data instead of the hibernate metadata
+     * and the proxies of the copied data are only created when they are requested,
+     * most copies are only modified by adding restrictions and don't use the proxies.
      */
     public void replay(CopyContext context, TypeSafeQueryProxyDataTree original) {
         if (!queryData.isEmpty()) {
@@ -64,25 +70,25 @@ public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder {
         // query data contains the history of created proxy data,
         // so replaying this results in the same data tree.
         for(TypeSafeQueryProxyData originalData: original.queryData) {
+            TypeSafeQueryProxyData parent = context.get(originalData.getParent());
             TypeSafeQueryProxyData copyData;
-            if (originalData.getParent() == null) {
-                // is a from:
-                copyData = ((TypeSafeQueryProxy) helper.createTypeSafeFromProxy(query,
-                        originalData.getPropertyType())).getTypeSafeProxyData();
-            } else {
-                // is a join or select, both call the 'join' method:
-                TypeSafeQueryProxyData parent = context.get(originalData.getParent());
-                copyData = helper.createTypeSafeJoinProxy(query, parent,
-                        originalData.getPropertyPath(),
+            if (originalData.getProxyType() == EntityPropertyType) {
+                copyData = createData(parent, originalData.getPropertyPath(),
                         originalData.getPropertyType());
-                // alias and jointype may have been changed:
-                copyData.setJoinType(originalData.getJoinType());
+            } else {
+                copyData = createData(parent, originalData.getPropertyPath(),
+                        originalData.getPropertyType(), originalData.getProxyType(),
+                        originalData.getIdentifierPath(), null);
+                if (parent != null) {
+                    // alias and jointype may have been changed:
+                    copyData.setJoinType(originalData.getJoinType());
+                }
+                if (originalData.hasProxy()) {
+                    copyData.setLazyProxy(this);
+                }
             }
             copyData.setCustomAlias(originalData.getCustomAlias());
             context.put(originalData, copyData);
-            if (originalData.getProxy() != null) {
-                context.put(originalData.getProxy(), copyData.getProxy());
-            }
         }
         for(TypeSafeQuerySelectionProxyData originalData: original.selectionData) {
             TypeSafeQuerySelectionProxyData copyData = null;
@@ -102,6 +108,13 @@ public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder {
         }
     }
 
+    /**
+     * Creates the proxy of lazily proxied data.
+     */
+    TypeSafeQueryProxy createProxy(TypeSafeQueryProxyData data) {
+        return helper.createTypeSafeProxy(query, data);
+    }
+
     public <T> WhereRestrictions getJoinRestrictions(TypeSafeQueryProxyData data) {
         return (WhereRestrictions) joins.get(data);
     }
@@ -223,6 +236,25 @@ public class TypeSafeQueryProxyDataTree implements HqlQueryBuilder {
         return false;
     }
 
+    /**
+     * The froms of the query, in the order they were added.
+     */
+    public List<TypeSafeQueryFrom> getFroms() {
+        return froms;
+    }
+
+    /**
+     * @see TypeSafeQueryFrom#isJoiningMultipleRows(String)
+     */
+    public boolean isJoiningMultipleRows(String where) {
+        for(TypeSafeQueryFrom from: froms) {
+            if (from.isJoiningMultipleRows(where)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void appendTo(HqlQuery query, HqlQueryBuilderParams params) {
         for(TypeSafeQueryFrom from: froms) {
@@ -16,7 +16,6 @@
 package be.shad.tsqb.helper;
 
 import java.lang.reflect.Method;
-import java.util.Collection;
 
 import javassist.util.proxy.MethodHandler;
 import be.shad.tsqb.data.TypeSafeQueryProxyData;
@@ -37,24 +36,26 @@ class EntityProxyMethodHandler implements MethodHandler {
     }
 
     public Object invoke(Object self, Method m, Method proceed, Object[] args) throws Throwable {
-        if (m.getReturnType().equals(TypeSafeQueryProxyData.class)) {
-            return data;
-        }
-        if ("toString".equals(m.getName())) {
-            return String.format("Proxy of [%s]", data.toString());
-        }
-        if (m.getName().startsWith("set")) {
-            throw new IllegalArgumentException("Calling the setter of an entity proxy has no point. "
-                    + "If this object was supposed to be used as selection proxy, "
-                    + "then use the select(class) instead and set the values there. "
-                    + "If this setter was called to add a restriction, then use the "
-                    + "query.where(...) methods instead.");
+        TypeSafeQueryProxyMethod proxyMethod = helper.getProxyMethod(m);
+        switch (proxyMethod.getKind()) {
+            case ProxyData:
+                return data;
+            case ToString:
+                return String.format("Proxy of [%s]", data.toString());
+            case Setter:
+                throw new IllegalArgumentException("Calling the setter of an entity proxy has no point. "
+                        + "If this object was supposed to be used as selection proxy, "
+                        + "then use the select(class) instead and set the values there. "
+                        + "If this setter was called to add a restriction, then use the "
+                        + "query.where(...) methods instead.");
+            default:
+                break;
         }
 
-        String method2Name = helper.method2PropertyName(m);
-        TypeSafeQueryProxyData child = data.getChild(method2Name);
+        String propertyName = proxyMethod.getPropertyName();
+        TypeSafeQueryProxyData child = data.getChild(propertyName);
         if (child == null) {
-            child = helper.createChildData(query, data, method2Name);
+            child = helper.createChildData(query, data, propertyName);
         }
         if (query.getActiveMultiJoinType() != null) {
             if (!child.getProxyType().isEntity()) {
@@ -65,13 +66,13 @@ class EntityProxyMethodHandler implements MethodHandler {
             // join type override is active, update the child join type:
             child.setJoinType(query.getActiveMultiJoinType());
         }
-        if (!Collection.class.isAssignableFrom(m.getReturnType()) && child.getProxy() != null) {
+        if (!proxyMethod.isCollection() && child.getProxy() != null) {
             // return the proxy without adding to the invocation queue to allow method chaining.
             return child.getProxy();
         }
         // remember the method invocation, to be used later...
         query.invocationWasMade(child);
-        return helper.getDummyValue(m.getReturnType());
+        return proxyMethod.getDummyValue();
     }
 
 }
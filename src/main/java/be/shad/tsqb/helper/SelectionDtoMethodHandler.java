@@ -16,10 +16,10 @@
 package be.shad.tsqb.helper;
 
 import java.lang.reflect.Method;
-import java.util.Collection;
 
 import javassist.util.proxy.MethodHandler;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
+import be.shad.tsqb.helper.TypeSafeQueryProxyMethod.Kind;
 import be.shad.tsqb.query.TypeSafeRootQueryInternal;
 
 class SelectionDtoMethodHandler implements MethodHandler {
@@ -38,23 +38,22 @@ class SelectionDtoMethodHandler implements MethodHandler {
      *
      */
     public Object invoke(Object self, Method m, Method proceed, Object[] args) throws Throwable {
-        if (m.getReturnType().equals(TypeSafeQuerySelectionProxyData.class)) {
-            return data;
-        }
-        if ("toString".equals(m.getName())) {
-            return String.format("Selection Proxy of [%s]", data.toString());
+        TypeSafeQueryProxyMethod proxyMethod = helper.getProxyMethod(m);
+        switch (proxyMethod.getKind()) {
+            case SelectionProxyData:
+                return data;
+            case ToString:
+                return String.format("Selection Proxy of [%s]", data.toString());
+            default:
+                break;
         }
 
-        boolean setter = m.getName().startsWith("set");
-        String propertyName = helper.method2PropertyName(m);
+        boolean setter = proxyMethod.getKind() == Kind.Setter;
+        String propertyName = proxyMethod.getPropertyName();
         TypeSafeQuerySelectionProxyData childData = data.getChild(propertyName);
         if (childData == null) {
-            Class<?> propertyType = m.getReturnType();
-            if (setter) {
-                propertyType = m.getParameterTypes()[0];
-            }
             childData = helper.createTypeSafeSelectSubProxy(query,
-                    data, propertyName, propertyType,
+                    data, propertyName, proxyMethod.getPropertyType(),
                     setter);
         }
 
@@ -62,10 +61,10 @@ class SelectionDtoMethodHandler implements MethodHandler {
         if (setter) {
             query.clearInvokedSelection();
             query.getProjections().project(args[0], childData);
-        } else if (helper.isBasicType(m.getReturnType())) {
+        } else if (proxyMethod.isBasic()) {
             query.queueInvokedSelection(childData);
-            return helper.getDummyValue(m.getReturnType());
-        } else if (Collection.class.isAssignableFrom(m.getReturnType())) {
+            return proxyMethod.getDummyValue();
+        } else if (proxyMethod.isCollection()) {
             query.queueInvokedSelection(childData);
             return null;
         } else {
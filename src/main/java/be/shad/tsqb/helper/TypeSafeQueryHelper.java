@@ -17,12 +17,20 @@ package be.shad.tsqb.helper;
 
 import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
+import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeRootQueryInternal;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
+import be.shad.tsqb.selection.populator.ResultPopulatorFactory;
 
 public interface TypeSafeQueryHelper {
 
+    /**
+     * The factory which provides the populators to create and fill the selected dtos,
+     * the generated populators are cached in it.
+     */
+    ResultPopulatorFactory getResultPopulatorFactory();
+
     /**
      * Retrieves the entity name from hibernate. Used to construct the from clause.
      */
@@ -34,6 +42,25 @@ public interface TypeSafeQueryHelper {
      */
     <T> T createTypeSafeFromProxy(TypeSafeQueryInternal query, Class<T> clazz);
 
+    /**
+     * Adds the entity as from to the query's dataTree without creating a proxy,
+     * used when the query is built with generated paths.
+     */
+    TypeSafeQueryProxyData createTypeSafeFromPathData(TypeSafeQueryInternal query, Class<?> entityClass);
+
+    /**
+     * Adds the property of the parent to the query's dataTree without creating a proxy,
+     * used when the query is built with generated paths.
+     */
+    TypeSafeQueryProxyData createTypeSafePathData(TypeSafeQueryInternal query,
+            TypeSafeQueryProxyData parent, String propertyName);
+
+    /**
+     * Creates the proxy of data which was added to the query's dataTree without proxy,
+     * used to create the proxies of a copied query when they are first requested.
+     */
+    TypeSafeQueryProxy createTypeSafeProxy(TypeSafeQueryInternal query, TypeSafeQueryProxyData data);
+
     /**
      * Get a new proxy for the same entity to gain access to the subtype methods
      *
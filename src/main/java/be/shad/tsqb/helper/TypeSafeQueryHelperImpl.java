@@ -15,29 +15,38 @@
  */
 package be.shad.tsqb.helper;
 
-import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.ComponentType;
-import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.CompositeType;
-import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityCollectionType;
 import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityType;
 import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.SelectionDtoType;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import javassist.util.proxy.ProxyObject;
 
 import org.hibernate.SessionFactory;
-import org.hibernate.engine.spi.SessionFactoryImplementor;
-import org.hibernate.metadata.ClassMetadata;
-import org.hibernate.metadata.CollectionMetadata;
-import org.hibernate.persister.collection.OneToManyPersister;
 import org.hibernate.type.BasicType;
-import org.hibernate.type.CollectionType;
-import org.hibernate.type.ComponentType;
 import org.hibernate.type.StringRepresentableType;
 import org.hibernate.type.Type;
 
 import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
+import be.shad.tsqb.helper.TypeSafeQueryMetamodel.EntityModel;
+import be.shad.tsqb.helper.TypeSafeQueryMetamodel.PropertyModel;
+import be.shad.tsqb.helper.TypeSafeQueryProxyMethod.Kind;
 import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.proxy.TypeSafeQueryProxyFactory;
 import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
@@ -45,6 +54,7 @@ import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeRootQueryInternal;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
+import be.shad.tsqb.selection.populator.ResultPopulatorFactory;
 
 public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
     private static final Integer DEFAULT_INTEGER = 84;
@@ -56,32 +66,67 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
     private static final Character DEFAULT_CHAR = 'g';
 
     private final SessionFactory sessionFactory;
+    private volatile TypeSafeQueryMetamodel metamodel;
     private final TypeSafeQueryProxyFactory proxyFactory;
+    private final ResultPopulatorFactory resultPopulatorFactory;
+    private final ConcurrentMap<Method, TypeSafeQueryProxyMethod> proxyMethods = new ConcurrentHashMap<>();
 
     public TypeSafeQueryHelperImpl(SessionFactory sessionFactory) {
         this.sessionFactory = sessionFactory;
         this.proxyFactory = new TypeSafeQueryProxyFactory();
+        this.resultPopulatorFactory = new ResultPopulatorFactory();
     }
 
-    private Type getTargetType(TypeSafeQueryProxyData data, String property) {
-        if (data.getProxyType().isComposite()) {
-            return sessionFactory.getClassMetadata(data.getCompositeTypeEntityParent().getPropertyType()).
-                    getPropertyType(data.getCompositePropertyPath() + "." + property);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultPopulatorFactory getResultPopulatorFactory() {
+        return resultPopulatorFactory;
+    }
+
+    /**
+     * Resolves the metamodel of the mapped entities the first time it is needed,
+     * or when the helper is preloaded.
+     */
+    private TypeSafeQueryMetamodel getMetamodel() {
+        TypeSafeQueryMetamodel model = metamodel;
+        if (model == null) {
+            synchronized (this) {
+                model = metamodel;
+                if (model == null) {
+                    model = new TypeSafeQueryMetamodel(sessionFactory);
+                    metamodel = model;
+                }
+            }
         }
-        return sessionFactory.getClassMetadata(data.getPropertyType()).getPropertyType(property);
+        return model;
     }
 
     /**
-     * Retrieves the type information from hibernate.
+     * Retrieves the property model from the metamodel, properties which are not
+     * part of the metamodel are resolved by hibernate.
      */
-    private Class<?> getTargetEntityClass(Type propertyType) {
-        if (CollectionType.class.isAssignableFrom(propertyType.getClass())) {
-            CollectionType collectionType = (CollectionType) propertyType;
-            Type elementType = collectionType.getElementType(
-                    (SessionFactoryImplementor) sessionFactory);
-            return elementType.getReturnedClass();
+    private PropertyModel getPropertyModel(TypeSafeQueryProxyData data, String property) {
+        PropertyModel model;
+        if (data.getProxyType().isComposite()) {
+            model = getMetamodel().getProperty(data.getCompositeTypeEntityParent().getPropertyType(),
+                    data.getCompositePropertyPath(), property);
+        } else {
+            model = getMetamodel().getProperty(data.getPropertyType(), property);
+        }
+        if (model == null) {
+            model = getMetamodel().createPropertyModel(property, getTargetType(data, property));
+        }
+        return model;
+    }
+
+    private Type getTargetType(TypeSafeQueryProxyData data, String property) {
+        if (data.getProxyType().isComposite()) {
+            return sessionFactory.getClassMetadata(data.getCompositeTypeEntityParent().getPropertyType()).
+                    getPropertyType(data.getCompositePropertyPath() + "." + property);
         }
-        return propertyType.getReturnedClass();
+        return sessionFactory.getClassMetadata(data.getPropertyType()).getPropertyType(property);
     }
 
     /**
@@ -89,7 +134,11 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      */
     @Override
     public String getEntityName(Class<?> entityClass) {
-        return sessionFactory.getClassMetadata(entityClass).getEntityName();
+        EntityModel entity = getMetamodel().getEntity(entityClass);
+        if (entity == null) {
+            return sessionFactory.getClassMetadata(entityClass).getEntityName();
+        }
+        return entity.getEntityName();
     }
 
     /**
@@ -114,7 +163,7 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
             Class<?> targetClass, boolean setter) {
         TypeSafeQuerySelectionProxyData childData = query.getDataTree().createSelectionData(
                 parent, propertyName, targetClass, parent.getGroup(), null);
-        if (!setter && !java.util.Collection.class.isAssignableFrom(targetClass)) {
+        if (!setter && !Collection.class.isAssignableFrom(targetClass)) {
             // only need method handler when the data is being retrieved,
             // on set we will just return the proxy data.
             setSelectionDtoMethodHandler(query, childData);
@@ -143,7 +192,7 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
     }
 
     boolean isBasicType(Class<?> returnType) {
-        return sessionFactory.getTypeHelper().basic(returnType) != null;
+        return getMetamodel().getBasicType(returnType) != null;
     }
 
     /**
@@ -154,8 +203,7 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
         if (!(proxy instanceof TypeSafeQueryProxy)) {
             throw new IllegalArgumentException(String.format("The provided proxy [%s] is not a TypeSafeQueryProxy.", proxy));
         }
-        ClassMetadata subtypeMeta = sessionFactory.getClassMetadata(subtype);
-        if (subtypeMeta == null) {
+        if (getMetamodel().getEntity(subtype) == null) {
             throw new IllegalArgumentException(String.format("The subtype [%s] is not "
                     + "known in hibernate. Maybe you forgot to map it?.", subtype));
         }
@@ -179,6 +227,18 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
         return proxy;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryProxyData createTypeSafeFromPathData(TypeSafeQueryInternal query, Class<?> entityClass) {
+        if (getMetamodel().getEntity(entityClass) == null) {
+            throw new IllegalArgumentException(String.format("The class [%s] is not "
+                    + "known in hibernate. Maybe you forgot to map it?.", entityClass));
+        }
+        return query.getDataTree().createData(null, null, entityClass, EntityType, null, null);
+    }
+
     /**
      * Sets the method handler on the proxy to create new proxies when
      * hibernate entities are traversed via the getter/setters.
@@ -192,25 +252,152 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      * Creates data based on the hibernate metadata for the given <code>property</code>.
      */
     TypeSafeQueryProxyData createChildData(TypeSafeQueryInternal query, TypeSafeQueryProxyData parent, String property) {
-        Type propertyType = getTargetType(parent, property);
-        Class<?> targetClass = getTargetEntityClass(propertyType);
-        ClassMetadata metadata = sessionFactory.getClassMetadata(targetClass);
-        if (metadata == null && !propertyType.isComponentType()) {
-            return query.getDataTree().createData(parent, property, targetClass);
-        }
-        TypeSafeQueryProxyType proxyType = null;
-        if (metadata != null) {
-            proxyType = propertyType.isCollectionType() ? EntityCollectionType: EntityType;
-        } else {
-            proxyType = propertyType instanceof ComponentType ? ComponentType: CompositeType;
+        return createChildData(query, parent, property, true);
+    }
+
+    /**
+     * Creates data based on the hibernate metadata for the given <code>property</code>,
+     * the entity and component data only gets a proxy if <code>proxied</code> is true.
+     */
+    private TypeSafeQueryProxyData createChildData(TypeSafeQueryInternal query,
+            TypeSafeQueryProxyData parent, String property, boolean proxied) {
+        PropertyModel model = getPropertyModel(parent, property);
+        if (model.getProxyType() == null) {
+            return query.getDataTree().createData(parent, property, model.getTargetClass());
+        }
+        TypeSafeQueryProxy proxy = null;
+        if (proxied) {
+            proxy = (TypeSafeQueryProxy) proxyFactory.getProxy(model.getTargetClass(), model.getProxyType());
+        }
+        TypeSafeQueryProxyData data = query.getDataTree().createData(parent, property, model.getTargetClass(),
+                model.getProxyType(), model.getIdentifierName(), proxy);
+        if (proxied) {
+            setEntityProxyMethodListener(query, proxy, data);
         }
-        TypeSafeQueryProxy proxy = (TypeSafeQueryProxy) proxyFactory.getProxy(targetClass, proxyType);
-        TypeSafeQueryProxyData data = query.getDataTree().createData(parent, property, targetClass,
-                proxyType, metadata == null ? null: metadata.getIdentifierPropertyName(), proxy);
-        setEntityProxyMethodListener(query, proxy, data);
         return data;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryProxyData createTypeSafePathData(TypeSafeQueryInternal query,
+            TypeSafeQueryProxyData parent, String propertyName) {
+        return createChildData(query, parent, propertyName, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryProxy createTypeSafeProxy(TypeSafeQueryInternal query, TypeSafeQueryProxyData data) {
+        TypeSafeQueryProxy proxy = (TypeSafeQueryProxy) proxyFactory.getProxy(
+                data.getPropertyType(), data.getProxyType());
+        setEntityProxyMethodListener(query, proxy, data);
+        return proxy;
+    }
+
+    /**
+     * Resolves the metamodel of the mapped entities and generates the proxy classes
+     * for all mapped entities, components and collection elements,
+     * so the first queries don't have to pay for it.
+     *
+     * @return the amount of proxy classes which were generated.
+     */
+    public int preload() {
+        return preload(null);
+    }
+
+    /**
+     * Resolves the metamodel of the mapped entities and generates the proxy classes
+     * for all mapped entities, components and collection elements,
+     * so the first queries don't have to pay for it.
+     * The metamodel is resolved on the calling thread, the classes are generated
+     * concurrently using the executor and this method returns when they are all generated.
+     *
+     * @param executor the executor to generate the classes with,
+     *        the classes are generated on the calling thread if null.
+     * @return the amount of proxy classes which were generated.
+     */
+    public int preload(ExecutorService executor) {
+        Map<Class<?>, Set<TypeSafeQueryProxyType>> proxyTypes = collectPreloadProxyTypes(getMetamodel());
+        int preloaded = 0;
+        if (executor == null) {
+            for(Entry<Class<?>, Set<TypeSafeQueryProxyType>> entry: proxyTypes.entrySet()) {
+                for(TypeSafeQueryProxyType proxyType: entry.getValue()) {
+                    if (proxyFactory.preloadProxyClass(entry.getKey(), proxyType)) {
+                        preloaded++;
+                    }
+                }
+            }
+            return preloaded;
+        }
+
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for(Entry<Class<?>, Set<TypeSafeQueryProxyType>> entry: proxyTypes.entrySet()) {
+            for(final TypeSafeQueryProxyType proxyType: entry.getValue()) {
+                final Class<?> proxyClass = entry.getKey();
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        return proxyFactory.preloadProxyClass(proxyClass, proxyType);
+                    }
+                }));
+            }
+        }
+        try {
+            for(Future<Boolean> future: futures) {
+                if (future.get()) {
+                    preloaded++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while preloading proxy classes.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            for(Future<Boolean> future: futures) {
+                future.cancel(true);
+            }
+        }
+        return preloaded;
+    }
+
+    /**
+     * Collects the proxy types which can be requested for each mapped class,
+     * using the same rules as when the proxies are created while building queries.
+     */
+    private Map<Class<?>, Set<TypeSafeQueryProxyType>> collectPreloadProxyTypes(TypeSafeQueryMetamodel metamodel) {
+        Map<Class<?>, Set<TypeSafeQueryProxyType>> proxyTypes = new LinkedHashMap<>();
+        for(Class<?> entityClass: metamodel.getEntityClasses()) {
+            addPreloadProxyType(proxyTypes, entityClass, EntityType);
+            addPreloadProxyType(proxyTypes, entityClass, SelectionDtoType);
+            for(PropertyModel property: metamodel.getEntity(entityClass).getProperties().values()) {
+                if (property.getProxyType() != null) {
+                    addPreloadProxyType(proxyTypes, property.getTargetClass(), property.getProxyType());
+                }
+            }
+        }
+        return proxyTypes;
+    }
+
+    private void addPreloadProxyType(Map<Class<?>, Set<TypeSafeQueryProxyType>> proxyTypes,
+            Class<?> proxyClass, TypeSafeQueryProxyType proxyType) {
+        if (Modifier.isFinal(proxyClass.getModifiers())) {
+            return; // can't be proxied, will fail when it is used in a query
+        }
+        Set<TypeSafeQueryProxyType> types = proxyTypes.get(proxyClass);
+        if (types == null) {
+            types = EnumSet.noneOf(TypeSafeQueryProxyType.class);
+            proxyTypes.put(proxyClass, types);
+        }
+        types.add(proxyType);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -229,15 +416,56 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      */
     private TypeSafeQueryProxyData createClassJoinProxy(TypeSafeQueryInternal query,
             TypeSafeQueryProxyData parent, Class<?> targetClass) {
-        ClassMetadata metadata = sessionFactory.getClassMetadata(targetClass);
+        EntityModel entity = getMetamodel().getEntity(targetClass);
+        if (entity == null) {
+            throw new IllegalArgumentException(String.format("The class [%s] is not "
+                    + "known in hibernate. Maybe you forgot to map it?.", targetClass));
+        }
         TypeSafeQueryProxyType proxyType = TypeSafeQueryProxyType.EntityType;
         TypeSafeQueryProxy proxy = (TypeSafeQueryProxy) proxyFactory.getProxy(targetClass, proxyType);
         TypeSafeQueryProxyData data = query.getDataTree().createData(parent, null, targetClass,
-                proxyType, metadata.getIdentifierPropertyName(), proxy);
+                proxyType, entity.getIdentifierName(), proxy);
         setEntityProxyMethodListener(query, proxy, data);
         return data;
     }
 
+    /**
+     * Describes the method for the proxy method handlers,
+     * the description is created once per method.
+     */
+    TypeSafeQueryProxyMethod getProxyMethod(Method m) {
+        TypeSafeQueryProxyMethod proxyMethod = proxyMethods.get(m);
+        if (proxyMethod == null) {
+            proxyMethod = createProxyMethod(m);
+            // a concurrently created description is the same, no need to use the existing one.
+            proxyMethods.putIfAbsent(m, proxyMethod);
+        }
+        return proxyMethod;
+    }
+
+    private TypeSafeQueryProxyMethod createProxyMethod(Method m) {
+        Class<?> returnType = m.getReturnType();
+        Kind kind;
+        if (returnType.equals(TypeSafeQueryProxyData.class)) {
+            kind = Kind.ProxyData;
+        } else if (returnType.equals(TypeSafeQuerySelectionProxyData.class)) {
+            kind = Kind.SelectionProxyData;
+        } else if ("toString".equals(m.getName())) {
+            kind = Kind.ToString;
+        } else if (m.getName().startsWith("set")) {
+            kind = Kind.Setter;
+        } else {
+            kind = Kind.Getter;
+        }
+        Class<?> propertyType = returnType;
+        if (kind == Kind.Setter && m.getParameterTypes().length > 0) {
+            propertyType = m.getParameterTypes()[0];
+        }
+        return new TypeSafeQueryProxyMethod(kind, method2PropertyName(m), propertyType,
+                Collection.class.isAssignableFrom(returnType), isBasicType(returnType),
+                Void.TYPE.equals(returnType) ? null: getDummyValue(returnType));
+    }
+
     /**
      * Simple conversion to the property path to be used in the query building phase.
      */
@@ -265,18 +493,13 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      */
     @Override
     public String getMappedByProperty(TypeSafeQueryProxyData child) {
-        Type propertyType = getTargetType(child.getParent(), child.getPropertyPath());
-        if (!propertyType.isCollectionType()) {
+        PropertyModel model = getPropertyModel(child.getParent(), child.getPropertyPath());
+        if (!model.getType().isCollectionType()) {
             throw new IllegalArgumentException("Method not designed to fetch MappedByProperty "
-                    + "for a non-collection type. PropertyType was: " + propertyType);
-        }
-        CollectionMetadata collectionMetadata = sessionFactory.getCollectionMetadata(((CollectionType) propertyType).getRole());
-        if (collectionMetadata instanceof OneToManyPersister) {
-            OneToManyPersister persister = (OneToManyPersister) collectionMetadata;
-            return persister.getMappedByProperty();
+                    + "for a non-collection type. PropertyType was: " + model.getType());
         }
-        // what about many to many?
-        return null;
+        // only known for one to many collections, what about many to many?
+        return model.getMappedBy();
     }
 
     /**
@@ -288,7 +511,7 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
         if (value == null) {
             return "null";
         }
-        BasicType basic = sessionFactory.getTypeHelper().basic(value.getClass());
+        BasicType basic = getMetamodel().getBasicType(value.getClass());
         if (basic instanceof StringRepresentableType<?>) {
             String literal = ((StringRepresentableType<Object>) basic).toString(value);
             if (value instanceof Number || value instanceof Boolean) {
@@ -305,7 +528,7 @@ public class TypeSafeQueryHelperImpl implements TypeSafeQueryHelper {
      */
     @Override
     public String getResolvedTypeName(Class<?> javaType) {
-        return sessionFactory.getTypeHelper().basic(javaType).getName();
+        return getMetamodel().getBasicType(javaType).getName();
     }
 
     /**
@@ -0,0 +1,291 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.helper;
+
+import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.ComponentType;
+import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.CompositeType;
+import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityCollectionType;
+import static be.shad.tsqb.proxy.TypeSafeQueryProxyType.EntityType;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.metadata.CollectionMetadata;
+import org.hibernate.persister.collection.OneToManyPersister;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.ComponentType;
+import org.hibernate.type.Type;
+
+import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
+
+/**
+ * The hibernate metadata the helper needs while building queries, resolved
+ * once for all mapped entities so a proxy getter call only requires a lookup.
+ * <p>
+ * The properties of an entity are indexed by their path, the nested properties
+ * of components are included using their full path ("component.property").
+ * The properties of a component are also indexed by name on the component's model.
+ * <p>
+ * The metamodel is immutable after it is created.
+ */
+final class TypeSafeQueryMetamodel {
+    private final SessionFactory sessionFactory;
+    private final Map<Class<?>, EntityModel> entities = new HashMap<>();
+    private final Map<Class<?>, BasicType> basicTypes = new HashMap<>();
+
+    TypeSafeQueryMetamodel(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        for(ClassMetadata metadata: sessionFactory.getAllClassMetadata().values()) {
+            Class<?> entityClass = metadata.getMappedClass();
+            if (entityClass != null && !entities.containsKey(entityClass)) {
+                // use the metadata hibernate resolves for the class if an entity class is mapped more than once.
+                entities.put(entityClass, createEntityModel(sessionFactory.getClassMetadata(entityClass)));
+            }
+        }
+        for(EntityModel entity: entities.values()) {
+            for(PropertyModel property: entity.properties.values()) {
+                basicTypes.put(property.targetClass, property.basicType);
+            }
+        }
+    }
+
+    private EntityModel createEntityModel(ClassMetadata metadata) {
+        Map<String, PropertyModel> properties = new HashMap<>();
+        String identifierName = metadata.getIdentifierPropertyName();
+        if (identifierName != null) {
+            properties.put(identifierName, createPropertyModel(
+                    properties, null, identifierName, metadata.getIdentifierType()));
+        }
+        String[] propertyNames = metadata.getPropertyNames();
+        Type[] propertyTypes = metadata.getPropertyTypes();
+        for(int i = 0; i < propertyNames.length; i++) {
+            properties.put(propertyNames[i], createPropertyModel(
+                    properties, null, propertyNames[i], propertyTypes[i]));
+        }
+        return new EntityModel(metadata.getEntityName(), identifierName,
+                Collections.unmodifiableMap(properties));
+    }
+
+    /**
+     * Creates the model of a property, the nested properties of a component
+     * are added to the entity properties using their full path.
+     *
+     * @param entityProperties the properties of the entity to add the nested paths to, may be null.
+     * @param parentPath the path of the component which contains the property, null for entity properties.
+     */
+    private PropertyModel createPropertyModel(Map<String, PropertyModel> entityProperties,
+            String parentPath, String name, Type type) {
+        Class<?> targetClass = type.getReturnedClass();
+        String mappedBy = null;
+        if (type.isCollectionType()) {
+            CollectionType collectionType = (CollectionType) type;
+            targetClass = collectionType.getElementType(
+                    (SessionFactoryImplementor) sessionFactory).getReturnedClass();
+            CollectionMetadata collectionMetadata = sessionFactory.getCollectionMetadata(collectionType.getRole());
+            if (collectionMetadata instanceof OneToManyPersister) {
+                mappedBy = ((OneToManyPersister) collectionMetadata).getMappedByProperty();
+            }
+        }
+
+        ClassMetadata targetMetadata = sessionFactory.getClassMetadata(targetClass);
+        TypeSafeQueryProxyType proxyType = null;
+        if (targetMetadata != null || type.isComponentType()) {
+            proxyType = getProxyType(type, targetMetadata);
+        }
+        BasicType basicType = getBasicType(targetClass);
+
+        Map<String, PropertyModel> properties = Collections.emptyMap();
+        if (entityProperties != null && type instanceof org.hibernate.type.CompositeType) {
+            org.hibernate.type.CompositeType compositeType = (org.hibernate.type.CompositeType) type;
+            String path = parentPath == null ? name: parentPath + "." + name;
+            String[] propertyNames = compositeType.getPropertyNames();
+            Type[] propertyTypes = compositeType.getSubtypes();
+            properties = new HashMap<>();
+            for(int i = 0; i < propertyNames.length; i++) {
+                PropertyModel property = createPropertyModel(entityProperties,
+                        path, propertyNames[i], propertyTypes[i]);
+                properties.put(propertyNames[i], property);
+                entityProperties.put(path + "." + propertyNames[i], property);
+            }
+            properties = Collections.unmodifiableMap(properties);
+        }
+        return new PropertyModel(type, targetClass, proxyType,
+                targetMetadata == null ? null: targetMetadata.getIdentifierPropertyName(),
+                mappedBy, basicType, properties);
+    }
+
+    /**
+     * Creates the model of a property which isn't part of the metamodel,
+     * the model is not added to the metamodel.
+     */
+    PropertyModel createPropertyModel(String name, Type type) {
+        return createPropertyModel(null, null, name, type);
+    }
+
+    /**
+     * The proxy type for a property which is either an entity, a collection
+     * of entities or a component (metadata is null for components).
+     */
+    static TypeSafeQueryProxyType getProxyType(Type propertyType, ClassMetadata metadata) {
+        if (metadata != null) {
+            return propertyType.isCollectionType() ? EntityCollectionType: EntityType;
+        }
+        return propertyType instanceof ComponentType ? ComponentType: CompositeType;
+    }
+
+    /**
+     * @return the model of the entity, null if the class is not a mapped entity.
+     */
+    EntityModel getEntity(Class<?> entityClass) {
+        return entities.get(entityClass);
+    }
+
+    Collection<Class<?>> getEntityClasses() {
+        return Collections.unmodifiableSet(entities.keySet());
+    }
+
+    /**
+     * @return the model of the property of the entity, null if it isn't known.
+     */
+    PropertyModel getProperty(Class<?> entityClass, String propertyPath) {
+        EntityModel entity = entities.get(entityClass);
+        return entity == null ? null: entity.properties.get(propertyPath);
+    }
+
+    /**
+     * @return the model of the property of the component at the
+     *         componentPath of the entity, null if it isn't known.
+     */
+    PropertyModel getProperty(Class<?> entityClass, String componentPath, String property) {
+        PropertyModel component = getProperty(entityClass, componentPath);
+        return component == null ? null: component.properties.get(property);
+    }
+
+    /**
+     * @return the basic type of the class, the basic types of the classes used
+     *         by the metamodel are resolved once, others are resolved by hibernate.
+     */
+    BasicType getBasicType(Class<?> javaType) {
+        BasicType basicType = basicTypes.get(javaType);
+        if (basicType == null && !basicTypes.containsKey(javaType)) {
+            return sessionFactory.getTypeHelper().basic(javaType);
+        }
+        return basicType;
+    }
+
+    /**
+     * The model of a mapped entity class.
+     */
+    static final class EntityModel {
+        private final String entityName;
+        private final String identifierName;
+        private final Map<String, PropertyModel> properties;
+
+        EntityModel(String entityName, String identifierName, Map<String, PropertyModel> properties) {
+            this.entityName = entityName;
+            this.identifierName = identifierName;
+            this.properties = properties;
+        }
+
+        String getEntityName() {
+            return entityName;
+        }
+
+        String getIdentifierName() {
+            return identifierName;
+        }
+
+        /**
+         * The properties indexed by path, including the nested properties of components.
+         */
+        Map<String, PropertyModel> getProperties() {
+            return properties;
+        }
+    }
+
+    /**
+     * The model of a property of an entity or component.
+     */
+    static final class PropertyModel {
+        private final Type type;
+        private final Class<?> targetClass;
+        private final TypeSafeQueryProxyType proxyType;
+        private final String identifierName;
+        private final String mappedBy;
+        private final BasicType basicType;
+        private final Map<String, PropertyModel> properties;
+
+        PropertyModel(Type type, Class<?> targetClass, TypeSafeQueryProxyType proxyType,
+                String identifierName, String mappedBy, BasicType basicType,
+                Map<String, PropertyModel> properties) {
+            this.type = type;
+            this.targetClass = targetClass;
+            this.proxyType = proxyType;
+            this.identifierName = identifierName;
+            this.mappedBy = mappedBy;
+            this.basicType = basicType;
+            this.properties = properties;
+        }
+
+        /**
+         * The hibernate type of the property.
+         */
+        Type getType() {
+            return type;
+        }
+
+        /**
+         * The property class, or the element class if the property is a collection.
+         */
+        Class<?> getTargetClass() {
+            return targetClass;
+        }
+
+        /**
+         * The type of proxy to create for the property, null if no proxy is required.
+         */
+        TypeSafeQueryProxyType getProxyType() {
+            return proxyType;
+        }
+
+        /**
+         * The identifier property name of the target class if it is an entity.
+         */
+        String getIdentifierName() {
+            return identifierName;
+        }
+
+        /**
+         * The property on the target entity which maps a one to many collection.
+         */
+        String getMappedBy() {
+            return mappedBy;
+        }
+
+        /**
+         * The basic type of the target class, null if it isn't a basic type.
+         */
+        BasicType getBasicType() {
+            return basicType;
+        }
+    }
+}
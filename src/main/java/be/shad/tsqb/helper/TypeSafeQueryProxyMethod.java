@@ -0,0 +1,100 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.helper;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
+
+/**
+ * The information the proxy method handlers need about a proxied method,
+ * resolved once per method by {@link TypeSafeQueryHelperImpl#getProxyMethod(Method)}
+ * so an invocation doesn't need to inspect the method.
+ */
+final class TypeSafeQueryProxyMethod {
+
+    enum Kind {
+        /**
+         * Returns the {@link TypeSafeQueryProxyData} of an entity proxy.
+         */
+        ProxyData,
+        /**
+         * Returns the {@link TypeSafeQuerySelectionProxyData} of a selection proxy.
+         */
+        SelectionProxyData,
+        ToString,
+        Setter,
+        Getter
+    }
+
+    private final Kind kind;
+    private final String propertyName;
+    private final Class<?> propertyType;
+    private final boolean collection;
+    private final boolean basic;
+    private final Object dummyValue;
+
+    TypeSafeQueryProxyMethod(Kind kind, String propertyName, Class<?> propertyType,
+            boolean collection, boolean basic, Object dummyValue) {
+        this.kind = kind;
+        this.propertyName = propertyName;
+        this.propertyType = propertyType;
+        this.collection = collection;
+        this.basic = basic;
+        this.dummyValue = dummyValue;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * The property name derived from the method name.
+     */
+    String getPropertyName() {
+        return propertyName;
+    }
+
+    /**
+     * The return type of a getter or the parameter type of a setter.
+     */
+    Class<?> getPropertyType() {
+        return propertyType;
+    }
+
+    /**
+     * Whether the return type is a collection.
+     */
+    boolean isCollection() {
+        return collection;
+    }
+
+    /**
+     * Whether the return type is a basic hibernate type.
+     */
+    boolean isBasic() {
+        return basic;
+    }
+
+    /**
+     * The value to return when the invocation is queued.
+     */
+    Object getDummyValue() {
+        return dummyValue;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.hql;
+
+/**
+ * Hql update or delete statement, only the where part of
+ * the hql query is used next to the statement and the assignments.
+ */
+public class HqlBulkQuery extends HqlQuery {
+    private final String statement;
+    private StringBuilder set = new StringBuilder();
+
+    /**
+     * @param statement the start of the statement up to the assignments,
+     *        for example "update Person hobj1" or "delete from Person hobj1".
+     */
+    public HqlBulkQuery(String statement) {
+        this.statement = statement;
+    }
+
+    public String getStatement() {
+        return statement;
+    }
+
+    public String getSet() {
+        if (set.length() > 0) {
+            return " set " + set.toString();
+        }
+        return "";
+    }
+
+    public void appendSet(String assignment) {
+        if (set.length() > 0) {
+            set.append(", ");
+        }
+        set.append(assignment);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StringBuilder appendHql(StringBuilder hql) {
+        hql.append(statement);
+        if (set.length() > 0) {
+            hql.append(" set ").append(set);
+        }
+        return hql.append(getWhere());
+    }
+}
@@ -15,9 +15,10 @@
  */
 package be.shad.tsqb.hql;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.hibernate.engine.jdbc.internal.BasicFormatterImpl;
 import org.hibernate.transform.ResultTransformer;
@@ -25,13 +26,15 @@ import org.hibernate.transform.ResultTransformer;
 import be.shad.tsqb.values.HqlQueryValue;
 
 public class HqlQuery implements HqlQueryValue {
+    private static final Pattern FORMATTED_KEYWORD_LINE = Pattern.compile("((from|join|select|where)\\n\\s*)");
+
     private StringBuilder select = new StringBuilder();
     private StringBuilder from = new StringBuilder();
     private StringBuilder where = new StringBuilder();
     private StringBuilder groupBy = new StringBuilder();
     private StringBuilder having = new StringBuilder();
     private StringBuilder orderBy = new StringBuilder();
-    private List<Object> params = new LinkedList<Object>();
+    private List<Object> params = new ArrayList<>();
     private ResultTransformer resultTransformer;
 
     public ResultTransformer getResultTransformer() {
@@ -133,16 +136,53 @@ public class HqlQuery implements HqlQueryValue {
     }
 
     public String getHql() {
-        return getSelect() + getFrom() + getWhere() + getGroupBy() + getHaving() + getOrderBy();
+        return appendHql(new StringBuilder(getHqlLength())).toString();
+    }
+
+    /**
+     * Appends the hql to the builder, the parts are copied
+     * directly without creating the intermediate part strings.
+     */
+    public StringBuilder appendHql(StringBuilder hql) {
+        appendPart(hql, "select ", select);
+        hql.append(" from ").append(from);
+        appendPart(hql, " where ", where);
+        appendPart(hql, " group by ", groupBy);
+        appendPart(hql, " having ", having);
+        appendPart(hql, " order by ", orderBy);
+        return hql;
+    }
+
+    private void appendPart(StringBuilder hql, String keyword, StringBuilder part) {
+        if (part.length() > 0) {
+            hql.append(keyword).append(part);
+        }
+    }
+
+    /**
+     * The length of the hql, used to size the builder up front.
+     */
+    private int getHqlLength() {
+        // upper bound of the keywords: "select  from  where  group by  having  order by ":
+        return 48 + select.length() + from.length() + where.length()
+                + groupBy.length() + having.length() + orderBy.length();
     }
 
     /**
      * String with newlines and spaces to outline the query in a pretty format.
      */
     public String toFormattedString() {
+        return toFormattedString(getHql(), params);
+    }
+
+    /**
+     * Formats the hql and params the same way as {@link #toFormattedString()},
+     * for queries of which only the hql and params are available.
+     */
+    public static String toFormattedString(String hql, Collection<?> params) {
         BasicFormatterImpl formatter = new BasicFormatterImpl();
-        String prettyHql = formatter.format(getHql());
-        prettyHql = prettyHql.replaceAll("((from|join|select|where)\\n\\s*)", "$2 ");
+        String prettyHql = formatter.format(hql);
+        prettyHql = FORMATTED_KEYWORD_LINE.matcher(prettyHql).replaceAll("$2 ");
         return prettyHql + "\n --- with: " + params.toString().replace("PARAM [", "\n[");
     }
 
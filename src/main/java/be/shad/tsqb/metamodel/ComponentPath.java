@@ -0,0 +1,29 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.metamodel;
+
+/**
+ * The path of a component, the superclass of the metamodel classes generated for embeddables.
+ */
+public abstract class ComponentPath<T> extends ObjectPath<T> {
+
+    /**
+     * Creates the path of a component property of the parent.
+     */
+    protected ComponentPath(ObjectPath<?> parent, String propertyName) {
+        super(parent, propertyName);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.metamodel;
+
+import be.shad.tsqb.query.TypeSafeQuery;
+import be.shad.tsqb.query.TypeSafeQueryInternal;
+
+/**
+ * The path of an entity, the superclass of the metamodel classes generated for entities.
+ * <p>
+ * A path created with a query is added as from to the query, it can be used
+ * as the proxy returned by {@link TypeSafeQuery#from(Class)}. An entity path
+ * of a property can be joined using the query's join methods.
+ */
+public abstract class EntityPath<T> extends ObjectPath<T> {
+
+    /**
+     * Adds the entity as from to the query.
+     */
+    protected EntityPath(TypeSafeQuery query, Class<T> entityClass) {
+        super((TypeSafeQueryInternal) query, ((TypeSafeQueryInternal) query).getHelper().
+                createTypeSafeFromPathData((TypeSafeQueryInternal) query, entityClass));
+    }
+
+    /**
+     * Creates the path of an entity property of the parent.
+     */
+    protected EntityPath(ObjectPath<?> parent, String propertyName) {
+        super(parent, propertyName);
+    }
+}
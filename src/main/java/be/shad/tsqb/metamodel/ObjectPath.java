@@ -0,0 +1,98 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.metamodel;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.query.TypeSafeQueryInternal;
+
+/**
+ * The path of an entity or component, the superclass of the generated metamodel classes.
+ * The paths of its properties are created by the generated class.
+ */
+public abstract class ObjectPath<T> implements TypeSafeQueryPath {
+    private final TypeSafeQueryInternal query;
+    private final ObjectPath<?> parent;
+    private final String propertyName;
+    private TypeSafeQueryProxyData data;
+
+    /**
+     * Creates a root path for data which is already part of the query.
+     */
+    ObjectPath(TypeSafeQueryInternal query, TypeSafeQueryProxyData data) {
+        this.query = query;
+        this.parent = null;
+        this.propertyName = null;
+        this.data = data;
+    }
+
+    /**
+     * Creates the path of a property of the parent.
+     */
+    protected ObjectPath(ObjectPath<?> parent, String propertyName) {
+        this.query = parent.query;
+        this.parent = parent;
+        this.propertyName = propertyName;
+    }
+
+    TypeSafeQueryInternal getQuery() {
+        return query;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryProxyData getData() {
+        if (data == null) {
+            data = resolve(query, parent.getData(), propertyName);
+        }
+        return data;
+    }
+
+    /**
+     * Creates the path of a basic property of this path.
+     */
+    protected <V> PropertyPath<V> createProperty(String name, Class<V> valueClass) {
+        return new PropertyPath<>(this, name, valueClass);
+    }
+
+    /**
+     * Retrieves the child data of the parent data, it is created if it doesn't exist yet.
+     */
+    static TypeSafeQueryProxyData resolve(TypeSafeQueryInternal query,
+            TypeSafeQueryProxyData parent, String propertyName) {
+        TypeSafeQueryProxyData child = parent.getChild(propertyName);
+        if (child == null) {
+            child = query.getHelper().createTypeSafePathData(query, parent, propertyName);
+        }
+        return child;
+    }
+
+    /**
+     * The property path starting from the root entity, for display only.
+     */
+    String getPath() {
+        if (parent == null) {
+            return data.getPropertyType().getSimpleName();
+        }
+        return parent.getPath() + "." + propertyName;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Path of [%s]", getPath());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.metamodel;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.values.ReferenceTypeSafeValue;
+
+/**
+ * The path of a basic property, it is a value which can be used
+ * where the value of a proxy getter would be used.
+ * The proxy data is created when the value is used the first time.
+ * <p>
+ * Use {@link #select()} to set the value on a selection dto.
+ */
+public class PropertyPath<T> extends ReferenceTypeSafeValue<T> implements TypeSafeQueryPath {
+    private final ObjectPath<?> parent;
+    private final String propertyName;
+    private TypeSafeQueryProxyData data;
+
+    public PropertyPath(ObjectPath<?> parent, String propertyName, Class<T> valueClass) {
+        super(parent.getQuery(), valueClass);
+        this.parent = parent;
+        this.propertyName = propertyName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeQueryProxyData getData() {
+        if (data == null) {
+            data = ObjectPath.resolve(query, parent.getData(), propertyName);
+        }
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Path of [%s.%s]", parent.getPath(), propertyName);
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.metamodel;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+
+/**
+ * A path of a generated metamodel class, it represents the same
+ * property as a getter on a proxy but without a proxy instance.
+ * <p>
+ * The proxy data of the path is created in the query's data tree when
+ * it is used the first time, as a proxy does when its getter is called.
+ */
+public interface TypeSafeQueryPath {
+
+    /**
+     * The proxy data of the path, created when it doesn't exist yet.
+     */
+    TypeSafeQueryProxyData getData();
+
+}
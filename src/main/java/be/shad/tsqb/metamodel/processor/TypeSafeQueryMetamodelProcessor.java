@@ -0,0 +1,395 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.metamodel.processor;
+
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * Generates a metamodel class for each entity and embeddable, named after the
+ * class with a 'Q' prefix in the same package. The metamodel classes contain a
+ * {@link be.shad.tsqb.metamodel.PropertyPath} field for each basic property and
+ * a method for each entity, entity collection and component property.
+ * <p>
+ * The processor isn't registered as a service, so having the library on the classpath
+ * doesn't run it in projects which don't use the metamodel. Run it explicitly with
+ * <code>-processor be.shad.tsqb.metamodel.processor.TypeSafeQueryMetamodelProcessor</code>
+ * (the <code>annotationProcessors</code> of the maven compiler plugin) and enable it with
+ * the compiler option <code>-Atsqb.metamodel=true</code>.
+ * <p>
+ * The properties are read from the fields or the getters depending on the access type
+ * of the entity: the <code>@Access</code> annotation or the location of the id annotation.
+ * Properties of mapped superclasses and entity superclasses are included.
+ * Element collections and maps are not part of the metamodel.
+ */
+@SupportedAnnotationTypes({
+    TypeSafeQueryMetamodelProcessor.ENTITY,
+    TypeSafeQueryMetamodelProcessor.EMBEDDABLE })
+@SupportedOptions(TypeSafeQueryMetamodelProcessor.ENABLED_OPTION)
+public class TypeSafeQueryMetamodelProcessor extends AbstractProcessor {
+    public static final String ENABLED_OPTION = "tsqb.metamodel";
+
+    static final String ENTITY = "javax.persistence.Entity";
+    static final String EMBEDDABLE = "javax.persistence.Embeddable";
+    private static final String MAPPED_SUPERCLASS = "javax.persistence.MappedSuperclass";
+    private static final String ACCESS = "javax.persistence.Access";
+    private static final String ID = "javax.persistence.Id";
+    private static final String EMBEDDED_ID = "javax.persistence.EmbeddedId";
+    private static final String TRANSIENT = "javax.persistence.Transient";
+    private static final String ONE_TO_MANY = "javax.persistence.OneToMany";
+    private static final String MANY_TO_MANY = "javax.persistence.ManyToMany";
+    private static final String PERSISTENCE_PACKAGE = "javax.persistence.";
+    private static final String PREFIX = "Q";
+
+    private static final String METAMODEL_PACKAGE = "be.shad.tsqb.metamodel.";
+
+    private enum PropertyKind {
+        Basic,
+        Entity,
+        EntityCollection,
+        Component
+    }
+
+    /**
+     * A property of the entity or embeddable.
+     */
+    private static final class Property {
+        private final String name;
+        private final PropertyKind kind;
+        private final TypeMirror type;
+
+        Property(String name, PropertyKind kind, TypeMirror type) {
+            this.name = name;
+            this.kind = kind;
+            this.type = type;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!Boolean.parseBoolean(processingEnv.getOptions().get(ENABLED_OPTION))) {
+            return false;
+        }
+        for(TypeElement annotation: annotations) {
+            boolean entity = annotation.getQualifiedName().contentEquals(ENTITY);
+            for(TypeElement type: ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(annotation))) {
+                try {
+                    generate(type, entity);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Kind.ERROR, String.format(
+                            "Failed to generate the metamodel class for [%s]: %s", type, e), type);
+                }
+            }
+        }
+        // don't claim the annotations, other processors may use them too.
+        return false;
+    }
+
+    private void generate(TypeElement type, boolean entity) throws IOException {
+        String packageName = getPackageName(type);
+        String className = PREFIX + type.getSimpleName();
+        String typeName = getClassName(type.asType());
+        Map<String, Property> properties = new LinkedHashMap<>();
+        collectProperties(type, isFieldAccess(type), properties);
+
+        PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? className: packageName + "." + className, type).openWriter());
+        try {
+            if (!packageName.isEmpty()) {
+                out.printf("package %s;%n%n", packageName);
+            }
+            out.printf("/**%n");
+            out.printf(" * The type safe query paths of {@link %s}.%n", typeName);
+            out.printf(" * <p>%n");
+            out.printf(" * Generated by %s, don't edit.%n", getClass().getName());
+            out.printf(" */%n");
+            out.printf("public class %s extends %s%s<%s> {%n", className, METAMODEL_PACKAGE,
+                    entity ? "EntityPath": "ComponentPath", typeName);
+            for(Property property: properties.values()) {
+                if (property.kind == PropertyKind.Basic) {
+                    String valueClass = getValueClassName(property.type);
+                    out.printf("    public final %sPropertyPath<%s> %s = createProperty(\"%s\", %s);%n",
+                            METAMODEL_PACKAGE, valueClass, property.name, property.name, valueClass + ".class");
+                } else {
+                    out.printf("    private %s %s;%n", getPathClassName(property.type), property.name);
+                }
+            }
+            out.printf("%n");
+            if (entity) {
+                out.printf("    /**%n");
+                out.printf("     * Adds %s as from to the query.%n", type.getSimpleName());
+                out.printf("     */%n");
+                out.printf("    public %s(be.shad.tsqb.query.TypeSafeQuery query) {%n", className);
+                out.printf("        super(query, %s.class);%n", typeName);
+                out.printf("    }%n%n");
+            }
+            out.printf("    public %s(%sObjectPath<?> parent, String propertyName) {%n", className, METAMODEL_PACKAGE);
+            out.printf("        super(parent, propertyName);%n");
+            out.printf("    }%n");
+            for(Property property: properties.values()) {
+                if (property.kind != PropertyKind.Basic) {
+                    String pathClass = getPathClassName(property.type);
+                    out.printf("%n");
+                    out.printf("    public %s %s() {%n", pathClass, property.name);
+                    out.printf("        if (%s == null) {%n", property.name);
+                    out.printf("            %s = new %s(this, \"%s\");%n", property.name, pathClass, property.name);
+                    out.printf("        }%n");
+                    out.printf("        return %s;%n", property.name);
+                    out.printf("    }%n");
+                }
+            }
+            out.printf("}%n");
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Collects the properties of the superclasses first, so the order of the properties
+     * starts with the inherited properties, the same as in the hibernate metadata.
+     */
+    private void collectProperties(TypeElement type, boolean fieldAccess, Map<String, Property> properties) {
+        TypeElement superclass = getMappedSuperclass(type);
+        if (superclass != null) {
+            collectProperties(superclass, fieldAccess, properties);
+        }
+        if (fieldAccess) {
+            for(Element field: ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)
+                        && !field.getModifiers().contains(Modifier.TRANSIENT)
+                        && !hasAnnotation(field, TRANSIENT)) {
+                    addProperty(properties, field.getSimpleName().toString(), field.asType(), field);
+                }
+            }
+        } else {
+            for(ExecutableElement method: ElementFilter.methodsIn(type.getEnclosedElements())) {
+                String propertyName = getGetterPropertyName(method);
+                if (propertyName != null && !hasAnnotation(method, TRANSIENT)) {
+                    addProperty(properties, propertyName, method.getReturnType(), method);
+                }
+            }
+        }
+    }
+
+    private void addProperty(Map<String, Property> properties, String name, TypeMirror type, Element element) {
+        PropertyKind kind = PropertyKind.Basic;
+        if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement typeElement = (TypeElement) ((DeclaredType) type).asElement();
+            if (hasAnnotation(typeElement, ENTITY)) {
+                kind = PropertyKind.Entity;
+            } else if (hasAnnotation(typeElement, EMBEDDABLE)) {
+                kind = PropertyKind.Component;
+            } else if (isAssignable(type, "java.util.Map")) {
+                return;
+            } else if (isAssignable(type, "java.util.Collection")) {
+                type = getCollectionElementType(element, (DeclaredType) type);
+                if (type == null || !hasAnnotation(((DeclaredType) type).asElement(), ENTITY)) {
+                    return; // element collections are not supported
+                }
+                kind = PropertyKind.EntityCollection;
+            }
+        }
+        properties.put(name, new Property(name, kind, type));
+    }
+
+    /**
+     * The entity type of the collection, the targetEntity of the
+     * mapping annotation is used if it is specified.
+     */
+    private TypeMirror getCollectionElementType(Element element, DeclaredType collectionType) {
+        for(AnnotationMirror mirror: element.getAnnotationMirrors()) {
+            String annotation = getAnnotationName(mirror);
+            if (ONE_TO_MANY.equals(annotation) || MANY_TO_MANY.equals(annotation)) {
+                AnnotationValue targetEntity = getAnnotationValue(mirror, "targetEntity");
+                if (targetEntity != null) {
+                    TypeMirror target = (TypeMirror) targetEntity.getValue();
+                    if (target.getKind() == TypeKind.DECLARED
+                            && !((TypeElement) ((DeclaredType) target).asElement()).
+                                getQualifiedName().contentEquals("void")) {
+                        return target;
+                    }
+                }
+            }
+        }
+        List<? extends TypeMirror> typeArguments = collectionType.getTypeArguments();
+        if (typeArguments.size() == 1 && typeArguments.get(0).getKind() == TypeKind.DECLARED) {
+            return typeArguments.get(0);
+        }
+        return null;
+    }
+
+    /**
+     * Uses the access annotation if present, otherwise the location of the id annotation.
+     * Embeddables without access annotation use property access if only the getters are annotated.
+     */
+    private boolean isFieldAccess(TypeElement type) {
+        boolean annotatedFields = false;
+        boolean annotatedGetters = false;
+        for(TypeElement current = type; current != null; current = getMappedSuperclass(current)) {
+            for(AnnotationMirror mirror: current.getAnnotationMirrors()) {
+                if (ACCESS.equals(getAnnotationName(mirror))) {
+                    AnnotationValue value = getAnnotationValue(mirror, "value");
+                    return value == null || ((Element) value.getValue()).getSimpleName().contentEquals("FIELD");
+                }
+            }
+            for(Element field: ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (hasAnnotation(field, ID) || hasAnnotation(field, EMBEDDED_ID)) {
+                    return true;
+                }
+                annotatedFields |= hasPersistenceAnnotation(field);
+            }
+            for(ExecutableElement method: ElementFilter.methodsIn(current.getEnclosedElements())) {
+                if (hasAnnotation(method, ID) || hasAnnotation(method, EMBEDDED_ID)) {
+                    return false;
+                }
+                annotatedGetters |= hasPersistenceAnnotation(method);
+            }
+        }
+        return annotatedFields || !annotatedGetters;
+    }
+
+    /**
+     * @return the superclass if it is an entity or mapped superclass, null otherwise.
+     */
+    private TypeElement getMappedSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+        if (hasAnnotation(superElement, ENTITY) || hasAnnotation(superElement, MAPPED_SUPERCLASS)) {
+            return superElement;
+        }
+        return null;
+    }
+
+    /**
+     * @return the property name if the method is a getter, null otherwise.
+     */
+    private String getGetterPropertyName(ExecutableElement method) {
+        if (method.getModifiers().contains(Modifier.STATIC) || !method.getParameters().isEmpty()
+                || method.getReturnType().getKind() == TypeKind.VOID) {
+            return null;
+        }
+        String name = method.getSimpleName().toString();
+        if (name.startsWith("get") && name.length() > 3) {
+            return Introspector.decapitalize(name.substring(3));
+        }
+        if (name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+            return Introspector.decapitalize(name.substring(2));
+        }
+        return null;
+    }
+
+    private boolean isAssignable(TypeMirror type, String className) {
+        TypeElement classElement = processingEnv.getElementUtils().getTypeElement(className);
+        return processingEnv.getTypeUtils().isAssignable(
+                processingEnv.getTypeUtils().erasure(type),
+                processingEnv.getTypeUtils().erasure(classElement.asType()));
+    }
+
+    /**
+     * The value class of the property path, primitives are boxed
+     * to have the same value class as the values created by proxies.
+     */
+    private String getValueClassName(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass(
+                    processingEnv.getTypeUtils().getPrimitiveType(type.getKind())).getQualifiedName().toString();
+        }
+        return getClassName(type);
+    }
+
+    private String getClassName(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private String getPathClassName(TypeMirror type) {
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        String packageName = getPackageName(element);
+        return (packageName.isEmpty() ? "": packageName + ".") + PREFIX + element.getSimpleName();
+    }
+
+    private String getPackageName(TypeElement type) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        return packageElement.getQualifiedName().toString();
+    }
+
+    private boolean hasAnnotation(Element element, String annotationName) {
+        for(AnnotationMirror mirror: element.getAnnotationMirrors()) {
+            if (annotationName.equals(getAnnotationName(mirror))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean hasPersistenceAnnotation(Element element) {
+        for(AnnotationMirror mirror: element.getAnnotationMirrors()) {
+            if (getAnnotationName(mirror).startsWith(PERSISTENCE_PACKAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getAnnotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private AnnotationValue getAnnotationValue(AnnotationMirror mirror, String name) {
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -22,7 +22,7 @@ import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
 import be.shad.tsqb.values.TypeSafeValue;
 
-public class OrderByImpl implements OrderBy {
+public class OrderByImpl implements SeekableOrderBy {
     private TypeSafeValue<?> value;
     private boolean descending;
 
@@ -48,6 +48,30 @@ public class OrderByImpl implements OrderBy {
 		query.addParams(hqlValue.getParams());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeValue<?> getOrderedValue() {
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getProjectionPath() {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDescending() {
+        return descending;
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new OrderByImpl(context, this);
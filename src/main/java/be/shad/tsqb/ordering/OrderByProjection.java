@@ -29,7 +29,7 @@ import be.shad.tsqb.values.TypeSafeValue;
 /**
  * Allows ordering by an alias which should also be part of the select string.
  */
-public class OrderByProjection implements OrderBy {
+public class OrderByProjection implements SeekableOrderBy {
     private final TypeSafeQuery query;
     private final String propertyPath;
     private boolean descending;
@@ -84,6 +84,30 @@ public class OrderByProjection implements OrderBy {
         hqlQuery.appendOrderBy(hqlString + order);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeValue<?> getOrderedValue() {
+        return ((TypeSafeRootQueryInternal) query).getProjections().getTypeSafeValue(propertyPath, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getProjectionPath() {
+        return propertyPath;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDescending() {
+        return descending;
+    }
+
     @Override
     public Copyable copy(CopyContext context) {
         return new OrderByProjection(context, this);
@@ -0,0 +1,70 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.ordering;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Continuation token for keyset pagination, contains the ordered values
+ * of the last row of a page in the sequence of the query's order bys.
+ * <p>
+ * The next page is fetched by seeking after the token, which restricts the query
+ * to the rows which are ordered after these values, instead of skipping rows.
+ *
+ * @see be.shad.tsqb.query.TypeSafeRootQuery#seekAfter(SeekToken)
+ */
+public final class SeekToken implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] values;
+
+    /**
+     * @param values the values of the order bys, in the same sequence
+     *        as the order bys were added to the query.
+     */
+    public SeekToken(Object... values) {
+        if (values == null || values.length == 0) {
+            throw new IllegalArgumentException("A seek token requires at least one value.");
+        }
+        this.values = values.clone();
+    }
+
+    Object[] getValues() {
+        return values;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SeekToken)) {
+            return false;
+        }
+        return Arrays.equals(values, ((SeekToken) obj).values);
+    }
+
+    @Override
+    public String toString() {
+        return "SeekToken" + Arrays.toString(values);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.ordering;
+
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * An order by which can be used for keyset pagination,
+ * exposes the value which is ordered by and the direction.
+ */
+public interface SeekableOrderBy extends OrderBy {
+
+    /**
+     * The value which is ordered by, restricted when seeking after a token.
+     */
+    TypeSafeValue<?> getOrderedValue();
+
+    /**
+     * The property path of the selection dto property which is ordered by,
+     * null if the value is not ordered by a dto property.
+     */
+    String getProjectionPath();
+
+    boolean isDescending();
+
+}
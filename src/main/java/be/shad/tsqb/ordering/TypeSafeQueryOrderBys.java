@@ -15,6 +15,9 @@
  */
 package be.shad.tsqb.ordering;
 
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,8 +30,16 @@ import be.shad.tsqb.query.TypeSafeRootQueryInternal;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
 import be.shad.tsqb.restrictions.DirectValueProvider;
+import be.shad.tsqb.restrictions.Restriction;
+import be.shad.tsqb.restrictions.RestrictionImpl;
+import be.shad.tsqb.restrictions.RestrictionOperator;
+import be.shad.tsqb.restrictions.RestrictionsGroupImpl;
+import be.shad.tsqb.selection.SelectionTree;
+import be.shad.tsqb.selection.TypeSafeValueProjection;
+import be.shad.tsqb.values.DirectTypeSafeValue;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.ProjectionTypeSafeValue;
+import be.shad.tsqb.values.ReferenceTypeSafeValue;
 import be.shad.tsqb.values.TypeSafeValue;
 
 public class TypeSafeQueryOrderBys implements OnGoingOrderBy, HqlQueryBuilder, Copyable {
@@ -207,6 +218,148 @@ public class TypeSafeQueryOrderBys implements OnGoingOrderBy, HqlQueryBuilder, C
         return orderBy(val, false);
     }
 
+    /**
+     * Reads the ordered values from the row to seek after it.
+     * <p>
+     * The ordered values must be selected: either as a property of the
+     * selection dto, or as one of the values of an object array row.
+     * Selected values can't have a selection value transformer.
+     */
+    public SeekToken createSeekToken(Object lastRow) {
+        if (lastRow == null) {
+            throw new IllegalArgumentException("The row to seek after can't be null.");
+        }
+        List<SeekableOrderBy> seekableOrderBys = getSeekableOrderBys();
+        Object[] values = new Object[seekableOrderBys.size()];
+        for(int i=0; i < values.length; i++) {
+            values[i] = getRowValue(seekableOrderBys.get(i), lastRow);
+        }
+        return new SeekToken(values);
+    }
+
+    /**
+     * Restricts the query to the rows which are ordered after the token values:
+     * <code>(a > :a) or (a = :a and b > :b) or ...</code>, using '&lt;' for descending order bys.
+     * <p>
+     * The order bys must be unique for the rows (include the id last)
+     * and the ordered values can't be null.
+     */
+    public void seekAfter(SeekToken token) {
+        List<SeekableOrderBy> seekableOrderBys = getSeekableOrderBys();
+        Object[] values = token.getValues();
+        if (values.length != seekableOrderBys.size()) {
+            throw new IllegalArgumentException(String.format("The seek token has %d values, "
+                    + "while the query is ordered by %d values.", values.length, seekableOrderBys.size()));
+        }
+        RestrictionsGroupImpl seekGroup = new RestrictionsGroupImpl(query, null);
+        for(int i=0; i < values.length; i++) {
+            RestrictionsGroupImpl orderedAfter = new RestrictionsGroupImpl(query, null);
+            for(int j=0; j < i; j++) {
+                orderedAfter.and(createSeekRestriction(orderedAfter, seekableOrderBys.get(j),
+                        RestrictionOperator.EQUAL, values[j]));
+            }
+            SeekableOrderBy orderBy = seekableOrderBys.get(i);
+            orderedAfter.and(createSeekRestriction(orderedAfter, orderBy, orderBy.isDescending()
+                    ? RestrictionOperator.LESS_THAN: RestrictionOperator.GREATER_THAN, values[i]));
+            seekGroup.or((Restriction) orderedAfter);
+        }
+        query.where((Restriction) seekGroup);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Restriction createSeekRestriction(RestrictionsGroupImpl group,
+            SeekableOrderBy orderBy, RestrictionOperator operator, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException(String.format("Can't seek after a null value "
+                    + "for order by [%s].", orderBy.getOrderedValue()));
+        }
+        return new RestrictionImpl(group, null, orderBy.getOrderedValue(),
+                operator, new DirectTypeSafeValue<>(query, value));
+    }
+
+    /**
+     * @return the order bys, checked to be seekable.
+     */
+    private List<SeekableOrderBy> getSeekableOrderBys() {
+        if (orderBys.isEmpty()) {
+            throw new IllegalStateException("Seeking requires the query to be ordered.");
+        }
+        List<SeekableOrderBy> seekableOrderBys = new ArrayList<>(orderBys.size());
+        for(OrderBy orderBy: orderBys) {
+            if (!(orderBy instanceof SeekableOrderBy)) {
+                throw new IllegalStateException(String.format(
+                        "Order by [%s] can't be used to seek, it is not a SeekableOrderBy.", orderBy));
+            }
+            seekableOrderBys.add((SeekableOrderBy) orderBy);
+        }
+        return seekableOrderBys;
+    }
+
+    /**
+     * Finds the projection of the ordered value and reads its value from the row.
+     */
+    private Object getRowValue(SeekableOrderBy orderBy, Object row) {
+        if (!(query instanceof TypeSafeRootQueryInternal)) {
+            throw new IllegalStateException("Only the root query can seek after a row.");
+        }
+        Collection<TypeSafeValueProjection> projections =
+                ((TypeSafeRootQueryInternal) query).getProjections().getProjections();
+        int index = 0;
+        for(TypeSafeValueProjection projection: projections) {
+            if (orderBy.getProjectionPath() != null
+                    ? orderBy.getProjectionPath().equals(projection.getPropertyPath())
+                    : isSameValue(orderBy.getOrderedValue(), projection.getValue())) {
+                if (projection.getTransformer() != null) {
+                    throw new IllegalStateException(String.format("Can't seek after the value of projection "
+                            + "[%s], the selected value is transformed.", projection));
+                }
+                if (projection.getPropertyPath() != null) {
+                    return getPropertyValue(row, (String) projection.getPropertyPath());
+                } else if (row instanceof Object[]) {
+                    return ((Object[]) row)[index];
+                }
+                return row;
+            }
+            index++;
+        }
+        throw new IllegalStateException(String.format("The value [%s] is not selected, "
+                + "create the seek token with the ordered values instead.", orderBy.getOrderedValue()));
+    }
+
+    /**
+     * Property references create a new value for each proxy call,
+     * they are the same value when they reference the same property data.
+     */
+    private boolean isSameValue(TypeSafeValue<?> orderedValue, TypeSafeValue<?> selectedValue) {
+        if (orderedValue == selectedValue) {
+            return true;
+        }
+        return orderedValue instanceof ReferenceTypeSafeValue
+            && selectedValue instanceof ReferenceTypeSafeValue
+            && ((ReferenceTypeSafeValue<?>) orderedValue).getData()
+                == ((ReferenceTypeSafeValue<?>) selectedValue).getData();
+    }
+
+    /**
+     * Reads the (nested) property of the selection dto.
+     */
+    private Object getPropertyValue(Object dto, String propertyPath) {
+        Object value = dto;
+        for(String property: propertyPath.split("\\.")) {
+            if (value == null) {
+                return null;
+            }
+            Field field = SelectionTree.getField(value.getClass(), property);
+            field.setAccessible(true);
+            try {
+                value = field.get(value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return value;
+    }
+
     @Override
     public void appendTo(HqlQuery query, HqlQueryBuilderParams params) {
         params.setCreatingOrderingBy(true);
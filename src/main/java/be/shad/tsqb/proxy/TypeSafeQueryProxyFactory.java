@@ -15,9 +15,13 @@
  */
 package be.shad.tsqb.proxy;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javassist.util.proxy.MethodFilter;
 import javassist.util.proxy.ProxyFactory;
@@ -27,8 +31,13 @@ import javassist.util.proxy.ProxyFactory;
  * <p>
  * the proxied classes are cached for faster proxy creation and
  * to prevent extra class creations everytime a proxy is requested.
+ * <p>
+ * Cached proxy classes are retrieved without locking, a lock per class and
+ * proxy type is only taken to create a proxy class once when it isn't cached yet.
+ * The proxies are instantiated with a method handle of their constructor.
  */
 public final class TypeSafeQueryProxyFactory {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
 
     private static final MethodFilter METHOD_FILTER = new MethodFilter() {
         public boolean isHandled(Method m) {
@@ -43,41 +52,109 @@ public final class TypeSafeQueryProxyFactory {
         }
     };
 
-    private final Map<Class<?>, Class<?>>[] proxyClasses;
+    private final ConcurrentMap<Class<?>, ProxyConstructor>[] proxyClasses;
 
     @SuppressWarnings("unchecked")
     public TypeSafeQueryProxyFactory() {
-        proxyClasses = new HashMap[TypeSafeQueryProxyType.values().length];
+        proxyClasses = new ConcurrentMap[TypeSafeQueryProxyType.values().length];
         for (int i = 0, n = TypeSafeQueryProxyType.values().length; i < n; i++) {
-            proxyClasses[i] = new HashMap<>();
+            proxyClasses[i] = new ConcurrentHashMap<>();
         }
     }
 
+    @SuppressWarnings("unchecked")
     public <T> T getProxy(Class<T> fromClass, TypeSafeQueryProxyType type) {
         try {
-            return (T) getProxyClass(fromClass, type).newInstance();
-        } catch (InstantiationException | IllegalAccessException e) {
+            Object proxy = getProxyConstructor(fromClass, type).invokeExact();
+            return (T) proxy;
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private <T> Class<T> getProxyClass(Class<T> fromClass, TypeSafeQueryProxyType type) {
-        synchronized ( proxyClasses) {
-            Class<?> proxyClass = proxyClasses[type.ordinal()].get(fromClass);
-            if (proxyClass == null) {
-                ProxyFactory f = new ProxyFactory();
-                f.setSuperclass(fromClass); // what if the super class is final?? guess it will give an exception..
-                if (type.isEntity() || type.isComposite()) {
-                    f.setInterfaces(new Class[] { TypeSafeQueryProxy.class });
-                } else {
-                    f.setInterfaces(new Class[] { TypeSafeQuerySelectionProxy.class });
-                }
-                f.setFilter(METHOD_FILTER);
-                proxyClass = f.createClass();
-                proxyClasses[type.ordinal()].put(fromClass, proxyClass);
+    /**
+     * Creates the proxy class for the class and proxy type if it wasn't created yet,
+     * to avoid paying for the class generation when the first query is built.
+     * Proxy classes for different classes or proxy types can be created concurrently.
+     *
+     * @return true if the proxy class was created by this call.
+     */
+    public boolean preloadProxyClass(Class<?> fromClass, TypeSafeQueryProxyType type) {
+        ProxyConstructor constructor = getProxyConstructorHolder(fromClass, type);
+        if (constructor.handle != null) {
+            return false;
+        }
+        return constructor.create(fromClass, type);
+    }
+
+    /**
+     * @return the constructor of the proxy class, the proxy class is created if it wasn't cached yet.
+     */
+    private MethodHandle getProxyConstructor(Class<?> fromClass, TypeSafeQueryProxyType type) {
+        ProxyConstructor constructor = proxyClasses[type.ordinal()].get(fromClass);
+        if (constructor == null || constructor.handle == null) {
+            constructor = getProxyConstructorHolder(fromClass, type);
+            constructor.create(fromClass, type);
+        }
+        return constructor.handle;
+    }
+
+    /**
+     * @return the holder of the proxy constructor, registered once per class and proxy type.
+     */
+    private ProxyConstructor getProxyConstructorHolder(Class<?> fromClass, TypeSafeQueryProxyType type) {
+        ConcurrentMap<Class<?>, ProxyConstructor> typeProxyClasses = proxyClasses[type.ordinal()];
+        ProxyConstructor constructor = typeProxyClasses.get(fromClass);
+        if (constructor == null) {
+            constructor = new ProxyConstructor();
+            ProxyConstructor existing = typeProxyClasses.putIfAbsent(fromClass, constructor);
+            if (existing != null) {
+                constructor = existing;
+            }
+        }
+        return constructor;
+    }
+
+    private MethodHandle createProxyConstructor(Class<?> fromClass, TypeSafeQueryProxyType type) {
+        ProxyFactory f = new ProxyFactory();
+        f.setSuperclass(fromClass); // what if the super class is final?? guess it will give an exception..
+        if (type.isEntity() || type.isComposite()) {
+            f.setInterfaces(new Class[] { TypeSafeQueryProxy.class });
+        } else {
+            f.setInterfaces(new Class[] { TypeSafeQuerySelectionProxy.class });
+        }
+        f.setFilter(METHOD_FILTER);
+        Class<?> proxyClass = f.createClass();
+        try {
+            // the proxy class may not be accessible if the proxied class isn't public:
+            Constructor<?> constructor = proxyClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format(
+                    "Failed to create a proxy constructor for [%s].", fromClass), e);
+        }
+    }
+
+    /**
+     * Holds the constructor of a proxy class, the class is created only once
+     * while holding the lock of this holder, so only threads requesting
+     * the same class and proxy type wait for each other.
+     */
+    private final class ProxyConstructor {
+        private volatile MethodHandle handle;
+
+        /**
+         * @return true if the proxy class was created by this call.
+         */
+        private synchronized boolean create(Class<?> fromClass, TypeSafeQueryProxyType type) {
+            if (handle != null) {
+                return false;
             }
-            return (Class<T>) proxyClass;
+            handle = createProxyConstructor(fromClass, type);
+            return true;
         }
     }
 
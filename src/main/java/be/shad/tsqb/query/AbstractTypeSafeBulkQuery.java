@@ -0,0 +1,353 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.Date;
+import java.util.List;
+
+import be.shad.tsqb.data.TypeSafeQueryFrom;
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.helper.TypeSafeQueryHelper;
+import be.shad.tsqb.hql.HqlBulkQuery;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.joins.TypeSafeQueryJoin;
+import be.shad.tsqb.restrictions.OnGoingBooleanRestriction;
+import be.shad.tsqb.restrictions.OnGoingDateRestriction;
+import be.shad.tsqb.restrictions.OnGoingEnumRestriction;
+import be.shad.tsqb.restrictions.OnGoingNumberRestriction;
+import be.shad.tsqb.restrictions.OnGoingObjectRestriction;
+import be.shad.tsqb.restrictions.OnGoingTextRestriction;
+import be.shad.tsqb.restrictions.Restriction;
+import be.shad.tsqb.restrictions.RestrictionChainable;
+import be.shad.tsqb.restrictions.RestrictionHolder;
+import be.shad.tsqb.restrictions.RestrictionsGroup;
+import be.shad.tsqb.restrictions.RestrictionsGroupFactory;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryBuilderParamsImpl;
+import be.shad.tsqb.values.HqlQueryValue;
+import be.shad.tsqb.values.TypeSafeValue;
+import be.shad.tsqb.values.TypeSafeValueFunctions;
+import be.shad.tsqb.values.arithmetic.ArithmeticTypeSafeValueFactory;
+
+/**
+ * Uses a root query to create the from proxy, to track the proxy
+ * invocations and to build the where restrictions of the statement.
+ */
+public abstract class AbstractTypeSafeBulkQuery implements TypeSafeBulkQueryInternal {
+    protected final TypeSafeRootQueryInternal query;
+
+    protected AbstractTypeSafeBulkQuery(TypeSafeQueryHelper helper) {
+        this.query = new TypeSafeRootQueryImpl(helper);
+    }
+
+    /**
+     * The start of the statement up to the assignments.
+     *
+     * @param entity the entity name and alias
+     */
+    protected abstract String createStatement(String entity);
+
+    /**
+     * Appends the assignments of the statement, if it has any.
+     */
+    protected void appendAssignments(HqlBulkQuery hqlQuery, HqlQueryBuilderParams params) {
+    }
+
+    /**
+     * Whether the entity property is used without being joined.
+     * Hibernate doesn't allow joins in bulk statements.
+     */
+    protected boolean isUsedWithoutJoin(TypeSafeQueryProxyData data) {
+        return data.getEffectiveJoinType() == JoinType.None;
+    }
+
+    /**
+     * Checks whether the property belongs to the from entity or one of its components,
+     * only these properties can be used in bulk statements.
+     */
+    protected boolean isFromProperty(TypeSafeQueryProxyData data) {
+        TypeSafeQueryProxyData parent = data.getParent();
+        while (parent != null && parent.getProxyType().isComposite()) {
+            parent = parent.getParent();
+        }
+        return parent != null && parent == getFrom().getRoot();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> T from(Class<T> fromClass) {
+        if (!query.getDataTree().getFroms().isEmpty()) {
+            throw new IllegalStateException(String.format(
+                    "A bulk statement can only update or delete one entity class, "
+                    + "[%s] can't be added to the from.", fromClass));
+        }
+        return query.from(fromClass);
+    }
+
+    protected TypeSafeQueryFrom getFrom() {
+        List<TypeSafeQueryFrom> froms = query.getDataTree().getFroms();
+        if (froms.isEmpty()) {
+            throw new IllegalStateException("The entity class of the bulk statement wasn't set, call from first.");
+        }
+        return froms.get(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<?> getEntityClass() {
+        return getFrom().getRoot().getPropertyType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HqlQuery toHqlQuery() {
+        return toHqlQuery(new HqlQueryBuilderParamsImpl());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HqlBulkQuery toHqlQuery(HqlQueryBuilderParams params) {
+        TypeSafeQueryFrom from = getFrom();
+        for(TypeSafeQueryJoin<?> join: from.getJoins()) {
+            if (!isUsedWithoutJoin(join.getData())) {
+                throw new IllegalStateException(String.format("[%s] requires a join, joins can't be used "
+                        + "in bulk statements. Only the identifier of an association can be used.", join.getData()));
+            }
+        }
+        TypeSafeQueryProxyData root = from.getRoot();
+        params.addQueriedEntityClass(root.getPropertyType());
+        HqlBulkQuery hqlQuery = new HqlBulkQuery(createStatement(
+                query.getHelper().getEntityName(root.getPropertyType()) + " " + root.getAlias()));
+        appendAssignments(hqlQuery, params);
+
+        boolean chunkable = params.setChunkableRestriction(true);
+        HqlQueryValue hqlWhereRestrictions = query.getRestrictions().toHqlQueryValue(params);
+        params.setChunkableRestriction(chunkable);
+        hqlQuery.appendWhere(hqlWhereRestrictions.getHql());
+        hqlQuery.addParams(hqlWhereRestrictions.getParams());
+        return hqlQuery;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toFormattedString() {
+        HqlQueryBuilderParamsImpl params = new HqlQueryBuilderParamsImpl();
+        params.setBuildingForDisplay(true);
+        return toHqlQuery(params).toFormattedString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> TypeSafeSubQuery<T> subquery(Class<T> resultClass) {
+        return query.subquery(resultClass);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TypeSafeValueFunctions hqlFunction() {
+        return query.hqlFunction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ArithmeticTypeSafeValueFactory getArithmeticsBuilder() {
+        return query.getArithmeticsBuilder();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionsGroupFactory getGroupedRestrictionsBuilder() {
+        return query.getGroupedRestrictionsBuilder();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <VAL> TypeSafeValue<VAL> toValue(VAL val) {
+        return query.toValue(val);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable and(RestrictionHolder restriction, RestrictionHolder... restrictions) {
+        return query.and(restriction, restrictions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable or(RestrictionHolder restriction, RestrictionHolder... restrictions) {
+        return query.or(restriction, restrictions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable where() {
+        return query.where();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable where(HqlQueryValue hqlQueryvalue) {
+        return query.where(hqlQueryvalue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable where(RestrictionsGroup group) {
+        return query.where(group);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable where(Restriction restriction) {
+        return query.where(restriction);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends Enum<E>> OnGoingEnumRestriction<E> whereEnum(TypeSafeValue<E> value) {
+        return query.whereEnum(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <E extends Enum<E>> OnGoingEnumRestriction<E> where(E value) {
+        return query.where(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingBooleanRestriction whereBoolean(TypeSafeValue<Boolean> value) {
+        return query.whereBoolean(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingBooleanRestriction where(Boolean value) {
+        return query.where(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <N extends Number> OnGoingNumberRestriction whereNumber(TypeSafeValue<N> value) {
+        return query.whereNumber(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingNumberRestriction where(Number value) {
+        return query.where(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingDateRestriction whereDate(TypeSafeValue<Date> value) {
+        return query.whereDate(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingDateRestriction where(Date value) {
+        return query.where(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingTextRestriction whereString(TypeSafeValue<String> value) {
+        return query.whereString(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OnGoingTextRestriction where(String value) {
+        return query.where(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable whereExists(TypeSafeSubQuery<?> subquery) {
+        return query.whereExists(subquery);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RestrictionChainable whereNotExists(TypeSafeSubQuery<?> subquery) {
+        return query.whereNotExists(subquery);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> OnGoingObjectRestriction<T> where(TypeSafeValue<T> value) {
+        return query.where(value);
+    }
+}
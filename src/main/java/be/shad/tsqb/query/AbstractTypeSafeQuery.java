@@ -26,6 +26,7 @@ import be.shad.tsqb.exceptions.ValueNotInScopeException;
 import be.shad.tsqb.grouping.TypeSafeQueryGroupBys;
 import be.shad.tsqb.helper.TypeSafeQueryHelper;
 import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.metamodel.ObjectPath;
 import be.shad.tsqb.ordering.OnGoingOrderBy;
 import be.shad.tsqb.ordering.TypeSafeQueryOrderBys;
 import be.shad.tsqb.proxy.TypeSafeQueryProxy;
@@ -335,13 +336,18 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
      */
     @Override
     public <T> WhereRestrictions joinWith(T obj) {
-        if(!(obj instanceof TypeSafeQueryProxy)) {
-            throw new IllegalArgumentException("Can only get the join using a TypeSafeQueryProxy instance.");
+        TypeSafeQueryProxyData data;
+        if (obj instanceof TypeSafeQueryProxy) {
+            data = ((TypeSafeQueryProxy) obj).getTypeSafeProxyData();
+        } else if (obj instanceof ObjectPath<?>) {
+            data = ((ObjectPath<?>) obj).getData();
+        } else {
+            throw new IllegalArgumentException("Can only get the join using a TypeSafeQueryProxy instance or an entity path.");
         }
-        if (((TypeSafeQueryProxy) obj).getTypeSafeProxyData().getParent() == null) {
+        if (data.getParent() == null) {
             throw new IllegalArgumentException("Attempting to get join restrictions for a 'from' proxy [" + obj + "].");
         }
-        return dataTree.getJoinRestrictions(((TypeSafeQueryProxy) obj).getTypeSafeProxyData());
+        return dataTree.getJoinRestrictions(data);
     }
 
     /**
@@ -358,6 +364,13 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
         TypeSafeQueryProxyData data = rootQuery.dequeueInvocation();
         if (obj instanceof TypeSafeQueryProxy) {
             data = ((TypeSafeQueryProxy) obj).getTypeSafeProxyData();
+        } else if (obj instanceof ObjectPath<?>) {
+            // paths don't have proxies, the path is returned instead:
+            if (createAdditionalJoin || name != null) {
+                throw new JoinException(String.format("Additional or named joins are not "
+                        + "supported when joining a path [%s].", obj));
+            }
+            data = ((ObjectPath<?>) obj).getData();
         }
         if (!data.getProxyType().isEntity()) {
             throw new JoinException(String.format("Attempting to join an object "
@@ -368,6 +381,9 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
                     data.getPropertyPath(), data.getPropertyType());
         }
         data.setJoinType(joinType == null ? JoinType.Default: joinType);
+        if (obj instanceof ObjectPath<?>) {
+            return obj;
+        }
         if (name != null) {
             named().name(data.getProxy(), name);
         }
@@ -768,6 +784,9 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
             if (value instanceof TypeSafeQueryProxy) {
                 // required when selecting full hibernate objects (for example when using select distinct hobj)
                 return new ReferenceTypeSafeValue<VAL>(this, ((TypeSafeQueryProxy) value).getTypeSafeProxyData());
+            } else if (value instanceof ObjectPath<?>) {
+                // same as the proxy, but using a generated path
+                return new ReferenceTypeSafeValue<VAL>(this, ((ObjectPath<?>) value).getData());
             } else if (value instanceof String) {
                 @SuppressWarnings("unchecked")
                 DirectTypeSafeValue<VAL> directValue = (DirectTypeSafeValue<VAL>)
@@ -901,7 +920,7 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
     /**
      * Compose a query object with the selections, from, wheres, group bys and order bys.
      */
-    protected HqlQuery toHqlQuery(HqlQueryBuilderParams params) {
+    public HqlQuery toHqlQuery(HqlQueryBuilderParams params) {
         HqlQuery query = new HqlQuery();
 
         // append select part:
@@ -910,8 +929,10 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
         // append from part + their joins:
         dataTree.appendTo(query, params);
 
-        // append where part:
+        // append where part, the 'in' params of the root query can be chunked:
+        boolean chunkable = params.setChunkableRestriction(rootQuery == this);
         HqlQueryValue hqlWhereRestrictions = whereRestrictions.toHqlQueryValue(params);
+        params.setChunkableRestriction(chunkable);
         query.appendWhere(hqlWhereRestrictions.getHql());
         query.addParams(hqlWhereRestrictions.getParams());
 
@@ -928,4 +949,49 @@ public abstract class AbstractTypeSafeQuery implements TypeSafeQuery, TypeSafeQu
         return query;
     }
 
+    /**
+     * Creates the query which counts the rows of this query, the projections
+     * and order bys are left out. Fetch joins are joined without fetching and
+     * left fetch joins which are not used by the where clause are left out.
+     * <p>
+     * The root entities are counted distinct when collections are joined,
+     * which is refused for a query with multiple froms.
+     */
+    public HqlQuery toCountHqlQuery(HqlQueryBuilderParams params) {
+        if (!groupBys.isEmpty()) {
+            throw new IllegalStateException("The count query can't be derived from a grouped query.");
+        }
+        if (dataTree.getFroms().isEmpty()) {
+            throw new IllegalStateException("The count query can't be derived from a query without from.");
+        }
+        HqlQuery query = new HqlQuery();
+        params.setCreatingCountQuery(true);
+        try {
+            // append where part first, the from part only keeps the fetch joins used by it:
+            boolean chunkable = params.setChunkableRestriction(true);
+            HqlQueryValue hqlWhereRestrictions = whereRestrictions.toHqlQueryValue(params);
+            params.setChunkableRestriction(chunkable);
+            query.appendWhere(hqlWhereRestrictions.getHql());
+            query.addParams(hqlWhereRestrictions.getParams());
+
+            dataTree.appendTo(query, params);
+
+            String rootAlias = dataTree.getFroms().get(0).getRoot().getAlias();
+            if (dataTree.isJoiningMultipleRows(query.getWhere())) {
+                if (dataTree.getFroms().size() > 1) {
+                    // the distinct rows are combinations of the roots,
+                    // counting the distinct first root would miss rows:
+                    throw new IllegalStateException("The count query can't be derived from a query "
+                            + "with multiple froms which joins multiple rows per root entity.");
+                }
+                query.appendSelect("count(distinct " + rootAlias + ")");
+            } else {
+                query.appendSelect("count(" + rootAlias + ")");
+            }
+        } finally {
+            params.setCreatingCountQuery(false);
+        }
+        return query;
+    }
+
 }
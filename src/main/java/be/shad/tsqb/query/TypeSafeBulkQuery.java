@@ -0,0 +1,81 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.restrictions.RestrictionsGroupFactory;
+import be.shad.tsqb.restrictions.WhereRestrictions;
+import be.shad.tsqb.values.TypeSafeValue;
+import be.shad.tsqb.values.TypeSafeValueFunctions;
+import be.shad.tsqb.values.arithmetic.ArithmeticTypeSafeValueFactory;
+
+/**
+ * Bulk statement on the entities of one entity class, the entities
+ * are restricted in the same way as in a {@link TypeSafeRootQuery}:
+ * <pre>
+ * TypeSafeDeleteQuery delete = dao.createDeleteQuery();
+ * Person person = delete.from(Person.class);
+ * delete.where(person.getId()).in(ids, 1000);
+ * int deleted = dao.executeUpdate(delete);
+ * </pre>
+ * Hibernate doesn't allow joins in bulk statements, only the properties of the
+ * entity and the identifiers of its associations can be used in the restrictions.
+ * Subqueries can be used to restrict on other entities.
+ */
+public interface TypeSafeBulkQuery extends WhereRestrictions {
+
+    /**
+     * Creates the proxy of the entities which are updated or deleted, can only be called once.
+     */
+    <T> T from(Class<T> fromClass);
+
+    /**
+     * Creates a subquery to use in the restrictions or assignments.
+     */
+    <T> TypeSafeSubQuery<T> subquery(Class<T> resultClass);
+
+    /**
+     * Retrieve hql function builder to create hql function values.
+     */
+    TypeSafeValueFunctions hqlFunction();
+
+    /**
+     * Retrieve arithmetics builder to create arithmetic values.
+     */
+    ArithmeticTypeSafeValueFactory getArithmeticsBuilder();
+
+    /**
+     * Retrieve the grouped restrictions builder, to create restrictions
+     * groups which can be added to the where restrictions later.
+     */
+    RestrictionsGroupFactory getGroupedRestrictionsBuilder();
+
+    /**
+     * Converts a direct value or a proxy getter call to a type safe value.
+     */
+    <VAL> TypeSafeValue<VAL> toValue(VAL val);
+
+    /**
+     * Transforms the statement to hql with its params.
+     */
+    HqlQuery toHqlQuery();
+
+    /**
+     * The hql of the statement in a readable format.
+     */
+    String toFormattedString();
+
+}
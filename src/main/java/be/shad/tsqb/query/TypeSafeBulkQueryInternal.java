@@ -0,0 +1,39 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import be.shad.tsqb.hql.HqlBulkQuery;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+
+/**
+ * Additional methods added to the TypeSafeBulkQuery for internal use.
+ */
+public interface TypeSafeBulkQueryInternal extends TypeSafeBulkQuery {
+
+    /**
+     * Same as {@link #toHqlQuery()}, but with params which
+     * can be used to tweak how the statement is built.
+     */
+    HqlBulkQuery toHqlQuery(HqlQueryBuilderParams params);
+
+    /**
+     * The class of the entities which are updated or deleted.
+     *
+     * @throws IllegalStateException if from wasn't called yet.
+     */
+    Class<?> getEntityClass();
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+/**
+ * Bulk delete of the entities which match the restrictions. Cascades and orphan
+ * removals are not applied and the entities in the session are not removed,
+ * the same as when an hql delete statement is executed with hibernate.
+ */
+public interface TypeSafeDeleteQuery extends TypeSafeBulkQuery {
+
+}
@@ -1,5 +1,7 @@
 package be.shad.tsqb.query;
 
+import java.util.Set;
+
 
 public interface TypeSafeNameds {
 
@@ -39,4 +41,9 @@ public interface TypeSafeNameds {
      */
     void setValue(String name, Object value);
 
+    /**
+     * @return the names of all named objects.
+     */
+    Set<String> getNames();
+
 }
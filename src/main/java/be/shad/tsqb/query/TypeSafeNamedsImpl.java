@@ -1,8 +1,10 @@
 package be.shad.tsqb.query;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
@@ -69,6 +71,14 @@ public class TypeSafeNamedsImpl implements TypeSafeNameds, Copyable {
         named(NamedValueEnabled.class, name).setNamedValue(value);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(nameds.keySet());
+    }
+
     /**
      * Get the named value and validates null and assignability.
      */
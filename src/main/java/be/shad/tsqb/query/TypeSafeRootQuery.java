@@ -18,6 +18,7 @@ package be.shad.tsqb.query;
 import java.util.Collection;
 
 import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.ordering.SeekToken;
 import be.shad.tsqb.selection.SelectionValueTransformer;
 import be.shad.tsqb.selection.collection.ResultIdentifierBinder;
 import be.shad.tsqb.selection.parallel.SelectPair;
@@ -71,6 +72,15 @@ public interface TypeSafeRootQuery extends TypeSafeQuery {
      */
     HqlQuery toHqlQuery();
 
+    /**
+     * Converts this query to an hqlQuery counting its rows,
+     * used to get the total count of a paged query.
+     * <p>
+     * The projections and order bys are left out, fetch joins
+     * are no longer fetched and left out when they only fetch.
+     */
+    HqlQuery toCountHqlQuery();
+
     /**
      * Can be used when not selecting into a result type,
      * or when selecting a single value in a subquery.
@@ -186,4 +196,56 @@ public interface TypeSafeRootQuery extends TypeSafeQuery {
      */
     int getMaxResults();
 
+    /**
+     * Marks the results of this query to be cached by the query result cache
+     * of the dao, if the dao has one. The results are evicted when one of the
+     * queried entities is inserted, updated or deleted. Queries which select
+     * entities are never cached. False by default.
+     *
+     * @see be.shad.tsqb.dao.QueryResultCache
+     */
+    void setCacheable(boolean cacheable);
+
+    /**
+     * Whether the results of this query may be cached, see {@link #setCacheable(boolean)}
+     */
+    boolean isCacheable();
+
+    /**
+     * Marks this query to be listed with a stateless session by the dao, also when
+     * entities are selected. The selected entities are detached and their lazy
+     * properties can't be loaded. False by default.
+     *
+     * @see be.shad.tsqb.dao.TypeSafeQueryDaoImpl#setStatelessProjectionQueries(boolean)
+     */
+    void setStateless(boolean stateless);
+
+    /**
+     * Whether this query is listed with a stateless session, see {@link #setStateless(boolean)}
+     */
+    boolean isStateless();
+
+    /**
+     * Keyset pagination: restricts the query to the rows which are ordered after the
+     * token, rather than skipping the rows of the previous pages with first result.
+     * <p>
+     * The order bys must be added before seeking and must be unique for the rows,
+     * the values of the token are in the same sequence as the order bys.
+     *
+     * @see #createSeekToken(Object)
+     */
+    void seekAfter(SeekToken token);
+
+    /**
+     * Delegates to {@link #seekAfter(SeekToken)} with a token created for the row,
+     * or with the row itself if it is a token.
+     */
+    void seekAfter(Object lastRow);
+
+    /**
+     * Creates the token to seek after a row of the results of this query, the ordered
+     * values must be selected (as dto property or as value of the row).
+     */
+    SeekToken createSeekToken(Object lastRow);
+
 }
@@ -26,6 +26,7 @@ import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
 import be.shad.tsqb.helper.TypeSafeQueryHelper;
 import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.ordering.SeekToken;
 import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.proxy.TypeSafeQuerySelectionProxy;
 import be.shad.tsqb.query.copy.CopyContext;
@@ -62,6 +63,8 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
     private int selectionGroupAliasCount;
     private int firstResult;
     private int maxResults;
+    private boolean cacheable;
+    private boolean stateless;
 
     @Override
     public TypeSafeRootQuery copy() {
@@ -107,6 +110,8 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
         selectionGroupAliasCount = original.selectionGroupAliasCount;
         firstResult = original.firstResult;
         maxResults = original.maxResults;
+        cacheable = original.cacheable;
+        stateless = original.stateless;
     }
 
     public TypeSafeRootQueryImpl(TypeSafeQueryHelper helper) {
@@ -147,6 +152,66 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
         this.maxResults = maxResults;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void seekAfter(SeekToken token) {
+        getOrderBys().seekAfter(token);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void seekAfter(Object lastRow) {
+        if (lastRow instanceof SeekToken) {
+            seekAfter((SeekToken) lastRow);
+        } else {
+            seekAfter(createSeekToken(lastRow));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SeekToken createSeekToken(Object lastRow) {
+        return getOrderBys().createSeekToken(lastRow);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -441,6 +506,14 @@ public class TypeSafeRootQueryImpl extends AbstractTypeSafeQuery implements Type
         return super.toHqlQuery(new HqlQueryBuilderParamsImpl());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HqlQuery toCountHqlQuery() {
+        return toCountHqlQuery(new HqlQueryBuilderParamsImpl());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -16,6 +16,8 @@
 package be.shad.tsqb.query;
 
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.TypeSafeValue;
 
 /**
@@ -64,4 +66,16 @@ public interface TypeSafeRootQueryInternal extends TypeSafeRootQuery, TypeSafeQu
      */
     String createSelectGroupAlias();
 
+    /**
+     * Same as {@link #toHqlQuery()}, but with params which
+     * can be used to tweak how the query is built.
+     */
+    HqlQuery toHqlQuery(HqlQueryBuilderParams params);
+
+    /**
+     * Same as {@link #toCountHqlQuery()}, but with params which
+     * can be used to tweak how the query is built.
+     */
+    HqlQuery toCountHqlQuery(HqlQueryBuilderParams params);
+
 }
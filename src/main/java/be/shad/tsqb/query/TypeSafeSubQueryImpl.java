@@ -110,7 +110,9 @@ public class TypeSafeSubQueryImpl<T> extends AbstractTypeSafeQuery implements Ty
                     + "this subquery instead of another custom way, or select a value.");
         }
         HqlQuery query = toHqlQuery(params);
-        return new HqlQueryValueImpl("(" +query.getHql() + ")", query.getParams());
+        HqlQueryValueImpl value = new HqlQueryValueImpl("", query.getParams());
+        query.appendHql(value.appendHql("(")).append(")");
+        return value;
     }
 
     /**
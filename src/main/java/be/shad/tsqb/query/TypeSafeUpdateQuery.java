@@ -0,0 +1,50 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * Bulk update of the entities which match the restrictions:
+ * <pre>
+ * TypeSafeUpdateQuery update = dao.createUpdateQuery();
+ * Person person = update.from(Person.class);
+ * update.set(person.getName(), "Josh");
+ * update.where(person.getId()).in(ids, 1000);
+ * int updated = dao.executeUpdate(update);
+ * </pre>
+ * The entities in the session are not updated and versions are not incremented,
+ * the same as when an hql update statement is executed with hibernate.
+ * <p>
+ * Values which use getter calls, such as arithmetic values, must be created
+ * before set is called, otherwise their getter calls are mixed up with the
+ * getter call of the assigned property.
+ */
+public interface TypeSafeUpdateQuery extends TypeSafeBulkQuery {
+
+    /**
+     * Assigns the value to the property, the property is a getter call on the from proxy.
+     * Use {@link #set(Object, TypeSafeValue)} to assign the value of another property,
+     * use null to clear the property.
+     */
+    <T> TypeSafeUpdateQuery set(T property, T value);
+
+    /**
+     * Assigns the value to the property, the property is a getter call on the from proxy.
+     */
+    <T> TypeSafeUpdateQuery set(T property, TypeSafeValue<T> value);
+
+}
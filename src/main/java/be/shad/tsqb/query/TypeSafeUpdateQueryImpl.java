@@ -0,0 +1,132 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.helper.TypeSafeQueryHelper;
+import be.shad.tsqb.hql.HqlBulkQuery;
+import be.shad.tsqb.proxy.TypeSafeQueryProxy;
+import be.shad.tsqb.values.HqlQueryBuilderParams;
+import be.shad.tsqb.values.HqlQueryValue;
+import be.shad.tsqb.values.TypeSafeValue;
+
+/**
+ * Keeps the assignments in the order they were set,
+ * a property can only be assigned once.
+ */
+public class TypeSafeUpdateQueryImpl extends AbstractTypeSafeBulkQuery implements TypeSafeUpdateQuery {
+    private final List<TypeSafeQueryProxyData> properties = new ArrayList<>();
+    private final List<TypeSafeValue<?>> values = new ArrayList<>();
+
+    public TypeSafeUpdateQueryImpl(TypeSafeQueryHelper helper) {
+        super(helper);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> TypeSafeUpdateQuery set(T property, T value) {
+        TypeSafeQueryProxyData propertyData = dequeueProperty(property);
+        addAssignment(propertyData, value == null ? null: query.toValue(value));
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> TypeSafeUpdateQuery set(T property, TypeSafeValue<T> value) {
+        TypeSafeQueryProxyData propertyData = dequeueProperty(property);
+        query.validateInScope(value, null);
+        addAssignment(propertyData, value);
+        return this;
+    }
+
+    /**
+     * The property getter must be the only pending invocation, a value
+     * created with a getter call must be created before it is assigned.
+     * Getters of associations don't queue an invocation, they return a proxy.
+     */
+    private TypeSafeQueryProxyData dequeueProperty(Object property) {
+        List<TypeSafeQueryProxyData> invocations = query.dequeueInvocations();
+        if (invocations.isEmpty() && property instanceof TypeSafeQueryProxy) {
+            invocations.add(((TypeSafeQueryProxy) property).getTypeSafeProxyData());
+        }
+        if (invocations.size() != 1) {
+            throw new IllegalArgumentException(String.format("Expected one property getter call to "
+                    + "assign a value to, but got [%d] invocations. Use toValue(...) to create the value "
+                    + "of another property before calling set.", invocations.size()));
+        }
+        TypeSafeQueryProxyData data = invocations.get(0);
+        if (!isFromProperty(data) || data.getProxyType().isCollection()) {
+            throw new IllegalArgumentException(String.format("[%s] can't be assigned, only the properties "
+                    + "and associations of the from entity can be assigned.", data));
+        }
+        if (properties.contains(data)) {
+            throw new IllegalArgumentException(String.format("[%s] was already assigned.", data));
+        }
+        return data;
+    }
+
+    private void addAssignment(TypeSafeQueryProxyData property, TypeSafeValue<?> value) {
+        properties.add(property);
+        values.add(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String createStatement(String entity) {
+        if (properties.isEmpty()) {
+            throw new IllegalStateException("An update statement requires at least one assignment.");
+        }
+        return "update " + entity;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An assigned association isn't joined, it is assigned by its path.
+     */
+    @Override
+    protected boolean isUsedWithoutJoin(TypeSafeQueryProxyData data) {
+        return super.isUsedWithoutJoin(data) || properties.contains(data) && data.getChildren().isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void appendAssignments(HqlBulkQuery hqlQuery, HqlQueryBuilderParams params) {
+        for(int i=0; i < properties.size(); i++) {
+            TypeSafeQueryProxyData property = properties.get(i);
+            String path = property.getParent().getAlias() + "." + property.getPropertyPath();
+            TypeSafeValue<?> value = values.get(i);
+            if (value == null) {
+                hqlQuery.appendSet(path + " = null");
+            } else {
+                HqlQueryValue hqlValue = value.toHqlQueryValue(params);
+                hqlQuery.appendSet(path + " = " + hqlValue.getHql());
+                hqlQuery.addParams(hqlValue.getParams());
+            }
+        }
+    }
+}
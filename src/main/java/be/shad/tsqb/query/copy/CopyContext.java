@@ -17,6 +17,9 @@ package be.shad.tsqb.query.copy;
 
 import java.util.IdentityHashMap;
 
+import be.shad.tsqb.data.TypeSafeQueryProxyData;
+import be.shad.tsqb.proxy.TypeSafeQueryProxy;
+
 public class CopyContext {
 
     // using identity map/set to make sure equals doesn't break the copy
@@ -49,6 +52,12 @@ public class CopyContext {
             return originalOrCopy;
         }
         Object copy = data.get(originalOrCopy);
+        if (copy == null && originalOrCopy instanceof TypeSafeQueryProxy) {
+            copy = getProxyCopy((TypeSafeQueryProxy) originalOrCopy);
+            if (copy != null) {
+                put(originalOrCopy, (T) copy);
+            }
+        }
         if (copy == null) {
             if (originalOrCopy instanceof Copyable) {
                 // if no copy exists, create a copy and
@@ -65,6 +74,23 @@ public class CopyContext {
         return (T) copy;
     }
 
+    /**
+     * The proxies of copied data are only created when they are requested,
+     * so they are not added while replaying the data tree.
+     * The copy of a proxy is the proxy of the copy of its data.
+     *
+     * @return null if the data wasn't copied or if the proxy
+     *         is not the proxy of the data, but a subtype proxy.
+     */
+    private Object getProxyCopy(TypeSafeQueryProxy proxy) {
+        TypeSafeQueryProxyData original = proxy.getTypeSafeProxyData();
+        TypeSafeQueryProxyData copy = (TypeSafeQueryProxyData) data.get(original);
+        if (copy == null || original.getProxy() != proxy) {
+            return null;
+        }
+        return copy.getProxy();
+    }
+
     /**
      * Add the original and its copy to the identity
      * map so future gets will yield the copied object
@@ -16,6 +16,7 @@
 package be.shad.tsqb.restrictions;
 
 import static be.shad.tsqb.restrictions.RestrictionOperator.EXISTS;
+import static be.shad.tsqb.restrictions.RestrictionOperator.IN;
 import static be.shad.tsqb.restrictions.RestrictionOperator.NOT_EXISTS;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
 import be.shad.tsqb.query.TypeSafeSubQuery;
@@ -25,6 +26,7 @@ import be.shad.tsqb.restrictions.predicate.RestrictionGuard;
 import be.shad.tsqb.restrictions.predicate.RestrictionPredicate;
 import be.shad.tsqb.selection.TypeSafeQueryProjections;
 import be.shad.tsqb.values.CastTypeSafeValue;
+import be.shad.tsqb.values.CollectionTypeSafeValue;
 import be.shad.tsqb.values.DirectTypeSafeValue;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
 import be.shad.tsqb.values.HqlQueryValue;
@@ -116,6 +118,8 @@ public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
     @Override
     public HqlQueryValue toHqlQueryValue(HqlQueryBuilderParams params) {
         HqlQueryValueImpl value = new HqlQueryValueImpl();
+        // only the values of an 'in' restriction can be chunked:
+        boolean chunkable = params.setChunkableRestriction(false);
         if (left != null) {
             HqlQueryValue hqlQueryValue;
             if (leftSideRequiresLiterals() && !params.isRequiresLiterals()) {
@@ -125,8 +129,7 @@ public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
             } else {
                 hqlQueryValue = left.toHqlQueryValue(params);
             }
-            value.appendHql(hqlQueryValue.getHql());
-            value.addParams(hqlQueryValue.getParams());
+            value.append(hqlQueryValue);
         }
         if (operator != null) {
             if (left != null) {
@@ -146,6 +149,8 @@ public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
             }
         }
         if (right != null) {
+            params.setChunkableRestriction(chunkable && operator == IN
+                    && right instanceof CollectionTypeSafeValue<?>);
             HqlQueryValue hqlQueryValue;
             if (rightSideRequiresLiterals() && !params.isRequiresLiterals()) {
                 boolean previous = params.setRequiresLiterals(true);
@@ -154,9 +159,9 @@ public class RestrictionImpl<VAL> implements Restriction, RestrictionGuard {
             } else {
                 hqlQueryValue = right.toHqlQueryValue(params);
             }
-            value.appendHql(hqlQueryValue.getHql());
-            value.addParams(hqlQueryValue.getParams());
+            value.append(hqlQueryValue);
         }
+        params.setChunkableRestriction(chunkable);
         return value;
     }
 
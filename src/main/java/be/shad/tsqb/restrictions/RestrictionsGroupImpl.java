@@ -157,14 +157,17 @@ public class RestrictionsGroupImpl extends RestrictionChainableImpl implements R
     public HqlQueryValueImpl toHqlQueryValue(HqlQueryBuilderParams params) {
         HqlQueryValueImpl value = new HqlQueryValueImpl();
         boolean hasValue = false;
+        boolean chunkable = params.isChunkableRestriction();
+        if (chunkable && hasOrRestrictions()) {
+            params.setChunkableRestriction(false);
+        }
         for(RestrictionNode item: restrictions) {
             Restriction restriction = item.getRestriction();
             if (isRestrictionApplicable(restriction)) {
                 HqlQueryValue nextValue = restriction.toHqlQueryValue(params);
-                String nextValueHql = nextValue.getHql();
                 // check length, if a restriction was not applicable or a group
                 // had no applicable restrictions, the hql will be empty:
-                if (nextValueHql.length() > 0) {
+                if (getHqlLength(nextValue) > 0) {
                     if (hasValue) {
                         if (item.getType() == RestrictionNodeType.And) {
                             value.appendHql(" and ");
@@ -172,16 +175,32 @@ public class RestrictionsGroupImpl extends RestrictionChainableImpl implements R
                             value.appendHql(" or ");
                         } // else null, root
                     }
-                    value.appendHql(nextValue.getHql());
-                    value.addParams(nextValue.getParams());
+                    value.append(nextValue);
                     hasValue = true;
                 }
             }
         }
-        if (!hasValue || !isAddBrackets()) {
-            return value;
+        params.setChunkableRestriction(chunkable);
+        if (hasValue && isAddBrackets()) {
+            value.wrapHqlInBrackets();
+        }
+        return value;
+    }
+
+    private boolean hasOrRestrictions() {
+        for(RestrictionNode item: restrictions) {
+            if (item.getType() == RestrictionNodeType.Or) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getHqlLength(HqlQueryValue value) {
+        if (value instanceof HqlQueryValueImpl) {
+            return ((HqlQueryValueImpl) value).getHqlLength();
         }
-        return new HqlQueryValueImpl("(" + value.getHql() + ")", value.getParams());
+        return value.getHql().length();
     }
 
     private boolean isRestrictionApplicable(Restriction restriction) {
@@ -24,12 +24,9 @@ package be.shad.tsqb.selection;
 public class SelectionTreeValue {
     public final int tupleValueIndex;
     public final String propertyPath;
-    public final SelectionValueTransformer<?, ?> valueTransformer;
 
-    public SelectionTreeValue(int tupleValueIndex, String propertyPath,
-            SelectionValueTransformer<?, ?> valueTransformer) {
+    public SelectionTreeValue(int tupleValueIndex, String propertyPath) {
         this.tupleValueIndex = tupleValueIndex;
         this.propertyPath = propertyPath;
-        this.valueTransformer = valueTransformer;
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection;
+
+import java.util.Collection;
+import java.util.List;
+
+import be.shad.tsqb.selection.group.SelectionTreeGroup;
+import be.shad.tsqb.selection.parallel.SelectionMerger;
+
+/**
+ * Transforms tuples into result dtos while scrolling, without keeping
+ * all results in memory.
+ * <p>
+ * When the result dto is grouped by identity, the tuples of a result
+ * must be consecutive, so the query must be ordered by the identity of the result.
+ * A result is completed when a tuple with another identity is transformed,
+ * then the identities of the completed result and its nested collections are
+ * released, so only one result is kept in memory at a time.
+ * <p>
+ * Keeps the data of the result being transformed, so a new instance must be
+ * used for each scroll, see {@link TypeSafeQueryResultTransformer#createStreamingTransformer()}.
+ */
+public class StreamingResultTransformer {
+    private final SelectionTreeGroup[] treeGroups;
+    private final SelectionValueTransformer<?, ?>[] transformers;
+    private final SelectionMerger<?, ?>[] selectionMergers;
+    private final SelectionTreeData[] data;
+    private boolean hasPendingResult;
+    private Object pendingResult;
+    private List<Object> pendingIdentity;
+
+    StreamingResultTransformer(SelectionTreeGroup[] treeGroups, int resultArraySize,
+            SelectionValueTransformer<?, ?>[] transformers, SelectionMerger<?, ?>[] selectionMergers) {
+        this.treeGroups = treeGroups;
+        this.transformers = transformers;
+        this.selectionMergers = selectionMergers;
+        this.data = new SelectionTreeData[resultArraySize];
+        for(int i=0; i < resultArraySize; i++) {
+            data[i] = new SelectionTreeData();
+        }
+    }
+
+    /**
+     * Transforms the tuple, the results which were completed
+     * by transforming the tuple are added to <code>results</code>.
+     */
+    public void transformTuple(Object[] tuple, Collection<Object> results) {
+        SelectionTreeGroup resultGroup = treeGroups[0];
+        List<Object> identity = null;
+        if (resultGroup.hasIdentityFields()) {
+            identity = resultGroup.getIdentityValues(tuple, transformers);
+        }
+        if (hasPendingResult && (identity == null || !identity.equals(pendingIdentity))) {
+            // the tuple belongs to a new result, the pending result is complete:
+            finish(results);
+        }
+
+        try {
+            for(int i=0; i < treeGroups.length; i++) {
+                treeGroups[i].createFromTuple(data, tuple, transformers, selectionMergers[i]);
+            }
+        } catch (IllegalArgumentException | IllegalAccessException | InstantiationException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (identity == null) {
+            // nothing to merge with, the result is complete:
+            results.add(data[0].getCurrentValue());
+            release();
+        } else if (!hasPendingResult) {
+            hasPendingResult = true;
+            pendingResult = data[0].getCurrentValue();
+            pendingIdentity = identity;
+        }
+    }
+
+    /**
+     * Adds the pending result to <code>results</code>,
+     * must be called after the last tuple was transformed.
+     */
+    public void finish(Collection<Object> results) {
+        if (hasPendingResult) {
+            results.add(pendingResult);
+            hasPendingResult = false;
+            pendingResult = null;
+            pendingIdentity = null;
+            release();
+        }
+    }
+
+    /**
+     * Forget the identities of the completed result.
+     */
+    private void release() {
+        for(SelectionTreeData treeData: data) {
+            if (!treeData.identityTrees.isEmpty()) {
+                treeData.identityTrees.clear();
+            }
+            treeData.setCurrentValue(null);
+        }
+    }
+}
@@ -17,16 +17,27 @@ package be.shad.tsqb.selection;
 
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hibernate.transform.ResultTransformer;
 
 import be.shad.tsqb.data.TypeSafeQueryProxyData;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
 import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.hql.HqlQueryBuilder;
+import be.shad.tsqb.metamodel.ObjectPath;
 import be.shad.tsqb.proxy.TypeSafeQueryProxy;
 import be.shad.tsqb.query.TypeSafeQueryInternal;
+import be.shad.tsqb.query.TypeSafeQueryScopeValidator;
 import be.shad.tsqb.query.copy.CopyContext;
+import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
+import be.shad.tsqb.selection.parallel.SelectionMerger;
 import be.shad.tsqb.values.CustomTypeSafeValue;
 import be.shad.tsqb.values.DirectTypeSafeValue;
 import be.shad.tsqb.values.HqlQueryBuilderParams;
@@ -34,6 +45,7 @@ import be.shad.tsqb.values.HqlQueryValue;
 import be.shad.tsqb.values.IsMaybeDistinct;
 import be.shad.tsqb.values.ReferenceTypeSafeValue;
 import be.shad.tsqb.values.TypeSafeValue;
+import be.shad.tsqb.values.TypeSafeValueContainer;
 
 /**
  * Container for all projections of a query.
@@ -42,6 +54,16 @@ import be.shad.tsqb.values.TypeSafeValue;
  * but it would be allowed if needed.
  */
 public class TypeSafeQueryProjections implements HqlQueryBuilder {
+    /**
+     * Placeholder for the merger of a group in an unbound result transformer.
+     */
+    private static final SelectionMerger<Object, Object> UNBOUND_SELECTION_MERGER = new SelectionMerger<Object, Object>() {
+        @Override
+        public void mergeIntoResult(Object partialResult, Object parallelDto) {
+            throw new IllegalStateException("The selection mergers were not bound to the result transformer.");
+        }
+    };
+
     private final TypeSafeQueryInternal query;
     private final Deque<TypeSafeValueProjection> projections = new LinkedList<>();
     private SelectionValueTransformer<?, ?> transformerForNextProjection;
@@ -146,6 +168,9 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
             } else if (select instanceof TypeSafeQueryProxy) {
                 // entity selection
                 value = new ReferenceTypeSafeValue<>(query, ((TypeSafeQueryProxy) select).getTypeSafeProxyData());
+            } else if (select instanceof ObjectPath<?>) {
+                // entity selection using a generated path
+                value = new ReferenceTypeSafeValue<>(query, ((ObjectPath<?>) select).getData());
             } else {
                 // direct value selection
                 value = new DirectTypeSafeValue<>(query, select);
@@ -175,9 +200,6 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
 
     @Override
     public void appendTo(HqlQuery query, HqlQueryBuilderParams params) {
-        List<TypeSafeQuerySelectionProxyData> selectionDatas = new ArrayList<>(projections.size());
-        List<SelectionValueTransformer<?, ?>> transformers = new ArrayList<>(projections.size());
-        boolean hasTransformer = false;
         for(TypeSafeValueProjection projection: projections) {
             HqlQueryValue val;
             if (projection.getValue() instanceof DirectTypeSafeValue<?>) {
@@ -190,21 +212,185 @@ public class TypeSafeQueryProjections implements HqlQueryBuilder {
             String alias = "";
             TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
             if (selectionData != null) {
-                selectionDatas.add(selectionData);
                 alias = " as " + selectionData.getAlias();
             }
-            transformers.add(projection.getTransformer());
-            hasTransformer = hasTransformer || projection.getTransformer() != null;
             query.appendSelect(val.getHql() + alias);
             query.addParams(val.getParams());
         }
-        if (params.isBuildingForDisplay()) {
+        if (params.isBuildingForDisplay() || !params.isCreatingResultTransformer()) {
             // don't bother setting the result transformer, we're only intereted in the hql string and params
-        } else if (!selectionDatas.isEmpty()) {
-            query.setResultTransformer(new TypeSafeQueryResultTransformer(selectionDatas, transformers));
+            // or the transformer is provided by the caller
+        } else {
+            query.setResultTransformer(createResultTransformer());
+        }
+    }
+
+    /**
+     * Whether entities are selected, this is also the case when nothing
+     * is selected because hibernate then selects the entities in the from clause.
+     * Entities wrapped in a function returning the entity (distinct, coalesce, case, ...)
+     * are selected as well.
+     */
+    public boolean isSelectingEntities() {
+        if (projections.isEmpty()) {
+            return true;
+        }
+        for(TypeSafeValueProjection projection: projections) {
+            if (isSelectingEntity(projection.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the value is an entity reference, or a container
+     * of an entity reference which results in the same entity type.
+     */
+    private static boolean isSelectingEntity(final TypeSafeValue<?> value) {
+        if (value instanceof ReferenceTypeSafeValue<?>) {
+            return ((ReferenceTypeSafeValue<?>) value).getData().getProxyType().isEntity();
+        }
+        if (!(value instanceof TypeSafeValueContainer) || value.getValueClass() == null) {
+            return false;
+        }
+        final boolean[] selectingEntity = new boolean[1];
+        ((TypeSafeValueContainer) value).validateContainedInScope(new TypeSafeQueryScopeValidator() {
+            @Override
+            public void validateInScope(TypeSafeValue<?> nested) {
+                if (!selectingEntity[0] && nested.getValueClass() != null
+                        && value.getValueClass().isAssignableFrom(nested.getValueClass())) {
+                    selectingEntity[0] = isSelectingEntity(nested);
+                }
+            }
+        });
+        return selectingEntity[0];
+    }
+
+    /**
+     * Creates the result transformer for the current projections.
+     *
+     * @return null if the results can be used as they are returned by hibernate.
+     */
+    public ResultTransformer createResultTransformer() {
+        List<TypeSafeQuerySelectionProxyData> selectionDatas = new ArrayList<>(projections.size());
+        List<SelectionValueTransformer<?, ?>> transformers = new ArrayList<>(projections.size());
+        boolean hasTransformer = false;
+        for(TypeSafeValueProjection projection: projections) {
+            if (projection.getSelectionData() != null) {
+                selectionDatas.add(projection.getSelectionData());
+            }
+            transformers.add(projection.getTransformer());
+            hasTransformer = hasTransformer || projection.getTransformer() != null;
+        }
+        if (!selectionDatas.isEmpty()) {
+            return new TypeSafeQueryResultTransformer(selectionDatas, transformers,
+                    query.getHelper().getResultPopulatorFactory());
         } else if (hasTransformer) {
-            query.setResultTransformer(new WithoutAliasesQueryResultTransformer(transformers));
+            return new WithoutAliasesQueryResultTransformer(transformers);
+        }
+        return null;
+    }
+
+    /**
+     * Creates the result transformer for the current projections, without
+     * the value transformers and selection mergers of the query.
+     * Use {@link #bindResultTransformer(ResultTransformer)} to bind them.
+     * <p>
+     * The transformer can be shared by queries with the same result transformer layout,
+     * it doesn't keep a reference to the transformers and mergers of this query.
+     *
+     * @return null if the results can be used as they are returned by hibernate.
+     */
+    public ResultTransformer createUnboundResultTransformer() {
+        List<SelectionValueTransformer<?, ?>> unboundTransformers = new ArrayList<>(projections.size());
+        for(int i = 0; i < projections.size(); i++) {
+            unboundTransformers.add(null);
+        }
+        Map<String, SelectionMerger<?, ?>> unboundMergers = new HashMap<>();
+        for(String aliasPrefix: getSelectionMergers().keySet()) {
+            unboundMergers.put(aliasPrefix, UNBOUND_SELECTION_MERGER);
+        }
+        return bindResultTransformer(createResultTransformer(), unboundTransformers, unboundMergers);
+    }
+
+    /**
+     * Binds the value transformers and selection mergers of this query to a result transformer
+     * created for a query with the same result transformer layout.
+     *
+     * @return the same transformer if this query doesn't have transformers or mergers.
+     */
+    public ResultTransformer bindResultTransformer(ResultTransformer resultTransformer) {
+        List<SelectionValueTransformer<?, ?>> transformers = new ArrayList<>(projections.size());
+        boolean hasTransformer = false;
+        for(TypeSafeValueProjection projection: projections) {
+            transformers.add(projection.getTransformer());
+            hasTransformer = hasTransformer || projection.getTransformer() != null;
+        }
+        Map<String, SelectionMerger<?, ?>> selectionMergers = getSelectionMergers();
+        if (!hasTransformer && selectionMergers.isEmpty()) {
+            return resultTransformer;
+        }
+        return bindResultTransformer(resultTransformer, transformers, selectionMergers);
+    }
+
+    private ResultTransformer bindResultTransformer(ResultTransformer resultTransformer,
+            List<SelectionValueTransformer<?, ?>> transformers, Map<String, SelectionMerger<?, ?>> selectionMergers) {
+        if (resultTransformer instanceof TypeSafeQueryResultTransformer) {
+            return ((TypeSafeQueryResultTransformer) resultTransformer).bind(transformers, selectionMergers);
+        } else if (resultTransformer instanceof WithoutAliasesQueryResultTransformer) {
+            return ((WithoutAliasesQueryResultTransformer) resultTransformer).bind(transformers);
         }
+        return resultTransformer;
+    }
+
+    /**
+     * @return the selection mergers of the selection groups by their alias prefix.
+     */
+    private Map<String, SelectionMerger<?, ?>> getSelectionMergers() {
+        Map<String, SelectionMerger<?, ?>> selectionMergers = new HashMap<>();
+        for(TypeSafeValueProjection projection: projections) {
+            TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
+            if (selectionData != null && selectionData.getGroup().getSelectionMerger() != null) {
+                selectionMergers.put(selectionData.getGroup().getAliasPrefix(),
+                        selectionData.getGroup().getSelectionMerger());
+            }
+        }
+        return selectionMergers;
+    }
+
+    /**
+     * Collects everything the result transformer depends on which is not part of the hql:
+     * the selection paths, the result classes and identity paths of the selection groups,
+     * and the classes of the selection mergers and the value transformers.
+     * <p>
+     * The transformer and merger instances are not part of the layout, they are bound
+     * to a shared result transformer with {@link #bindResultTransformer(ResultTransformer)}.
+     */
+    public List<Object> getResultTransformerLayout() {
+        List<Object> layout = new ArrayList<>(projections.size() * 2);
+        Set<TypeSafeQuerySelectionGroup> groups = new LinkedHashSet<>();
+        for(TypeSafeValueProjection projection: projections) {
+            layout.add(classOf(projection.getTransformer()));
+            TypeSafeQuerySelectionProxyData selectionData = projection.getSelectionData();
+            if (selectionData != null) {
+                layout.add(selectionData.getEffectivePropertyPath());
+                groups.add(selectionData.getGroup());
+            }
+        }
+        for(TypeSafeQuerySelectionGroup group: groups) {
+            layout.add(group.getAliasPrefix());
+            layout.add(group.getResultClass());
+            layout.add(new HashSet<>(group.getResultIdentifierPropertyPaths()));
+            layout.add(classOf(group.getSelectionMerger()));
+            layout.add(group.getCollectionPropertyPath());
+            layout.add(group.getParent() == null ? null: group.getParent().getAliasPrefix());
+        }
+        return layout;
+    }
+
+    private static Class<?> classOf(Object value) {
+        return value == null ? null: value.getClass();
     }
 
     /**
@@ -19,7 +19,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -29,10 +28,15 @@ import org.hibernate.transform.BasicTransformerAdapter;
 import be.shad.tsqb.data.TypeSafeQuerySelectionProxyData;
 import be.shad.tsqb.selection.group.SelectionTreeGroup;
 import be.shad.tsqb.selection.group.TypeSafeQuerySelectionGroup;
+import be.shad.tsqb.selection.parallel.SelectionMerger;
+import be.shad.tsqb.selection.populator.ResultPopulatorFactory;
 
 /**
  * Implementation to set values on nested select dtos.
  * Seems to be faster than the alias to bean result transformer too.
+ * <p>
+ * The prepared selection trees can be shared with transformers bound to other
+ * value transformers and selection mergers, see {@link #bind(List, Map)}.
  */
 @SuppressWarnings({"unchecked", "rawtypes"})
 public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
@@ -40,6 +44,8 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
 
     private final SelectionTreeGroup[] treeGroups;
     private final int resultArraySize;
+    private final SelectionValueTransformer[] transformers;
+    private final SelectionMerger[] selectionMergers;
 
     /**
      * Compares by depth (so groups without parents are first)
@@ -69,11 +75,11 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
 
     public TypeSafeQueryResultTransformer(
             List<TypeSafeQuerySelectionProxyData> selectionDatas,
-            List<SelectionValueTransformer<?, ?>> transformers) {
+            List<SelectionValueTransformer<?, ?>> transformers,
+            ResultPopulatorFactory populatorFactory) {
         try {
             // Group selection data by group (transformed into selectionTreeValues):
             int tupleValueIndex = 0;
-            Iterator<SelectionValueTransformer<?, ?>> valueTransformersIt = transformers.iterator();
             Map<TypeSafeQuerySelectionGroup, List<SelectionTreeValue>> dataByGroup = new HashMap<>();
             for(TypeSafeQuerySelectionProxyData selectionData: selectionDatas) {
                 List<SelectionTreeValue> groupData = dataByGroup.get(selectionData.getGroup());
@@ -82,8 +88,7 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
                     dataByGroup.put(selectionData.getGroup(), groupData);
                 }
                 groupData.add(new SelectionTreeValue(tupleValueIndex++,
-                        selectionData.getEffectivePropertyPath(),
-                        valueTransformersIt.next()));
+                        selectionData.getEffectivePropertyPath()));
             }
 
             // Sort all groups by depth/alias to create groups
@@ -102,28 +107,74 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
             int parentResultIndex = -1;
             int treeGroupIdx = 1;
             this.treeGroups = new SelectionTreeGroup[dataByGroup.size()];
+            this.selectionMergers = new SelectionMerger[dataByGroup.size()];
             Map<TypeSafeQuerySelectionGroup, SelectionTreeGroup> treeGroupsMap = new HashMap<>();
             for(TypeSafeQuerySelectionGroup group: selectionGroups) {
                 // Create group (with any parent it may have) and save it for treeGroup iteration
                 SelectionTreeGroup tree = new SelectionTreeGroup(group, dataByGroup.get(group),
-                        treeGroupsMap.get(group.getParent()));
+                        treeGroupsMap.get(group.getParent()), populatorFactory);
                 // NOTE: A treeGroup may have child SelectionTrees for embedded/composite objects,
                 //       this means the treeGroups is potentially smaller than the result array,
                 //       because the treeGroups only contains explicitly selected dtos.
                 parentResultIndex = tree.assignResultIndexes(parentResultIndex);
-                if (tree.getGroup().isResultGroup()) {
+                if (tree.isResultGroup()) {
                     this.treeGroups[0] = tree;
                 } else {
+                    this.selectionMergers[treeGroupIdx] = group.getSelectionMerger();
                     this.treeGroups[treeGroupIdx++] = tree;
                 }
                 treeGroupsMap.put(group, tree);
             }
             this.resultArraySize = parentResultIndex + 1;
+            this.transformers = transformers.toArray(new SelectionValueTransformer[transformers.size()]);
         } catch (SecurityException | NoSuchFieldException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private TypeSafeQueryResultTransformer(TypeSafeQueryResultTransformer original,
+            SelectionValueTransformer[] transformers, SelectionMerger[] selectionMergers) {
+        this.treeGroups = original.treeGroups;
+        this.resultArraySize = original.resultArraySize;
+        this.transformers = transformers;
+        this.selectionMergers = selectionMergers;
+    }
+
+    /**
+     * Creates a transformer with the same selection trees
+     * which uses the given value transformers and selection mergers.
+     *
+     * @param transformers the value transformers by tuple index, an element is null if the value isn't transformed.
+     * @param selectionMergers the selection mergers by the alias prefix of their selection group.
+     * @throws IllegalArgumentException when no merger is given for a group which merges its results.
+     */
+    public TypeSafeQueryResultTransformer bind(List<SelectionValueTransformer<?, ?>> transformers,
+            Map<String, SelectionMerger<?, ?>> selectionMergers) {
+        SelectionMerger[] boundMergers = new SelectionMerger[treeGroups.length];
+        for(int i=0; i < treeGroups.length; i++) {
+            if (treeGroups[i].isMerged()) {
+                boundMergers[i] = selectionMergers.get(treeGroups[i].getAliasPrefix());
+                if (boundMergers[i] == null) {
+                    throw new IllegalArgumentException(String.format(
+                            "No selection merger was given for selection group [%s].",
+                            treeGroups[i].getAliasPrefix()));
+                }
+            }
+        }
+        return new TypeSafeQueryResultTransformer(this,
+                transformers.toArray(new SelectionValueTransformer[transformers.size()]), boundMergers);
+    }
+
+    /**
+     * Creates a transformer to transform tuples one by one, used when
+     * the results are scrolled through instead of listed.
+     *
+     * @see StreamingResultTransformer
+     */
+    public StreamingResultTransformer createStreamingTransformer() {
+        return new StreamingResultTransformer(treeGroups, resultArraySize, transformers, selectionMergers);
+    }
+
     /**
      * Do nothing, result tranformation will be handled in transformList.
      */
@@ -152,8 +203,8 @@ public class TypeSafeQueryResultTransformer extends BasicTransformerAdapter {
 
         try {
             for(Object obj: list) {
-                for(SelectionTreeGroup treeGroup: treeGroups) {
-                    treeGroup.createFromTuple(data, (Object[]) obj);
+                for(int i=0; i < treeGroups.length; i++) {
+                    treeGroups[i].createFromTuple(data, (Object[]) obj, transformers, selectionMergers[i]);
                 }
                 if (!data[0].isDuplicate()) {
                     // only include main result selection if it was not duplicate.
@@ -32,6 +32,15 @@ public class WithoutAliasesQueryResultTransformer extends BasicTransformerAdapte
         this.transformers = transformers.toArray(new SelectionValueTransformer[transformers.size()]);
     }
 
+    /**
+     * Creates a transformer which uses the given value transformers instead.
+     *
+     * @param transformers the value transformers by tuple index, an element is null if the value isn't transformed.
+     */
+    public WithoutAliasesQueryResultTransformer bind(List<SelectionValueTransformer<?, ?>> transformers) {
+        return new WithoutAliasesQueryResultTransformer(transformers);
+    }
+
     @Override
     public Object transformTuple(Object[] tuple, String[] aliases) {
         for(int i=0; i < tuple.length; i++) {
@@ -22,7 +22,9 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import be.shad.tsqb.selection.SelectionIdentityTree;
@@ -31,14 +33,22 @@ import be.shad.tsqb.selection.SelectionTreeData;
 import be.shad.tsqb.selection.SelectionTreeValue;
 import be.shad.tsqb.selection.SelectionValueTransformer;
 import be.shad.tsqb.selection.parallel.SelectionMerger;
+import be.shad.tsqb.selection.populator.ResultPopulator;
+import be.shad.tsqb.selection.populator.ResultPopulatorFactory;
 
 /**
  * The root of a selection tree which will select into a dto.
+ * <p>
+ * The tree doesn't reference the value transformers and the selection merger of the query
+ * it was created for, they are provided when a tuple is transformed, so the tree can be
+ * shared by queries with transformers and mergers of the same classes.
  */
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public class SelectionTreeGroup extends SelectionTree {
 
-    private TypeSafeQuerySelectionGroup group;
+    private final boolean resultGroup;
+    private final String aliasPrefix;
+    private final boolean merged;
 
     private final SelectionTreeGroup parent;
     private final Field parentCollectionField;
@@ -46,17 +56,24 @@ public class SelectionTreeGroup extends SelectionTree {
 
     private final SelectionTreeField[] otherFields;
     private final SelectionTreeField[] identityFields;
+    private final ResultPopulator populator;
 
     /**
      * Collects and prepares the fields to set data onto
      * during the {@link #createFromTuple(SelectionTreeData[], Object[])} phase.
+     * <p>
+     * The results are created and populated by the populators of the factory,
+     * one per value tree for the fields which are selected on it.
      */
     public SelectionTreeGroup(
             TypeSafeQuerySelectionGroup group,
             List<SelectionTreeValue> tupleValues,
-            SelectionTreeGroup parent) throws NoSuchFieldException, SecurityException {
+            SelectionTreeGroup parent,
+            ResultPopulatorFactory populatorFactory) throws NoSuchFieldException, SecurityException {
         super(group.getResultClass());
-        this.group = group;
+        this.resultGroup = group.isResultGroup();
+        this.aliasPrefix = group.getAliasPrefix();
+        this.merged = group.getSelectionMerger() != null;
         this.parent = parent;
 
         Set<String> identityPaths = group.getResultIdentifierPropertyPaths();
@@ -97,6 +114,45 @@ public class SelectionTreeGroup extends SelectionTree {
 
         // set the entire array accessible at once (for this object):
         AccessibleObject.setAccessible(fields, true);
+
+        populator = createPopulators(populatorFactory);
+    }
+
+    /**
+     * Gets the populators for the fields per value tree and assigns them to the fields.
+     *
+     * @return the populator of this group's result type
+     */
+    private ResultPopulator createPopulators(ResultPopulatorFactory populatorFactory) {
+        Map<SelectionTree, List<SelectionTreeField>> fieldsByTree = new LinkedHashMap<>();
+        fieldsByTree.put(this, new ArrayList<SelectionTreeField>());
+        for(SelectionTreeField[] treeFields: new SelectionTreeField[][] { identityFields, otherFields }) {
+            for(SelectionTreeField field: treeFields) {
+                List<SelectionTreeField> valueTreeFields = fieldsByTree.get(field.valueTree);
+                if (valueTreeFields == null) {
+                    valueTreeFields = new ArrayList<>();
+                    fieldsByTree.put(field.valueTree, valueTreeFields);
+                }
+                field.populatorIndex = valueTreeFields.size();
+                valueTreeFields.add(field);
+            }
+        }
+        ResultPopulator groupPopulator = null;
+        for(Map.Entry<SelectionTree, List<SelectionTreeField>> entry: fieldsByTree.entrySet()) {
+            List<SelectionTreeField> valueTreeFields = entry.getValue();
+            Field[] fields = new Field[valueTreeFields.size()];
+            for(int i=0; i < fields.length; i++) {
+                fields[i] = valueTreeFields.get(i).field;
+            }
+            ResultPopulator treePopulator = populatorFactory.getPopulator(entry.getKey().getResultType(), fields);
+            for(SelectionTreeField field: valueTreeFields) {
+                field.populator = treePopulator;
+            }
+            if (entry.getKey() == this) {
+                groupPopulator = treePopulator;
+            }
+        }
+        return groupPopulator;
     }
 
     /**
@@ -147,7 +203,7 @@ public class SelectionTreeGroup extends SelectionTree {
      */
     private SelectionTreeField createSelectionTreeField(SelectionTreeValue value) {
         SubtreeField subtreeField = getSubtreeField(this, value.propertyPath);
-        return new SelectionTreeField(subtreeField.subtree, value.valueTransformer,
+        return new SelectionTreeField(subtreeField.subtree,
                 subtreeField.field, value.tupleValueIndex);
     }
 
@@ -170,12 +226,17 @@ public class SelectionTreeGroup extends SelectionTree {
     }
 
     /**
+     * Creates the result of this group for the tuple, or finds the existing result
+     * with the same identity, and adds it to its parent.
      *
+     * @param transformers the value transformers by tuple index, an element is null if the value isn't transformed.
+     * @param selectionMerger the merger to merge the result into its parent, if this group merges its results.
      */
-    public void createFromTuple(SelectionTreeData[] dataArray, Object[] tuple)
+    public void createFromTuple(SelectionTreeData[] dataArray, Object[] tuple,
+            SelectionValueTransformer[] transformers, SelectionMerger selectionMerger)
             throws IllegalArgumentException, IllegalAccessException, InstantiationException {
         // populate 'new instances' of this and composite/embedded objects
-        Object resultValue = getResultType().newInstance();
+        Object resultValue = populator.newInstance();
         Object parentValue = null;
         Collection<Object> collection = null;
         if (parent != null) {
@@ -206,7 +267,7 @@ public class SelectionTreeGroup extends SelectionTree {
                 identityExists = false;
             }
             for(SelectionTreeField field: identityFields) {
-                Object value = setField(dataArray, field, tuple);
+                Object value = setField(dataArray, field, tuple, transformers);
                 if (nullIdentity && value != null) {
                     nullIdentity = false;
                 }
@@ -236,13 +297,13 @@ public class SelectionTreeGroup extends SelectionTree {
 
             // object didn't exist, set remaining fields:
             for(SelectionTreeField field: otherFields) {
-                setField(dataArray, field, tuple);
+                setField(dataArray, field, tuple, transformers);
             }
         } else {
             // object didn't exist, set remaining fields:
             boolean nullValue = true;
             for(SelectionTreeField field: otherFields) {
-                Object value = setField(dataArray, field, tuple);
+                Object value = setField(dataArray, field, tuple, transformers);
                 if (nullValue && value != null) {
                     nullValue = false;
                 }
@@ -256,8 +317,7 @@ public class SelectionTreeGroup extends SelectionTree {
         }
 
         if (parent != null) {
-            SelectionMerger selectionMerger = group.getSelectionMerger();
-            if (selectionMerger != null) {
+            if (merged) {
                 // subselect value merged result dto:
                 selectionMerger.mergeIntoResult(parentValue, resultValue);
             } else {
@@ -267,31 +327,83 @@ public class SelectionTreeGroup extends SelectionTree {
         }
     }
 
-    private Object setField(SelectionTreeData[] dataArray, SelectionTreeField field, Object[] tuple)
+    private Object setField(SelectionTreeData[] dataArray, SelectionTreeField field, Object[] tuple,
+            SelectionValueTransformer[] transformers)
             throws IllegalArgumentException, IllegalAccessException, InstantiationException {
         Object value = tuple[field.tupleValueIndex];
-        if (field.valueTransformer != null) {
-            value = field.valueTransformer.convert(value);
+        SelectionValueTransformer valueTransformer = transformers[field.tupleValueIndex];
+        if (valueTransformer != null) {
+            value = valueTransformer.convert(value);
         }
-        field.field.set(dataArray[field.valueTree.getResultIndex()].getCurrentValue(), value);
+        field.populator.setValue(dataArray[field.valueTree.getResultIndex()].getCurrentValue(),
+                field.populatorIndex, value);
         return value;
     }
 
-    public TypeSafeQuerySelectionGroup getGroup() {
-        return group;
+    /**
+     * Whether this group selects the results of the query.
+     */
+    public boolean isResultGroup() {
+        return resultGroup;
+    }
+
+    /**
+     * The alias prefix of the selection group this tree was created for.
+     */
+    public String getAliasPrefix() {
+        return aliasPrefix;
+    }
+
+    /**
+     * Whether the results of this group are merged into their parent with a selection merger,
+     * instead of being added to a collection of the parent.
+     */
+    public boolean isMerged() {
+        return merged;
+    }
+
+    /**
+     * Whether duplicates are detected using identity fields,
+     * in which case the values of multiple tuples are merged into one result.
+     */
+    public boolean hasIdentityFields() {
+        return identityFields.length > 0;
+    }
+
+    /**
+     * The identity values in the tuple, converted in the same
+     * way as when they are set on the result.
+     *
+     * @param transformers the value transformers by tuple index.
+     * @return null if all identity values are null.
+     */
+    public List<Object> getIdentityValues(Object[] tuple, SelectionValueTransformer[] transformers) {
+        List<Object> values = new ArrayList<>(identityFields.length);
+        boolean nullIdentity = true;
+        for(SelectionTreeField field: identityFields) {
+            Object value = tuple[field.tupleValueIndex];
+            SelectionValueTransformer valueTransformer = transformers[field.tupleValueIndex];
+            if (valueTransformer != null) {
+                value = valueTransformer.convert(value);
+            }
+            if (nullIdentity && value != null) {
+                nullIdentity = false;
+            }
+            values.add(value);
+        }
+        return nullIdentity ? null: values;
     }
 
     private final static class SelectionTreeField {
-        final SelectionValueTransformer valueTransformer;
         final SelectionTree valueTree;
         final int tupleValueIndex;
         final Field field;
+        ResultPopulator populator;
+        int populatorIndex;
 
         public SelectionTreeField(SelectionTree valueTree,
-                SelectionValueTransformer valueTransformer,
                 Field field, int tupleValueIndex) {
             this.valueTree = valueTree;
-            this.valueTransformer = valueTransformer;
             this.field = field;
             this.tupleValueIndex = tupleValueIndex;
         }
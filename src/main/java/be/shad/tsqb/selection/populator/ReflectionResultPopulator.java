@@ -0,0 +1,45 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection.populator;
+
+import java.lang.reflect.Field;
+
+/**
+ * Populator using reflection, used when no populator
+ * can be generated for the result type.
+ */
+public class ReflectionResultPopulator extends ResultPopulator {
+
+    public ReflectionResultPopulator(Class<?> resultType, Field[] fields) {
+        super(resultType, fields);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object newInstance() throws InstantiationException, IllegalAccessException {
+        return resultType.newInstance();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValue(Object result, int index, Object value) throws IllegalAccessException {
+        fields[index].set(result, value);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection.populator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Field;
+
+/**
+ * Instantiates a result class and sets the values of a fixed set of its fields,
+ * the fields are addressed by their index in the set.
+ * <p>
+ * Subclasses are generated by the {@link ResultPopulatorFactory} to assign the
+ * fields without reflection, the fields are kept to fall back to reflection
+ * for values which can't be assigned directly (null for a primitive, widening, ...).
+ */
+public abstract class ResultPopulator {
+    protected final Class<?> resultType;
+    protected final Field[] fields;
+    private final MethodHandle[] fieldSetters;
+
+    protected ResultPopulator(Class<?> resultType, Field[] fields) {
+        this(resultType, fields, new MethodHandle[fields.length]);
+    }
+
+    /**
+     * @param fieldSetters the setter handles of the fields which can't be assigned
+     *        by the generated code, typed (Object, Object)void, null for the other fields.
+     */
+    protected ResultPopulator(Class<?> resultType, Field[] fields, MethodHandle[] fieldSetters) {
+        this.resultType = resultType;
+        this.fields = fields;
+        this.fieldSetters = fieldSetters;
+    }
+
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    /**
+     * Creates a new instance of the result type.
+     */
+    public abstract Object newInstance() throws InstantiationException, IllegalAccessException;
+
+    /**
+     * Sets the value of the field at the index on the result.
+     */
+    public abstract void setValue(Object result, int index, Object value) throws IllegalAccessException;
+
+    /**
+     * Assigns the value to the field at the index using its setter handle,
+     * the value must have the field type.
+     */
+    protected final void setFieldValue(Object result, int index, Object value) {
+        try {
+            fieldSetters[index].invokeExact(result, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(String.format(
+                    "Failed to set field [%s] on [%s].", fields[index], result), e);
+        }
+    }
+
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.selection.populator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtConstructor;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+/**
+ * Provides populators per result type and set of fields, using javassist to generate
+ * a populator class which instantiates the result and assigns the fields directly.
+ * <p>
+ * The populators are cached per shape, the generated class is defined in the package
+ * and class loader of the result type so package private members can be used:
+ * <ul>
+ * <li>fields which are accessible from the package are assigned directly,</li>
+ * <li>other fields are assigned using a setter method handle, created once per populator,</li>
+ * <li>static and final fields are set using reflection.</li>
+ * </ul>
+ * The setter method handles are kept in an array of the populator, they are not constants
+ * for the jit compiler and are invoked at about the speed of reflection. Only result types
+ * whose fields are accessible from their package (public, protected or package private)
+ * are populated faster than with the {@link ReflectionResultPopulator}.
+ * <p>
+ * Setter methods are never called, the fields are assigned like the reflection populator does.
+ * If the populator can't be generated, a {@link ReflectionResultPopulator} is used.
+ */
+public final class ResultPopulatorFactory {
+    private static final String POPULATOR_CLASS_SUFFIX = "$$TypeSafeQueryPopulator$$";
+    private static final MethodType FIELD_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    /**
+     * Shared by the factories, the generated class names must be unique per class loader.
+     */
+    private static final AtomicInteger populatorCount = new AtomicInteger();
+
+    private final Map<List<Object>, ResultPopulator> populators = new HashMap<>();
+    private final Map<ClassLoader, ClassPool> classPools = new HashMap<>();
+
+    /**
+     * Gets or creates the populator for the fields of the result type.
+     */
+    public ResultPopulator getPopulator(Class<?> resultType, Field[] fields) {
+        List<Object> shape = Arrays.<Object>asList(resultType, Arrays.asList(fields));
+        synchronized (populators) {
+            ResultPopulator populator = populators.get(shape);
+            if (populator == null) {
+                populator = createPopulator(resultType, fields.clone());
+                populators.put(shape, populator);
+            }
+            return populator;
+        }
+    }
+
+    private ResultPopulator createPopulator(Class<?> resultType, Field[] fields) {
+        AccessibleObject.setAccessible(fields, true);
+        if (resultType.getClassLoader() != null && isAccessible(resultType, resultType.getPackage())) {
+            try {
+                return generatePopulator(resultType, fields);
+            } catch (Exception | LinkageError e) {
+                // the populator couldn't be generated for this result type
+                // (security restrictions, class loader doesn't allow defining classes, ...)
+            }
+        }
+        return new ReflectionResultPopulator(resultType, fields);
+    }
+
+    private ResultPopulator generatePopulator(Class<?> resultType, Field[] fields) throws Exception {
+        ClassPool pool = getClassPool(resultType.getClassLoader());
+        CtClass populatorClass = pool.makeClass(resultType.getName()
+                + POPULATOR_CLASS_SUFFIX + populatorCount.incrementAndGet());
+        try {
+            MethodHandle[] fieldSetters = new MethodHandle[fields.length];
+            populatorClass.setSuperclass(pool.get(ResultPopulator.class.getName()));
+            CtConstructor constructor = CtNewConstructor.make(new CtClass[] {
+                    pool.get(Class.class.getName()), pool.get(Field[].class.getName()),
+                    pool.get(MethodHandle[].class.getName()) },
+                    new CtClass[0], "{ super($1, $2, $3); }", populatorClass);
+            populatorClass.addConstructor(constructor);
+            populatorClass.addMethod(CtNewMethod.make(createNewInstanceMethod(resultType), populatorClass));
+            populatorClass.addMethod(CtNewMethod.make(createSetValueMethod(resultType, fields, fieldSetters), populatorClass));
+
+            Class<?> generatedClass = populatorClass.toClass(resultType.getClassLoader(), resultType.getProtectionDomain());
+            return (ResultPopulator) generatedClass.getConstructor(Class.class, Field[].class, MethodHandle[].class)
+                    .newInstance(resultType, fields, fieldSetters);
+        } finally {
+            populatorClass.detach();
+        }
+    }
+
+    /**
+     * Creates the result using its no-args constructor when it is accessible.
+     */
+    private String createNewInstanceMethod(Class<?> resultType) {
+        StringBuilder sb = new StringBuilder("public Object newInstance() { ");
+        if (isConstructorAccessible(resultType)) {
+            sb.append("return new ").append(resultType.getName()).append("();");
+        } else {
+            sb.append("return resultType.newInstance();");
+        }
+        return sb.append(" }").toString();
+    }
+
+    /**
+     * Creates a switch with a case per field which assigns the value to the field,
+     * or breaks to fall back to reflection if the value can't be assigned directly.
+     * The setter handles of the fields which aren't accessible from the package are
+     * added to the field setters.
+     */
+    private String createSetValueMethod(Class<?> resultType, Field[] fields,
+            MethodHandle[] fieldSetters) throws IllegalAccessException {
+        StringBuilder sb = new StringBuilder("public void setValue(Object result, int index, Object value) { ");
+        sb.append(resultType.getName()).append(" target = (").append(resultType.getName()).append(") result; ");
+        sb.append("switch (index) { ");
+        for(int i=0; i < fields.length; i++) {
+            String assignment = createAssignment(resultType, fields, i, fieldSetters);
+            if (assignment != null) {
+                sb.append("case ").append(i).append(": ").append(assignment).append(" break; ");
+            }
+        }
+        sb.append("} fields[index].set(result, value); }");
+        return sb.toString();
+    }
+
+    /**
+     * Creates a statement which assigns the value to the field and returns if
+     * the value has the field type (or is null for a non-primitive field).
+     * Fields which aren't accessible from the package are assigned by their setter handle.
+     *
+     * @return null if the field can't be assigned without reflection.
+     */
+    private String createAssignment(Class<?> resultType, Field[] fields, int index,
+            MethodHandle[] fieldSetters) throws IllegalAccessException {
+        Field field = fields[index];
+        Class<?> fieldType = field.getType();
+        if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+            return null;
+        }
+        boolean accessible = isAccessible(field, resultType.getPackage());
+        String valueCheck;
+        String assignment;
+        if (fieldType.isPrimitive()) {
+            Class<?> wrapperType = getWrapperType(fieldType);
+            valueCheck = String.format("value instanceof %s", wrapperType.getName());
+            assignment = String.format("target.%s = ((%s) value).%sValue();",
+                    field.getName(), wrapperType.getName(), fieldType.getName());
+        } else if (fieldType.isArray() || !isAccessible(fieldType, resultType.getPackage())) {
+            return null;
+        } else {
+            valueCheck = String.format("value == null || value instanceof %s", fieldType.getName());
+            assignment = String.format("target.%s = (%s) value;", field.getName(), fieldType.getName());
+        }
+        if (!accessible) {
+            // the field is accessible because the populator factory made it accessible:
+            fieldSetters[index] = MethodHandles.lookup().unreflectSetter(field).asType(FIELD_SETTER_TYPE);
+            assignment = String.format("setFieldValue(result, %d, value);", index);
+        }
+        return String.format("if (%s) { %s return; }", valueCheck, assignment);
+    }
+
+    private boolean isConstructorAccessible(Class<?> resultType) {
+        if (Modifier.isAbstract(resultType.getModifiers())) {
+            return false;
+        }
+        try {
+            Constructor<?> constructor = resultType.getDeclaredConstructor();
+            return !Modifier.isPrivate(constructor.getModifiers());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Whether the field can be assigned from code in the package.
+     */
+    private boolean isAccessible(Field field, Package pkg) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isPrivate(modifiers) || !isAccessible(field.getDeclaringClass(), pkg)) {
+            return false;
+        }
+        return Modifier.isPublic(modifiers) || field.getDeclaringClass().getPackage() == pkg;
+    }
+
+    /**
+     * Whether the class (and its declaring classes) can be used from code in the package.
+     */
+    private boolean isAccessible(Class<?> type, Package pkg) {
+        for(Class<?> current = type; current != null; current = current.getDeclaringClass()) {
+            int modifiers = current.getModifiers();
+            if (Modifier.isPrivate(modifiers)) {
+                return false;
+            }
+            if (!Modifier.isPublic(modifiers) && current.getPackage() != pkg) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Class<?> getWrapperType(Class<?> primitiveType) {
+        switch (primitiveType.getName()) {
+            case "boolean": return Boolean.class;
+            case "byte":    return Byte.class;
+            case "char":    return Character.class;
+            case "short":   return Short.class;
+            case "int":     return Integer.class;
+            case "long":    return Long.class;
+            case "float":   return Float.class;
+            default:        return Double.class;
+        }
+    }
+
+    /**
+     * A class pool per class loader, which can find the result types
+     * of the class loader and the populator super class.
+     */
+    private ClassPool getClassPool(ClassLoader classLoader) {
+        ClassPool pool = classPools.get(classLoader);
+        if (pool == null) {
+            pool = new ClassPool(true);
+            pool.appendClassPath(new LoaderClassPath(classLoader));
+            pool.appendClassPath(new ClassClassPath(ResultPopulator.class));
+            classPools.put(classLoader, pool);
+        }
+        return pool;
+    }
+}
@@ -21,6 +21,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import be.shad.tsqb.CollectionNamedParameter;
+import be.shad.tsqb.InValuesParameter;
 import be.shad.tsqb.query.TypeSafeQuery;
 import be.shad.tsqb.query.copy.CopyContext;
 import be.shad.tsqb.query.copy.Copyable;
@@ -33,6 +34,7 @@ import be.shad.tsqb.restrictions.RestrictionOperator;
 public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements NamedValueEnabled, OperatorAwareValue, DirectTypeSafeValueWrapper<Collection<T>> {
     private Collection<T> values;
     private Integer batchSize;
+    private boolean usingInValuesTable;
 
     /**
      * Copy constructor
@@ -40,6 +42,7 @@ public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements
     @SuppressWarnings("unchecked")
     protected CollectionTypeSafeValue(CopyContext context, CollectionTypeSafeValue<T> original) {
         super(context, original);
+        usingInValuesTable = original.usingInValuesTable;
         if (original.values != null) {
             try {
                 values = original.values.getClass().newInstance();
@@ -64,6 +67,30 @@ public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements
         super(query, valueClass);
     }
 
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isUsingInValuesTable() {
+        return usingInValuesTable;
+    }
+
+    /**
+     * Restrict using a subselect on the in values table instead of a parameter list,
+     * the values are inserted in the table before the query is executed.
+     * Useful for very large collections, the query is executed at once instead of
+     * in batches. Only numbers and strings are supported and the
+     * {@link TypeSafeQueryInValue} entity must be mapped.
+     */
+    public void setUsingInValuesTable(boolean usingInValuesTable) {
+        if (usingInValuesTable && !TypeSafeQueryInValue.isSupported(getValueClass())
+                && !Number.class.equals(getValueClass())) {
+            throw new IllegalArgumentException(String.format(
+                    "Values of type [%s] can't be used with the in values table.", getValueClass()));
+        }
+        this.usingInValuesTable = usingInValuesTable;
+    }
+
     public Collection<T> getValues() {
         return getWrappedValue();
     }
@@ -95,11 +122,55 @@ public class CollectionTypeSafeValue<T> extends TypeSafeValueImpl<T> implements
             }
             sb.append(")");
             return new HqlQueryValueImpl(sb.toString());
+        } else if (isUsingInValuesTable(params)) {
+            String name = params.createNamedParameter();
+            String alias = name + "_value";
+            boolean numberValues = !String.class.equals(getValueClass());
+            return new HqlQueryValueImpl(new StringBuilder("(select ").append(alias)
+                    .append(numberValues ? ".numberValue": ".stringValue")
+                    .append(" from ").append(query.getHelper().getEntityName(TypeSafeQueryInValue.class))
+                    .append(" ").append(alias).append(" where ").append(alias)
+                    .append(".listKey = :").append(name).append(")").toString(),
+                    new InValuesParameter(name, values, numberValues, this));
         } else {
             String name = params.createNamedParameter();
             return new HqlQueryValueImpl(new StringBuilder("(:").append(name).append(")").toString(),
-                    new CollectionNamedParameter(name, values, batchSize));
+                    new CollectionNamedParameter(name, values, batchSize, this,
+                            params.isChunkableRestriction()));
+        }
+    }
+
+    /**
+     * Whether the in values table is used, because it is configured
+     * or because the amount of values exceeds the threshold.
+     */
+    private boolean isUsingInValuesTable(HqlQueryBuilderParams params) {
+        if (usingInValuesTable) {
+            if (!isInValuesTableSupported()) {
+                throw new IllegalStateException(String.format(
+                        "Values %s can't be used with the in values table.", values));
+            }
+            return true;
+        }
+        return params.getInValuesTableThreshold() > 0
+                && values.size() >= params.getInValuesTableThreshold()
+                && isInValuesTableSupported();
+    }
+
+    /**
+     * Number restrictions use Number as value class,
+     * the values are checked to be whole numbers in that case.
+     */
+    private boolean isInValuesTableSupported() {
+        if (!Number.class.equals(getValueClass())) {
+            return TypeSafeQueryInValue.isSupported(getValueClass());
+        }
+        for(T value: values) {
+            if (value == null || !TypeSafeQueryInValue.isNumber(value.getClass())) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
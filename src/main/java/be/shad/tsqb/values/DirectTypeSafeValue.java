@@ -67,7 +67,7 @@ public class DirectTypeSafeValue<T> extends TypeSafeValueImpl<T> implements Name
             return new HqlQueryValueImpl(query.getHelper().toLiteral(getValue()));
         } else {
             String name = params.createNamedParameter();
-            return new HqlQueryValueImpl(":" + name, new NamedParameter(name, getValue()));
+            return new HqlQueryValueImpl(":" + name, new NamedParameter(name, getValue(), this));
         }
     }
 
@@ -15,6 +15,8 @@
  */
 package be.shad.tsqb.values;
 
+import java.util.Set;
+
 public interface HqlQueryBuilderParams {
 
     String createNamedParameter();
@@ -29,6 +31,18 @@ public interface HqlQueryBuilderParams {
      */
     boolean setRequiresLiterals(boolean requiresLiterals);
 
+    /**
+     * Whether the restriction which is being transformed is only combined with 'and'
+     * in the where clause of the root query. The collection param of an 'in' restriction
+     * in this position can be bound in chunks, a row matches at most one chunk.
+     */
+    boolean isChunkableRestriction();
+
+    /**
+     * Returns the previous value.
+     */
+    boolean setChunkableRestriction(boolean chunkableRestriction);
+
     /**
      * When ordering by is being transformed to an HQL value,
      * this flag can be used for additional validation.
@@ -53,4 +67,56 @@ public interface HqlQueryBuilderParams {
      * @see #isBuildingForDisplay()
      */
     void setBuildingForDisplay(boolean buildingForDisplay);
+
+    /**
+     * Whether the result transformer should be created when the projections
+     * are appended, true by default.
+     * <p>
+     * The dao turns this off when it can reuse the transformer of an
+     * already compiled query with the same shape.
+     */
+    boolean isCreatingResultTransformer();
+
+    /**
+     * @see #isCreatingResultTransformer()
+     */
+    void setCreatingResultTransformer(boolean creatingResultTransformer);
+
+    /**
+     * The amount of values from which collection values use the in values
+     * table instead of a parameter list, 0 if only collection values which
+     * are configured to use the in values table use it.
+     *
+     * @see CollectionTypeSafeValue#setUsingInValuesTable(boolean)
+     */
+    int getInValuesTableThreshold();
+
+    /**
+     * @see #getInValuesTableThreshold()
+     */
+    void setInValuesTableThreshold(int inValuesTableThreshold);
+
+    /**
+     * When the count query of a root query is being created,
+     * fetch joins are joined without fetching or left out.
+     */
+    boolean isCreatingCountQuery();
+
+    /**
+     * Mark the start/end of creating the count query.
+     */
+    void setCreatingCountQuery(boolean creatingCountQuery);
+
+    /**
+     * Registers an entity class which is queried by the hql,
+     * the froms and joins of the query and its subqueries are registered.
+     */
+    void addQueriedEntityClass(Class<?> entityClass);
+
+    /**
+     * The entity classes which are queried by the hql, used to evict cached results.
+     *
+     * @see #addQueriedEntityClass(Class)
+     */
+    Set<Class<?>> getQueriedEntityClasses();
 }
@@ -15,11 +15,19 @@
  */
 package be.shad.tsqb.values;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class HqlQueryBuilderParamsImpl implements HqlQueryBuilderParams {
     private int namedParamCount = 1;
     private boolean requiresLiterals;
+    private boolean chunkableRestriction;
     private boolean creatingOrderingBy;
     private boolean buildingForDisplay;
+    private boolean creatingResultTransformer = true;
+    private int inValuesTableThreshold;
+    private boolean creatingCountQuery;
+    private final Set<Class<?>> queriedEntityClasses = new LinkedHashSet<>();
 
     @Override
     public boolean isRequiresLiterals() {
@@ -32,6 +40,18 @@ public class HqlQueryBuilderParamsImpl implements HqlQueryBuilderParams {
         return previous;
     }
 
+    @Override
+    public boolean isChunkableRestriction() {
+        return chunkableRestriction;
+    }
+
+    @Override
+    public boolean setChunkableRestriction(boolean chunkableRestriction) {
+        boolean previous = this.chunkableRestriction;
+        this.chunkableRestriction = chunkableRestriction;
+        return previous;
+    }
+
     @Override
     public boolean isCreatingOrderingBy() {
         return creatingOrderingBy;
@@ -52,6 +72,46 @@ public class HqlQueryBuilderParamsImpl implements HqlQueryBuilderParams {
         this.buildingForDisplay = buildingForDisplay;
     }
 
+    @Override
+    public boolean isCreatingResultTransformer() {
+        return creatingResultTransformer;
+    }
+
+    @Override
+    public void setCreatingResultTransformer(boolean creatingResultTransformer) {
+        this.creatingResultTransformer = creatingResultTransformer;
+    }
+
+    @Override
+    public int getInValuesTableThreshold() {
+        return inValuesTableThreshold;
+    }
+
+    @Override
+    public void setInValuesTableThreshold(int inValuesTableThreshold) {
+        this.inValuesTableThreshold = inValuesTableThreshold;
+    }
+
+    @Override
+    public boolean isCreatingCountQuery() {
+        return creatingCountQuery;
+    }
+
+    @Override
+    public void setCreatingCountQuery(boolean creatingCountQuery) {
+        this.creatingCountQuery = creatingCountQuery;
+    }
+
+    @Override
+    public void addQueriedEntityClass(Class<?> entityClass) {
+        queriedEntityClasses.add(entityClass);
+    }
+
+    @Override
+    public Set<Class<?>> getQueriedEntityClasses() {
+        return queriedEntityClasses;
+    }
+
     @Override
     public String createNamedParameter() {
         return "np" + namedParamCount++;
@@ -15,8 +15,9 @@
  */
 package be.shad.tsqb.values;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 
 import be.shad.tsqb.query.copy.CopyContext;
@@ -25,9 +26,17 @@ import be.shad.tsqb.query.copy.Copyable;
 /**
  * Wraps an hql stringbuilder and params and provides
  * convenient methods to append to them.
+ * <p>
+ * The params list is only created when the first param is added,
+ * most values (properties, restrictions on literals, ...) have none.
+ * <p>
+ * Each value keeps its own builder rather than writing into one shared buffer:
+ * values are composed recursively (a subquery is a value inside a restriction
+ * inside a subquery) and are exposed as a String through {@link #getHql()},
+ * so every level would still need its own region of the buffer and its own string.
  */
 public class HqlQueryValueImpl implements HqlQueryValue, Copyable {
-    private List<Object> params = new LinkedList<>();
+    private List<Object> params;
     private StringBuilder hql;
 
     /**
@@ -77,8 +86,11 @@ public class HqlQueryValueImpl implements HqlQueryValue, Copyable {
      */
     protected HqlQueryValueImpl(CopyContext context, HqlQueryValueImpl original) {
         this.hql = original.hql;
-        for(Object param: original.params) {
-            params.add(context.getOrOriginal(param));
+        if (original.params != null) {
+            params = new ArrayList<>(original.params.size());
+            for(Object param: original.params) {
+                params.add(context.getOrOriginal(param));
+            }
         }
     }
 
@@ -95,16 +107,61 @@ public class HqlQueryValueImpl implements HqlQueryValue, Copyable {
         return this.hql;
     }
 
+    /**
+     * Appends the hql and params of the value, the hql is appended
+     * without creating an intermediate string when possible.
+     */
+    public StringBuilder append(HqlQueryValue value) {
+        if (value instanceof HqlQueryValueImpl) {
+            HqlQueryValueImpl other = (HqlQueryValueImpl) value;
+            this.hql.append(other.hql);
+            if (other.params != null) {
+                addParams(other.params);
+            }
+        } else {
+            this.hql.append(value.getHql());
+            addParams(value.getParams());
+        }
+        return this.hql;
+    }
+
+    /**
+     * Surrounds the hql with brackets.
+     */
+    public void wrapHqlInBrackets() {
+        hql.insert(0, '(').append(')');
+    }
+
+    /**
+     * @return the length of the hql, without creating the hql string.
+     */
+    public int getHqlLength() {
+        return hql.length();
+    }
+
     public Collection<Object> getParams() {
+        if (params == null) {
+            return Collections.emptyList();
+        }
         return params;
     }
 
     public void addParam(Object param) {
+        if (params == null) {
+            params = new ArrayList<>();
+        }
         params.add(param);
     }
 
     public void addParams(Collection<Object> params) {
-        this.params.addAll(params);
+        if (params.isEmpty()) {
+            return;
+        }
+        if (this.params == null) {
+            this.params = new ArrayList<>(params);
+        } else {
+            this.params.addAll(params);
+        }
     }
 
     @Override
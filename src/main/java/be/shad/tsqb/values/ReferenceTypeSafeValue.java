@@ -34,7 +34,16 @@ public class ReferenceTypeSafeValue<T> extends TypeSafeValueImpl<T> {
      */
     protected ReferenceTypeSafeValue(CopyContext context, ReferenceTypeSafeValue<T> original) {
         super(context, original);
-        this.data = context.get(original.data);
+        this.data = context.get(original.getData());
+    }
+
+    /**
+     * Creates a reference of which the data is resolved by
+     * the subclass when {@link #getData()} is called.
+     */
+    protected ReferenceTypeSafeValue(TypeSafeQuery query, Class<T> valueClass) {
+        super(query, valueClass);
+        this.data = null;
     }
 
     @SuppressWarnings("unchecked")
@@ -49,7 +58,7 @@ public class ReferenceTypeSafeValue<T> extends TypeSafeValueImpl<T> {
 
     @Override
     public HqlQueryValue toHqlQueryValue(HqlQueryBuilderParams params) {
-        return new HqlQueryValueImpl(data.getAlias());
+        return new HqlQueryValueImpl(getData().getAlias());
     }
 
     @Override
@@ -0,0 +1,125 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.values;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * A row of the in values table, used to restrict on large collections
+ * of values with a subselect instead of a parameter list.
+ * <p>
+ * The values of a collection are inserted with a list key which is unique per
+ * query execution, and are deleted after the query was executed.
+ * This entity must be added to the hibernate configuration to use the in values table,
+ * see {@link CollectionTypeSafeValue#setUsingInValuesTable(boolean)}.
+ */
+@Entity
+@Table(name = TypeSafeQueryInValue.TABLE_NAME)
+public class TypeSafeQueryInValue implements Serializable {
+    private static final long serialVersionUID = 4107434735467592396L;
+
+    public static final String TABLE_NAME = "TSQB_IN_VALUES";
+    public static final String LIST_KEY_COLUMN = "LIST_KEY";
+    public static final String POSITION_COLUMN = "POSITION";
+    public static final String NUMBER_VALUE_COLUMN = "NUMBER_VALUE";
+    public static final String STRING_VALUE_COLUMN = "STRING_VALUE";
+
+    @Id
+    @Column(name = LIST_KEY_COLUMN, length = 36)
+    private String listKey;
+
+    @Id
+    @Column(name = POSITION_COLUMN)
+    private Integer position;
+
+    @Column(name = NUMBER_VALUE_COLUMN)
+    private Long numberValue;
+
+    @Column(name = STRING_VALUE_COLUMN)
+    private String stringValue;
+
+    public String getListKey() {
+        return listKey;
+    }
+
+    public void setListKey(String listKey) {
+        this.listKey = listKey;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public Long getNumberValue() {
+        return numberValue;
+    }
+
+    public void setNumberValue(Long numberValue) {
+        this.numberValue = numberValue;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    public void setStringValue(String stringValue) {
+        this.stringValue = stringValue;
+    }
+
+    /**
+     * Whether values of the value class can be stored in the in values table.
+     */
+    public static boolean isSupported(Class<?> valueClass) {
+        return isNumber(valueClass) || String.class.equals(valueClass);
+    }
+
+    /**
+     * Whether the values are stored as number, as string otherwise.
+     */
+    public static boolean isNumber(Class<?> valueClass) {
+        return Long.class.equals(valueClass) || Integer.class.equals(valueClass)
+                || Short.class.equals(valueClass) || Byte.class.equals(valueClass)
+                || long.class.equals(valueClass) || int.class.equals(valueClass)
+                || short.class.equals(valueClass) || byte.class.equals(valueClass);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (listKey == null ? 0: listKey.hashCode()) + (position == null ? 0: position.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof TypeSafeQueryInValue)) {
+            return false;
+        }
+        TypeSafeQueryInValue other = (TypeSafeQueryInValue) obj;
+        return (listKey == null ? other.listKey == null: listKey.equals(other.listKey))
+                && (position == null ? other.position == null: position.equals(other.position));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.AsyncTypeSafeQueryDao;
+import be.shad.tsqb.dao.AsyncTypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.TypeSafeQueryTemplate;
+import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+/**
+ * The data is committed because the sessions of the async queries
+ * don't see changes of the current transaction.
+ */
+public class AsyncTypeSafeQueryDaoTest extends TypeSafeQueryTest {
+    private ExecutorService executor;
+    private AsyncTypeSafeQueryDao asyncDao;
+    private Town town;
+    private List<Person> persons = new ArrayList<>();
+
+    @Before
+    public void createData() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        town = creator.createTestTown();
+        for(String name: Arrays.asList("Josh", "Emily", "Hank")) {
+            persons.add(creator.createTestPerson(town, name));
+        }
+        getSessionFactory().getCurrentSession().getTransaction().commit();
+        getSessionFactory().getCurrentSession().beginTransaction();
+
+        executor = Executors.newFixedThreadPool(3);
+        asyncDao = new AsyncTypeSafeQueryDaoImpl(new TypeSafeQueryDaoImpl(
+                getSessionFactory(), getHelper()), executor);
+    }
+
+    @After
+    public void deleteData() {
+        executor.shutdown();
+        Session session = getSessionFactory().getCurrentSession();
+        session.clear();
+        for(Person person: persons) {
+            session.delete(person);
+        }
+        session.delete(town);
+        session.getTransaction().commit();
+        getSessionFactory().getCurrentSession().beginTransaction();
+    }
+
+    /**
+     * Independent queries are executed at the same time, the query can
+     * be modified after it was submitted without affecting its results.
+     */
+    @Test
+    public void testDoQueryAsync() throws Exception {
+        TypeSafeRootQuery namesQuery = asyncDao.createQuery();
+        Person person = namesQuery.from(Person.class);
+        namesQuery.where(person.getTown().getId()).eq(town.getId());
+        namesQuery.select(person.getName());
+        namesQuery.orderBy().asc(person.getName());
+        Future<QueryResult<String>> names = asyncDao.doQueryAsync(namesQuery);
+        namesQuery.where(person.getName()).eq("Josh");
+
+        TypeSafeRootQuery countQuery = asyncDao.createQuery();
+        Person countedPerson = countQuery.from(Person.class);
+        countQuery.where(countedPerson.getTown().getId()).eq(town.getId());
+        countQuery.select(countQuery.hqlFunction().count());
+        Future<QueryResult<Long>> count = asyncDao.doQueryAsync(countQuery);
+
+        TypeSafeRootQuery townQuery = asyncDao.createQuery();
+        Town townPx = townQuery.from(Town.class);
+        townQuery.where(townPx.getId()).eq(town.getId());
+        Future<QueryResult<Town>> towns = asyncDao.doQueryAsync(townQuery);
+
+        assertEquals(Arrays.asList("Emily", "Hank", "Josh"), names.get().getResults());
+        assertEquals(Long.valueOf(3), count.get().getFirstResult());
+        assertEquals(town.getId(), towns.get().getFirstResult().getId());
+    }
+
+    @Test
+    public void testDoQueryAsyncTemplateBinding() throws Exception {
+        TypeSafeRootQuery query = asyncDao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getTown().getId()).eq(town.getId());
+        query.where(person.getName()).eq().named("name");
+        query.named().setValue("name", "Josh");
+        query.select(person.getName());
+        TypeSafeQueryTemplate template = new TypeSafeQueryTemplate(query);
+
+        Future<QueryResult<String>> josh = asyncDao.doQueryAsync(template.bind("name", "Josh"));
+        Future<QueryResult<String>> emily = asyncDao.doQueryAsync(template.bind("name", "Emily"));
+
+        assertEquals(Arrays.asList("Josh"), josh.get().getResults());
+        assertEquals(Arrays.asList("Emily"), emily.get().getResults());
+    }
+}
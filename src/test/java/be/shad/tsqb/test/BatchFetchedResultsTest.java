@@ -16,6 +16,7 @@
 package be.shad.tsqb.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -25,18 +26,29 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import org.hibernate.Session;
 import org.junit.Test;
 
 import be.shad.tsqb.NamedParameter;
+import be.shad.tsqb.dao.ChunkPlan;
+import be.shad.tsqb.dao.CompiledTypeSafeQuery;
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDao;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
 import be.shad.tsqb.domain.DomainObject;
 import be.shad.tsqb.domain.Town;
 import be.shad.tsqb.domain.people.Person;
 import be.shad.tsqb.domain.people.Relation;
 import be.shad.tsqb.dto.HasId;
+import be.shad.tsqb.hql.HqlQuery;
 import be.shad.tsqb.dto.PersonDto;
 import be.shad.tsqb.dto.TownDto;
 import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
 import be.shad.tsqb.selection.collection.IdentityFieldProvider;
 import be.shad.tsqb.values.CustomTypeSafeValue;
 
@@ -84,6 +96,140 @@ public class BatchFetchedResultsTest extends TypeSafeQueryTest {
         validate("will fail because of multiple batched params");
     }
 
+    /**
+     * With cartesian chunking, the query is listed for each combination of chunks.
+     * Because the restrictions are combined with 'and', each result is listed once.
+     */
+    @Test
+    public void testMultipleBatchedInQueryWithCartesianChunking() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        int n = 10;
+        List<Long> ids = new ArrayList<>(n);
+        List<String> names = new ArrayList<>(n);
+        for (long i=0; i < n; i++) {
+            Person savedPerson = creator.createTestPerson(town, "P" + i);
+            ids.add(savedPerson.getId());
+            names.add(savedPerson.getName());
+        }
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.getChunkPlanner().setCartesianChunking(true);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids, 3).and(person.getName()).in(names, 4);
+
+        HqlQuery hqlQuery = query.toHqlQuery();
+        ChunkPlan chunkPlan = dao.getChunkPlanner().plan(new CompiledTypeSafeQuery(hqlQuery), hqlQuery.getParams());
+        assertEquals(4 * 3, chunkPlan.getCombinationCount());
+        assertEquals(n, dao.doQueryResults(query).size());
+    }
+
+    /**
+     * Batched params which are or-ed are not chunked, not even with cartesian chunking,
+     * each chunk combination would list the rows matching the other restriction again.
+     */
+    @Test
+    public void testOrBatchedInQueryNotChunked() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        int n = 10;
+        List<Long> ids = new ArrayList<>(n);
+        List<String> names = new ArrayList<>(n);
+        for (long i=0; i < n; i++) {
+            Person savedPerson = creator.createTestPerson(town, "P" + i);
+            ids.add(savedPerson.getId());
+            names.add(savedPerson.getName());
+        }
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.getChunkPlanner().setCartesianChunking(true);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids, 3).or(person.getName()).in(names, 4);
+
+        HqlQuery hqlQuery = query.toHqlQuery();
+        assertNull(dao.getChunkPlanner().plan(new CompiledTypeSafeQuery(hqlQuery), hqlQuery.getParams()));
+        assertEquals(n, dao.doQueryResults(query).size());
+    }
+
+    /**
+     * When the bind parameter limit is exceeded, only the largest batched list
+     * is chunked so that all params fit.
+     */
+    @Test
+    public void testLargestListChunkedForBindParameterLimit() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        int n = 10;
+        List<Long> ids = new ArrayList<>(n);
+        for (long i=0; i < n; i++) {
+            Person savedPerson = creator.createTestPerson(town, "P" + i);
+            ids.add(savedPerson.getId());
+        }
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.getChunkPlanner().setMaxBindParameters(7);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids, n).and(person.getName()).in(Arrays.asList("P1", "P2", "P3"));
+
+        // 3 names + 1 name of the town leaves room for 3 ids per chunk:
+        query.where(person.getTown().getName()).eq("TestTown");
+        HqlQuery hqlQuery = query.toHqlQuery();
+        ChunkPlan chunkPlan = dao.getChunkPlanner().plan(new CompiledTypeSafeQuery(hqlQuery), hqlQuery.getParams());
+        assertEquals(4, chunkPlan.getCombinationCount());
+        assertEquals(3, dao.doQueryResults(query).size());
+    }
+
+    /**
+     * A list without batch size is not chunked for the list parameter limit,
+     * chunking a 'not in' restriction would list the excluded rows.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testNotInExceedingListParameterLimitNotChunked() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for (long i=0; i < 5; i++) {
+            ids.add(creator.createTestPerson(town, "P" + i).getId());
+        }
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.getChunkPlanner().setMaxListParameters(3);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).notIn(ids);
+        dao.doQueryResults(query);
+    }
+
+    /**
+     * A list without batch size is not chunked for the bind parameter limit,
+     * chunking an 'in' restriction combined with 'or' would list rows more than once.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testOrInExceedingBindParameterLimitNotChunked() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.getChunkPlanner().setMaxBindParameters(3);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq("P1").or(person.getId()).in(Arrays.asList(1L, 2L, 3L));
+        dao.doQueryResults(query);
+    }
+
+    /**
+     * The params can't be bound if a single value per list exceeds the limit.
+     */
+    @Test(expected=IllegalStateException.class)
+    public void testBindParameterLimitTooSmall() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.getChunkPlanner().setMaxBindParameters(2);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(Arrays.asList(1L, 2L), 2).and(person.getName()).in(Arrays.asList("P1", "P2"), 2);
+        dao.doQueryResults(query);
+    }
+
     /**
      * If the batched values were transformed 1 at a time, then
      * the result would not contain just 1 item.
@@ -166,6 +312,95 @@ public class BatchFetchedResultsTest extends TypeSafeQueryTest {
         assertEquals(resultIds.get(fred.getId()), Collections.emptySet());
     }
 
+    /**
+     * Listing the batches concurrently must give the same results as listing them one after another.
+     * The data is committed because the stateless sessions don't see changes of the current transaction.
+     */
+    @Test
+    public void testBatchedInQueryListedConcurrently() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        int n = 10;
+        List<Person> persons = new ArrayList<>(n);
+        List<Long> ids = new ArrayList<>(n);
+        for (long i=0; i < n; i++) {
+            Person savedPerson = creator.createTestPerson(town, "P" + i);
+            persons.add(savedPerson);
+            ids.add(savedPerson.getId());
+        }
+        getSessionFactory().getCurrentSession().getTransaction().commit();
+        getSessionFactory().getCurrentSession().beginTransaction();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+            List<PersonDto> sequential = dao.doQueryResults(createPersonDtoQuery(dao, ids));
+            dao.setBatchExecutor(executor);
+            List<PersonDto> concurrent = dao.doQueryResults(createPersonDtoQuery(dao, ids));
+
+            assertEquals(n, concurrent.size());
+            for(int i=0; i < n; i++) {
+                assertEquals(sequential.get(i).getId(), concurrent.get(i).getId());
+                assertEquals(sequential.get(i).getThePersonsName(), concurrent.get(i).getThePersonsName());
+            }
+        } finally {
+            executor.shutdown();
+            Session session = getSessionFactory().getCurrentSession();
+            for(Person person: persons) {
+                session.delete(person);
+            }
+            session.delete(town);
+            session.getTransaction().commit();
+            getSessionFactory().getCurrentSession().beginTransaction();
+        }
+    }
+
+    /**
+     * The configurer can only prepare the current session,
+     * the batches are listed with it instead of concurrently.
+     */
+    @Test
+    public void testBatchesWithConfigurerListedSequentially() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for (long i=0; i < 5; i++) {
+            ids.add(creator.createTestPerson(town, "P" + i).getId());
+        }
+
+        final List<Session> configuredSessions = new ArrayList<>();
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(3);
+        try {
+            TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+            dao.setBatchExecutor(executor);
+            List<PersonDto> results = dao.doQueryResults(createPersonDtoQuery(dao, ids),
+                    new HibernateQueryConfigurerAdapter() {
+                @Override
+                public void beforeQuery(Session session) {
+                    configuredSessions.add(session);
+                }
+            });
+
+            // not committed, only visible to the current session:
+            assertEquals(5, results.size());
+            assertEquals(1, configuredSessions.size());
+            assertEquals(0, executor.getTaskCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private TypeSafeRootQuery createPersonDtoQuery(TypeSafeQueryDao dao, List<Long> ids) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids, 3);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setThePersonsName(person.getName());
+        query.orderBy().asc(person.getId());
+        return query;
+    }
+
     @Test
     public void testNonBatchNamedParamWithCollectionDoesntFail() {
         Town townProxy = query.from(Town.class);
@@ -0,0 +1,204 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeDeleteQuery;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeUpdateQuery;
+import be.shad.tsqb.values.TypeSafeValue;
+import be.shad.tsqb.values.arithmetic.ArithmeticTypeSafeValue;
+
+public class BulkQueryTest extends TypeSafeQueryTest {
+
+    private List<String> findNames(Town town) {
+        getSessionFactory().getCurrentSession().clear();
+        TypeSafeRootQuery query = createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getTown().getId()).eq(town.getId());
+        query.select(person.getName());
+        query.orderBy().asc(person.getName());
+        return getTypeSafeQueryDao().doQueryResults(query);
+    }
+
+    @Test
+    public void testUpdate() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+        creator.createTestPerson(town, "Emily");
+        getSessionFactory().getCurrentSession().flush();
+
+        TypeSafeUpdateQuery update = getTypeSafeQueryDao().createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getName(), "Anonymous");
+        update.set(person.getNickname(), null);
+        update.where(person.getTown().getId()).eq(town.getId());
+
+        assertEquals("update Person hobj1 set hobj1.name = :np1, hobj1.nickname = null "
+                + "where hobj1.town.id = :np2", update.toHqlQuery().getHql());
+        assertEquals(2, getTypeSafeQueryDao().executeUpdate(update));
+        assertEquals(2, findNames(town).size());
+        assertEquals("Anonymous", findNames(town).get(0));
+    }
+
+    /**
+     * Values created from other properties are assigned by their hql.
+     */
+    @Test
+    public void testUpdateWithPropertyValue() {
+        TypeSafeUpdateQuery update = getTypeSafeQueryDao().createUpdateQuery();
+        Person person = update.from(Person.class);
+        TypeSafeValue<String> nickname = update.toValue(person.getNickname());
+        update.set(person.getName(), nickname);
+        TypeSafeValue<Integer> age = update.toValue(person.getAge());
+        ArithmeticTypeSafeValue agePlusOne = update.getArithmeticsBuilder().value(age).add(1);
+        update.set(person.getAge(), agePlusOne);
+
+        assertEquals("update Person hobj1 set hobj1.name = hobj1.nickname, hobj1.age = (hobj1.age + 1)",
+                update.toHqlQuery().getHql());
+    }
+
+    /**
+     * An association is assigned by its path, without joining it.
+     */
+    @Test
+    public void testUpdateAssociation() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        Town otherTown = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+        getSessionFactory().getCurrentSession().flush();
+
+        TypeSafeUpdateQuery update = getTypeSafeQueryDao().createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getTown(), otherTown);
+        update.where(person.getTown().getId()).eq(town.getId());
+
+        assertEquals(1, getTypeSafeQueryDao().executeUpdate(update));
+        assertEquals(0, findNames(town).size());
+        assertEquals(1, findNames(otherTown).size());
+    }
+
+    /**
+     * A batched in restriction is executed once per batch.
+     */
+    @Test
+    public void testBatchedDelete() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for(int i=0; i < 5; i++) {
+            ids.add(creator.createTestPerson(town, "P" + i).getId());
+        }
+        creator.createTestPerson(town, "Kept");
+        Session session = getSessionFactory().getCurrentSession();
+        session.flush();
+
+        TypeSafeDeleteQuery delete = getTypeSafeQueryDao().createDeleteQuery();
+        Person person = delete.from(Person.class);
+        delete.where(person.getId()).in(ids, 2);
+
+        assertEquals("delete from Person hobj1 where hobj1.id in (:np1)", delete.toHqlQuery().getHql());
+        assertEquals(5, getTypeSafeQueryDao().executeUpdate(delete));
+        List<String> names = findNames(town);
+        assertEquals(1, names.size());
+        assertEquals("Kept", names.get(0));
+    }
+
+    /**
+     * Deleting per chunk of a 'not in' restriction would delete the values of the other chunks.
+     */
+    @Test
+    public void testBatchedNotInDeleteRejected() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for(int i=0; i < 5; i++) {
+            ids.add(creator.createTestPerson(town, "P" + i).getId());
+        }
+        getSessionFactory().getCurrentSession().flush();
+
+        TypeSafeDeleteQuery delete = getTypeSafeQueryDao().createDeleteQuery();
+        Person person = delete.from(Person.class);
+        delete.where(person.getTown().getId()).eq(town.getId()).and(person.getId()).notIn(ids, 2);
+        try {
+            getTypeSafeQueryDao().executeUpdate(delete);
+            fail("Chunked 'not in' delete was executed.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(5, findNames(town).size());
+    }
+
+    /**
+     * Updating per chunk of an or-ed 'in' restriction would update the other
+     * side of the 'or' once per chunk.
+     */
+    @Test
+    public void testBatchedOrInUpdateRejected() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for(int i=0; i < 5; i++) {
+            ids.add(creator.createTestPerson(town, "P" + i).getId());
+        }
+        getSessionFactory().getCurrentSession().flush();
+
+        TypeSafeUpdateQuery update = getTypeSafeQueryDao().createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getAge(), 1);
+        update.where(person.getName()).eq("P0").or(person.getId()).in(ids, 2);
+        try {
+            getTypeSafeQueryDao().executeUpdate(update);
+            fail("Chunked or-ed 'in' update was executed.");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNestedPropertyCantBeAssigned() {
+        TypeSafeUpdateQuery update = getTypeSafeQueryDao().createUpdateQuery();
+        Person person = update.from(Person.class);
+        update.set(person.getTown().getName(), "Other");
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testJoinNotAllowed() {
+        TypeSafeDeleteQuery delete = getTypeSafeQueryDao().createDeleteQuery();
+        Person person = delete.from(Person.class);
+        delete.where(person.getTown().getName()).eq("Town");
+        delete.toHqlQuery();
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testSecondFromNotAllowed() {
+        TypeSafeDeleteQuery delete = getTypeSafeQueryDao().createDeleteQuery();
+        delete.from(Person.class);
+        delete.from(Town.class);
+    }
+}
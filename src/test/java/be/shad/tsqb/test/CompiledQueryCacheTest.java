@@ -0,0 +1,182 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.CompiledTypeSafeQueryCache;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.selection.SelectionValueTransformer;
+import be.shad.tsqb.selection.parallel.SelectValue;
+import be.shad.tsqb.selection.parallel.SelectionMerger1;
+
+public class CompiledQueryCacheTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDaoImpl dao;
+    private CompiledTypeSafeQueryCache cache;
+
+    @Before
+    public void createDao() {
+        dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        cache = new CompiledTypeSafeQueryCache(2);
+        dao.setCompiledQueryCache(cache);
+
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+        creator.createTestPerson(town, "Emily");
+    }
+
+    /**
+     * Queries with the same shape but different values reuse the compiled query.
+     */
+    @Test
+    public void testSameShapeReusesCompiledQuery() {
+        List<PersonDto> josh = dao.doQueryResults(createPersonNameQuery("Josh"));
+        List<PersonDto> emily = dao.doQueryResults(createPersonNameQuery("Emily"));
+
+        assertEquals(1, josh.size());
+        assertEquals("Josh", josh.get(0).getThePersonsName());
+        assertEquals(1, emily.size());
+        assertEquals("Emily", emily.get(0).getThePersonsName());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Transformers of the same class share the compiled query,
+     * each query uses its own transformer instance.
+     */
+    @Test
+    public void testTransformersOfSameClassReuseCompiledQuery() {
+        for(final String suffix: new String[] { "A", "B" }) {
+            TypeSafeRootQuery query = dao.createQuery();
+            Person person = query.from(Person.class);
+            query.where(person.getName()).eq("Josh");
+            PersonDto dto = query.select(PersonDto.class);
+            dto.setThePersonsName(query.select(String.class, person.getName(),
+                    new SelectionValueTransformer<String, String>() {
+                @Override
+                public String convert(String name) {
+                    return name + suffix;
+                }
+            }));
+            List<PersonDto> results = dao.doQueryResults(query);
+            assertEquals(1, results.size());
+            assertEquals("Josh" + suffix, results.get(0).getThePersonsName());
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Selection mergers of the same class share the compiled query,
+     * each query uses its own merger instance.
+     */
+    @Test
+    public void testMergersOfSameClassReuseCompiledQuery() {
+        for(final String suffix: new String[] { "A", "B" }) {
+            TypeSafeRootQuery query = dao.createQuery();
+            Person person = query.from(Person.class);
+            query.where(person.getName()).eq("Josh");
+            PersonDto dto = query.select(PersonDto.class);
+            dto.setId(person.getId());
+            SelectValue<String> name = query.selectMergeValues(dto, new SelectionMerger1<PersonDto, String>() {
+                @Override
+                public void mergeValueIntoResult(PersonDto partialResult, String value) {
+                    partialResult.setThePersonsName(value + suffix);
+                }
+            });
+            name.setValue(person.getName());
+            List<PersonDto> results = dao.doQueryResults(query);
+            assertEquals(1, results.size());
+            assertEquals("Josh" + suffix, results.get(0).getThePersonsName());
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    /**
+     * Selecting into a different dto property requires a different compiled query.
+     */
+    @Test
+    public void testDifferentSelectionIsNotReused() {
+        dao.doQueryResults(createPersonNameQuery("Josh"));
+
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq("Josh");
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        List<PersonDto> results = dao.doQueryResults(query);
+
+        assertEquals(1, results.size());
+        assertEquals(null, results.get(0).getThePersonsName());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    /**
+     * The least recently used compiled query is evicted when the cache is full.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        TypeSafeRootQuery query = dao.createQuery();
+        query.from(Person.class);
+        dao.doQueryResults(query);
+
+        query = dao.createQuery();
+        query.from(Town.class);
+        dao.doQueryResults(query);
+
+        dao.doQueryResults(createPersonNameQuery("Josh"));
+
+        assertEquals(3, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Disabling the cache compiles the query on each execution.
+     */
+    @Test
+    public void testWithoutCache() {
+        dao.setCompiledQueryCache(null);
+        List<PersonDto> josh = dao.doQueryResults(createPersonNameQuery("Josh"));
+
+        assertEquals(1, josh.size());
+        assertEquals("Josh", josh.get(0).getThePersonsName());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    private TypeSafeRootQuery createPersonNameQuery(String name) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq(name);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        return query;
+    }
+}
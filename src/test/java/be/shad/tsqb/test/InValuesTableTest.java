@@ -0,0 +1,150 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.hibernate.Query;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.values.CollectionTypeSafeValue;
+
+public class InValuesTableTest extends TypeSafeQueryTest {
+
+    /**
+     * The ids are inserted in the in values table because the
+     * threshold is reached, and deleted after the query was executed.
+     */
+    @Test
+    public void testInValuesTableThreshold() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for (long i=0; i < 10; i++) {
+            Person person = creator.createTestPerson(town, "P" + i);
+            if (i % 2 == 0) {
+                ids.add(person.getId());
+            }
+        }
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.setInValuesTableThreshold(5);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids);
+        query.select(person.getId());
+
+        HqlCapturingConfigurer configurer = new HqlCapturingConfigurer();
+        List<Long> result = dao.doQueryResults(query, configurer);
+        assertEquals(new HashSet<>(ids), new HashSet<>(result));
+        assertEquals("select hobj1.id from Person hobj1 where hobj1.id in (select np1_value.numberValue "
+                + "from TypeSafeQueryInValue np1_value where np1_value.listKey = :np1)", configurer.hql);
+        assertEquals(ids.size(), configurer.inValuesCount);
+        assertInValuesTableEmpty();
+    }
+
+    /**
+     * Collections below the threshold are bound as parameter list.
+     */
+    @Test
+    public void testInValuesTableThresholdNotReached() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.setInValuesTableThreshold(5);
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids(1L, 2L));
+
+        HqlCapturingConfigurer configurer = new HqlCapturingConfigurer();
+        dao.doQueryResults(query, configurer);
+        assertEquals("from Person hobj1 where hobj1.id in (:np1)", configurer.hql);
+        assertEquals(0, configurer.inValuesCount);
+    }
+
+    /**
+     * The in values table is used for a string collection value,
+     * the values are available in the query using the string column.
+     */
+    @Test
+    public void testUsingInValuesTableExplicitly() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<String> names = new ArrayList<>();
+        for (long i=0; i < 4; i++) {
+            creator.createTestPerson(town, "P" + i);
+            if (i > 1) {
+                names.add("P" + i);
+            }
+        }
+
+        Person person = query.from(Person.class);
+        CollectionTypeSafeValue<String> value = new CollectionTypeSafeValue<>(query, String.class, names, null);
+        value.setUsingInValuesTable(true);
+        query.where(person.getName()).in(value);
+        query.select(person.getName());
+
+        validate("select hobj1.name from Person hobj1 where hobj1.name in (select np1_value.stringValue "
+                + "from TypeSafeQueryInValue np1_value where np1_value.listKey = :np1)", names);
+        assertEquals(new HashSet<>(names), new HashSet<>(doQueryResult));
+        assertInValuesTableEmpty();
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUsingInValuesTableUnsupportedType() {
+        CollectionTypeSafeValue<Double> value = new CollectionTypeSafeValue<>(query, Double.class);
+        value.setUsingInValuesTable(true);
+    }
+
+    /**
+     * Keeps the executed hql and the amount of in values while the query is executed.
+     */
+    private final class HqlCapturingConfigurer extends HibernateQueryConfigurerAdapter {
+        private String hql;
+        private long inValuesCount;
+
+        @Override
+        public void configureQuery(Query query) {
+            hql = query.getQueryString().trim();
+            inValuesCount = countInValues();
+        }
+    }
+
+    private List<Long> ids(Long... ids) {
+        List<Long> list = new ArrayList<>();
+        for(Long id: ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private long countInValues() {
+        Object count = getSessionFactory().getCurrentSession().createQuery(
+                "select count(*) from TypeSafeQueryInValue").uniqueResult();
+        return ((Number) count).longValue();
+    }
+
+    private void assertInValuesTableEmpty() {
+        assertEquals(0L, countInValues());
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.result.QueryResultIterator;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.HasId;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.dto.TownDto;
+import be.shad.tsqb.selection.collection.IdentityFieldProvider;
+
+public class IterateResultsTest extends TypeSafeQueryTest {
+    private Person josh;
+    private Person emily;
+
+    @Before
+    public void createData() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        josh = creator.createTestPerson(town, "Josh");
+        emily = creator.createTestPerson(town, "Emily");
+    }
+
+    /**
+     * Each row is transformed into a dto.
+     */
+    @Test
+    public void testIterateDtos() {
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setThePersonsName(person.getName());
+        query.orderBy().asc(person.getId());
+
+        List<PersonDto> results;
+        try (QueryResultIterator<PersonDto> it = getTypeSafeQueryDao().doQueryIterate(query, 1)) {
+            results = toList(it);
+        }
+
+        assertEquals(2, results.size());
+        assertEquals(josh.getId(), results.get(0).getId());
+        assertEquals("Josh", results.get(0).getThePersonsName());
+        assertEquals(emily.getId(), results.get(1).getId());
+        assertEquals("Emily", results.get(1).getThePersonsName());
+    }
+
+    /**
+     * A single selected value is returned as is, multiple values as array.
+     */
+    @Test
+    public void testIterateValues() {
+        Person person = query.from(Person.class);
+        query.select(person.getId());
+        query.where(person.getName()).eq("Josh");
+        try (QueryResultIterator<Long> it = getTypeSafeQueryDao().doQueryIterate(query, 10)) {
+            assertEquals(Arrays.asList(josh.getId()), toList(it));
+        }
+
+        query = createQuery();
+        person = query.from(Person.class);
+        query.select(person.getId());
+        query.select(person.getName());
+        query.where(person.getName()).eq("Josh");
+        try (QueryResultIterator<Object[]> it = getTypeSafeQueryDao().doQueryIterate(query, 10)) {
+            assertArrayEquals(new Object[] { josh.getId(), "Josh" }, it.next());
+            assertFalse(it.hasNext());
+        }
+    }
+
+    /**
+     * Results grouped by identity are completed when the identity changes,
+     * the collections contain the values of all rows of the result.
+     */
+    @Test
+    public void testIterateGroupedResults() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town otherTown = creator.createTestTown();
+        Person hank = creator.createTestPerson(otherTown, "Hank");
+
+        IdentityFieldProvider<HasId> hasIdIdentifierProvider = new IdentityFieldProvider<HasId>() {
+            @Override
+            protected Object getIdentifier(HasId resultProxy) {
+                return resultProxy.getId();
+            }
+        };
+        Town town = query.from(Town.class);
+        Person inhabitant = query.join(town.getInhabitants());
+        TownDto townDto = query.select(TownDto.class, hasIdIdentifierProvider);
+        PersonDto personDto = query.select(townDto.getInhabitants(), PersonDto.class, hasIdIdentifierProvider);
+        townDto.setId(town.getId());
+        personDto.setId(inhabitant.getId());
+        personDto.setThePersonsName(inhabitant.getName());
+        query.orderBy().asc(town.getId()).asc(inhabitant.getId());
+
+        List<TownDto> results;
+        try (QueryResultIterator<TownDto> it = getTypeSafeQueryDao().doQueryIterate(query, 1)) {
+            results = toList(it);
+        }
+
+        assertEquals(2, results.size());
+        assertEquals(josh.getTown().getId(), results.get(0).getId());
+        assertEquals(2, results.get(0).getInhabitants().size());
+        assertEquals(otherTown.getId(), results.get(1).getId());
+        assertEquals(1, results.get(1).getInhabitants().size());
+        assertEquals(hank.getId(), results.get(1).getInhabitants().iterator().next().getId());
+    }
+
+    /**
+     * The iterated entities don't remain in the persistence context of the current session.
+     */
+    @Test
+    public void testIteratedEntitiesNotManaged() {
+        Session session = getSessionFactory().getCurrentSession();
+        session.flush();
+        session.clear();
+
+        Person person = query.from(Person.class);
+        query.orderBy().asc(person.getId());
+        List<Person> results = new ArrayList<>();
+        try (QueryResultIterator<Person> it = getTypeSafeQueryDao().doQueryIterate(query, 1)) {
+            while (it.hasNext()) {
+                results.add(it.next());
+                assertEquals(0, getManagedEntityCount());
+            }
+        }
+        assertEquals(2, results.size());
+        assertEquals("Josh", results.get(0).getName());
+    }
+
+    /**
+     * With a configurer the current session is used, the entities of each row are evicted
+     * once they are transformed, the entities which were already managed are kept.
+     */
+    @Test
+    public void testIteratedEntitiesEvictedWithConfigurer() {
+        Session session = getSessionFactory().getCurrentSession();
+        session.flush();
+        session.clear();
+        Person managedJosh = (Person) session.get(Person.class, josh.getId());
+        int managedCount = getManagedEntityCount();
+
+        Person person = query.from(Person.class);
+        query.orderBy().asc(person.getId());
+        List<Person> results = new ArrayList<>();
+        try (QueryResultIterator<Person> it = getTypeSafeQueryDao().doQueryIterate(
+                query, 1, new HibernateQueryConfigurerAdapter())) {
+            while (it.hasNext()) {
+                results.add(it.next());
+                assertEquals(managedCount, getManagedEntityCount());
+            }
+        }
+        assertEquals(2, results.size());
+        assertSame(managedJosh, results.get(0));
+        assertTrue(session.contains(managedJosh));
+        assertFalse(session.contains(results.get(1)));
+    }
+
+    private int getManagedEntityCount() {
+        return ((SessionImplementor) getSessionFactory().getCurrentSession())
+                .getPersistenceContext().getNumberOfManagedEntities();
+    }
+
+    private <T> List<T> toList(QueryResultIterator<T> it) {
+        List<T> results = new ArrayList<>();
+        while (it.hasNext()) {
+            results.add(it.next());
+        }
+        return results;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static be.shad.tsqb.values.HqlQueryValueImpl.hql;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Building;
+import be.shad.tsqb.domain.House;
+import be.shad.tsqb.domain.QBuilding;
+import be.shad.tsqb.domain.QHouse;
+import be.shad.tsqb.domain.QTown;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.domain.people.QPerson;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.hql.HqlQuery;
+import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeSubQuery;
+
+/**
+ * The generated metamodel paths must build the same queries as the proxies.
+ */
+public class MetamodelPathTest extends TypeSafeQueryTest {
+
+    private void validateSameQuery(TypeSafeRootQuery proxyQuery, TypeSafeRootQuery pathQuery) {
+        HqlQuery expected = proxyQuery.toHqlQuery();
+        HqlQuery actual = pathQuery.toHqlQuery();
+        assertEquals(expected.getHql(), actual.getHql());
+        assertEquals(expected.getParams().toString(), actual.getParams().toString());
+    }
+
+    @Test
+    public void testWhereAndSelectProperty() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq("Josh").and(person.getAge()).gt(20);
+        query.select(person.getName());
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QPerson personPath = new QPerson(pathQuery);
+        pathQuery.whereString(personPath.name).eq("Josh").andNumber(personPath.age).gt(20);
+        pathQuery.select(personPath.name);
+
+        validateSameQuery(query, pathQuery);
+        validate(pathQuery, hql("select hobj1.name from Person hobj1 where hobj1.name = :np1 and hobj1.age > :np2", "Josh", 20));
+    }
+
+    @Test
+    public void testImplicitJoinPath() {
+        Person person = query.from(Person.class);
+        query.where(person.getTown().getName()).eq("Springfield");
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QPerson personPath = new QPerson(pathQuery);
+        pathQuery.whereString(personPath.town().name).eq("Springfield");
+
+        validateSameQuery(query, pathQuery);
+    }
+
+    @Test
+    public void testIdOnlyPathIsNotJoined() {
+        Person person = query.from(Person.class);
+        query.where(person.getTown().getId()).eq(1L);
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QPerson personPath = new QPerson(pathQuery);
+        pathQuery.whereNumber(personPath.town().id).eq(1L);
+
+        validateSameQuery(query, pathQuery);
+    }
+
+    @Test
+    public void testCollectionJoinPath() {
+        Town town = query.from(Town.class);
+        Building building = query.join(town.getBuildings(), JoinType.Left);
+        query.joinWith(building).where(building.getConstructionDate()).isNotNull();
+        query.where(town.getName()).eq("Springfield");
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QTown townPath = new QTown(pathQuery);
+        QBuilding buildingPath = pathQuery.join(townPath.buildings(), JoinType.Left);
+        pathQuery.joinWith(buildingPath).whereDate(buildingPath.constructionDate).isNotNull();
+        pathQuery.whereString(townPath.name).eq("Springfield");
+
+        validateSameQuery(query, pathQuery);
+    }
+
+    @Test
+    public void testComponentPath() {
+        Town town = query.from(Town.class);
+        query.where(town.getGeographicCoordinate().getLattitude()).gt(50d);
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QTown townPath = new QTown(pathQuery);
+        pathQuery.whereNumber(townPath.geographicCoordinate().lattitude).gt(50d);
+
+        validateSameQuery(query, pathQuery);
+    }
+
+    @Test
+    public void testCorrelatedSubqueryPath() {
+        House house = query.from(House.class);
+        TypeSafeSubQuery<Long> subquery = query.subquery(Long.class);
+        House houseSQ = subquery.from(House.class);
+        subquery.where(houseSQ.getName()).eq(house.getName()).
+                   and(houseSQ.getId()).notEq(house.getId());
+        query.whereExists(subquery);
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QHouse housePath = new QHouse(pathQuery);
+        TypeSafeSubQuery<Long> pathSubquery = pathQuery.subquery(Long.class);
+        QHouse housePathSQ = new QHouse(pathSubquery);
+        pathSubquery.whereString(housePathSQ.name).eq(housePath.name).
+                   and(housePathSQ.id).notEq(housePath.id);
+        pathQuery.whereExists(pathSubquery);
+
+        validateSameQuery(query, pathQuery);
+        validate(pathQuery, hql("from House hobj1 where exists (select 1 from House hobj2 "
+                + "where hobj2.name = hobj1.name and hobj2.id <> hobj1.id)"));
+    }
+
+    @Test
+    public void testSelectDtoWithPaths() {
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setThePersonsName(person.getName());
+        dto.setPersonAge(person.getAge());
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QPerson personPath = new QPerson(pathQuery);
+        PersonDto pathDto = pathQuery.select(PersonDto.class);
+        pathDto.setId(personPath.id.select());
+        pathDto.setThePersonsName(personPath.name.select());
+        pathDto.setPersonAge(personPath.age.select());
+
+        validateSameQuery(query, pathQuery);
+        validate(pathQuery, hql("select hobj1.id as id, hobj1.name as thePersonsName, "
+                + "hobj1.age as personAge from Person hobj1"));
+    }
+
+    @Test
+    public void testSelectEntityPath() {
+        Person person = query.from(Person.class);
+        query.select(person.getTown());
+
+        TypeSafeRootQuery pathQuery = createQuery();
+        QPerson personPath = new QPerson(pathQuery);
+        pathQuery.select(personPath.town());
+
+        validateSameQuery(query, pathQuery);
+        validate(pathQuery, hql("select hobj2 from Person hobj1 join hobj1.town hobj2"));
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.QueryResultCache;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.result.MultiQueryResult;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class MultiQueryTest extends TypeSafeQueryTest {
+
+    /**
+     * The queries are executed in the active transaction, the results
+     * are returned in order and the session is no longer read only afterwards.
+     */
+    @Test
+    public void testDoQueries() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+        creator.createTestPerson(town, "Emily");
+
+        TypeSafeRootQuery namesQuery = createQuery();
+        Person person = namesQuery.from(Person.class);
+        namesQuery.where(person.getTown().getId()).eq(town.getId());
+        namesQuery.select(person.getName());
+        namesQuery.orderBy().asc(person.getName());
+
+        TypeSafeRootQuery countQuery = createQuery();
+        Person countedPerson = countQuery.from(Person.class);
+        countQuery.where(countedPerson.getTown().getId()).eq(town.getId());
+        countQuery.select(countQuery.hqlFunction().count());
+
+        TypeSafeRootQuery townQuery = createQuery();
+        Town townPx = townQuery.from(Town.class);
+        townQuery.where(townPx.getId()).eq(town.getId());
+
+        MultiQueryResult result = getTypeSafeQueryDao().doQueries(namesQuery, countQuery, townQuery);
+
+        assertEquals(3, result.size());
+        assertEquals(Arrays.asList("Emily", "Josh"), result.getResult(0).getResults());
+        assertEquals(Long.valueOf(2), result.getResult(1).getFirstResult());
+        Town resultTown = result.<Town>getResult(2).getFirstResult();
+        assertEquals(town.getId(), resultTown.getId());
+        assertFalse(getSessionFactory().getCurrentSession().isDefaultReadOnly());
+        assertTrue(result.getExecutionTime(0, TimeUnit.NANOSECONDS) > 0);
+        assertTrue(result.getTotalExecutionTime(TimeUnit.NANOSECONDS)
+                >= result.getExecutionTime(0, TimeUnit.NANOSECONDS));
+        assertEquals(TransactionStatus.ACTIVE, getSessionFactory().getCurrentSession().getTransaction().getStatus());
+    }
+
+    /**
+     * A transaction is started for the queries when no transaction is active.
+     */
+    @Test
+    public void testDoQueriesWithoutActiveTransaction() {
+        TypeSafeRootQuery townQuery = createQuery();
+        townQuery.from(Town.class);
+        TypeSafeRootQuery personQuery = createQuery();
+        personQuery.from(Person.class);
+
+        Session session = getSessionFactory().getCurrentSession();
+        session.getTransaction().commit();
+        try {
+            MultiQueryResult result = getTypeSafeQueryDao().doQueries(townQuery, personQuery);
+            assertEquals(2, result.size());
+        } finally {
+            getSessionFactory().getCurrentSession().beginTransaction();
+        }
+    }
+
+    /**
+     * The connection is read-only for the transaction which is started for the queries,
+     * it is no longer read-only when the transaction is completed.
+     */
+    @Test
+    public void testDoQueriesTransactionIsReadOnly() throws SQLException {
+        TypeSafeRootQuery townQuery = createQuery();
+        townQuery.from(Town.class);
+
+        final List<Connection> connections = new ArrayList<>();
+        final List<Boolean> readOnly = new ArrayList<>();
+        Session session = getSessionFactory().getCurrentSession();
+        session.getTransaction().commit();
+        try {
+            getTypeSafeQueryDao().doQueries(Arrays.asList(townQuery), new HibernateQueryConfigurerAdapter() {
+                @Override
+                public void beforeQuery(Session session) {
+                    session.doWork(new Work() {
+                        @Override
+                        public void execute(Connection connection) throws SQLException {
+                            connections.add(connection);
+                            readOnly.add(connection.isReadOnly());
+                        }
+                    });
+                }
+            });
+        } finally {
+            getSessionFactory().getCurrentSession().beginTransaction();
+        }
+        assertEquals(Arrays.asList(true), readOnly);
+        assertFalse(connections.get(0).isReadOnly());
+    }
+
+    /**
+     * The connection isn't read-only when a query fills the in values table.
+     */
+    @Test
+    public void testDoQueriesWithInValuesTable() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.setInValuesTableThreshold(2);
+        TypeSafeRootQuery namesQuery = dao.createQuery();
+        Person person = namesQuery.from(Person.class);
+        namesQuery.where(person.getName()).in(Arrays.asList("Josh", "Emily", "Adam"));
+        namesQuery.select(person.getName());
+
+        Session session = getSessionFactory().getCurrentSession();
+        session.getTransaction().commit();
+        try {
+            MultiQueryResult result = dao.doQueries(namesQuery);
+            assertEquals(1, result.size());
+        } finally {
+            getSessionFactory().getCurrentSession().beginTransaction();
+        }
+    }
+
+    /**
+     * The entities loaded in the active transaction of the caller are not read-only,
+     * the caller may still change them.
+     */
+    @Test
+    public void testDoQueriesInActiveTransactionDoesntLoadReadOnly() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        Session session = getSessionFactory().getCurrentSession();
+        session.flush();
+        session.clear();
+
+        TypeSafeRootQuery townQuery = createQuery();
+        Town townPx = townQuery.from(Town.class);
+        townQuery.where(townPx.getId()).eq(town.getId());
+
+        Town loadedTown = getTypeSafeQueryDao().doQueries(townQuery).<Town>getResult(0).getFirstResult();
+        assertFalse(session.isReadOnly(loadedTown));
+    }
+
+    /**
+     * Cacheable queries use the query result cache of the dao.
+     */
+    @Test
+    public void testDoQueriesUsesResultCache() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        QueryResultCache cache = new QueryResultCache();
+        dao.setQueryResultCache(cache);
+
+        for(int i=0; i < 2; i++) {
+            TypeSafeRootQuery namesQuery = dao.createQuery();
+            Person person = namesQuery.from(Person.class);
+            namesQuery.select(person.getName());
+            namesQuery.setCacheable(true);
+            dao.doQueries(namesQuery);
+        }
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.HibernateQueryConfigurerAdapter;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.result.PagedQueryResult;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class PagedQueryTest extends TypeSafeQueryTest {
+
+    @Test
+    public void testCountQueryWithoutProjectionsAndOrderBys() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq("Josh");
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        query.orderBy().asc(person.getAge());
+
+        validateCount("select count(hobj1) from Person hobj1 where hobj1.name = :np1");
+    }
+
+    @Test
+    public void testCountQueryLeavesOutFetchOnlyJoins() {
+        Person person = query.from(Person.class);
+        query.join(person.getTown().getProperties(), JoinType.LeftFetch);
+        query.join(person.getSpouse(), JoinType.LeftFetch);
+        query.where(person.getName()).eq("Josh");
+
+        validateCount("select count(hobj1) from Person hobj1 join hobj1.town hobj2 where hobj1.name = :np1");
+    }
+
+    @Test
+    public void testCountQueryKeepsUsedLeftFetchJoinWithoutFetching() {
+        Person person = query.from(Person.class);
+        Person spouse = query.join(person.getSpouse(), JoinType.LeftFetch);
+        query.where(spouse.getName()).eq("Josh");
+
+        validateCount("select count(hobj1) from Person hobj1 left join hobj1.spouse hobj2 where hobj2.name = :np1");
+    }
+
+    @Test
+    public void testCountQueryJoinsFetchJoinWithoutFetching() {
+        Person person = query.from(Person.class);
+        query.join(person.getTown(), JoinType.Fetch);
+
+        validateCount("select count(hobj1) from Person hobj1 join hobj1.town hobj2");
+    }
+
+    @Test
+    public void testCountQueryCountsDistinctWhenJoiningCollection() {
+        Person person = query.from(Person.class);
+        query.join(person.getProperties(), JoinType.Inner);
+
+        validateCount("select count(distinct hobj1) from Person hobj1 join hobj1.properties hobj2");
+    }
+
+    @Test
+    public void testCountQueryLeavesOutFetchOnlyCollectionJoin() {
+        Person person = query.from(Person.class);
+        query.join(person.getProperties(), JoinType.LeftFetch);
+
+        validateCount("select count(hobj1) from Person hobj1");
+    }
+
+    @Test
+    public void testCountQueryCountsRowsOfMultipleFroms() {
+        Person person = query.from(Person.class);
+        Town town = query.from(Town.class);
+        query.where(person.getTown().getId()).eq(town.getId());
+
+        validateCount("select count(hobj1) from Person hobj1, Town hobj2 where hobj1.town.id = hobj2.id");
+    }
+
+    /**
+     * Counting the distinct first root would miss the rows of the other roots.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testCountQueryOfMultipleFromsJoiningCollectionFails() {
+        Person person = query.from(Person.class);
+        query.from(Town.class);
+        query.join(person.getProperties(), JoinType.Inner);
+
+        query.toCountHqlQuery();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCountQueryOfGroupedQueryFails() {
+        Person person = query.from(Person.class);
+        query.select(person.getName());
+        query.groupBy(person.getName());
+
+        query.toCountHqlQuery();
+    }
+
+    @Test
+    public void testDoQueryPage() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        for(String name: Arrays.asList("Emma", "Anna", "Dave", "Bob", "Carl")) {
+            creator.createTestPerson(town, name);
+        }
+
+        TypeSafeRootQuery peopleQuery = createPeopleQuery(getTypeSafeQueryDao().createQuery(), town);
+        peopleQuery.setFirstResult(2);
+        peopleQuery.setMaxResults(2);
+
+        PagedQueryResult<Person> page = getTypeSafeQueryDao().doQueryPage(peopleQuery);
+        assertEquals(Arrays.asList("Carl", "Dave"), getNames(page.getResults()));
+        assertEquals(2, page.getOffset());
+        assertEquals(5, page.getTotalCount());
+        assertTrue(page.hasNextPage());
+
+        peopleQuery.setFirstResult(4);
+        page = getTypeSafeQueryDao().doQueryPage(peopleQuery);
+        assertEquals(Arrays.asList("Emma"), getNames(page.getResults()));
+        assertEquals(5, page.getTotalCount());
+        assertFalse(page.hasNextPage());
+    }
+
+    /**
+     * Counting concurrently must give the same total as counting after the page query.
+     * The data is committed because the stateless session doesn't see changes of the current transaction,
+     * the results are only counted concurrently when the current connection is read-only.
+     */
+    @Test
+    public void testDoQueryPageCountedConcurrently() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Person> persons = new ArrayList<>();
+        for(String name: Arrays.asList("Emma", "Anna", "Dave", "Bob", "Carl")) {
+            persons.add(creator.createTestPerson(town, name));
+        }
+        getSessionFactory().getCurrentSession().getTransaction().commit();
+        getSessionFactory().getCurrentSession().beginTransaction();
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        try {
+            setReadOnly(true);
+            TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+            dao.setPageCountExecutor(executor);
+            TypeSafeRootQuery peopleQuery = createPeopleQuery(dao.createQuery(), town);
+            peopleQuery.setMaxResults(2);
+
+            PagedQueryResult<Person> page = dao.doQueryPage(peopleQuery);
+            assertEquals(Arrays.asList("Anna", "Bob"), getNames(page.getResults()));
+            assertEquals(5, page.getTotalCount());
+            assertEquals(0, page.getOffset());
+            assertEquals(1, executor.getTaskCount());
+        } finally {
+            executor.shutdown();
+            setReadOnly(false);
+            Session session = getSessionFactory().getCurrentSession();
+            session.clear();
+            for(Person person: persons) {
+                session.delete(person);
+            }
+            session.delete(town);
+            session.getTransaction().commit();
+            getSessionFactory().getCurrentSession().beginTransaction();
+        }
+    }
+
+    /**
+     * The changes of the current transaction are counted, the count executor
+     * isn't used because its connection wouldn't see the changes.
+     */
+    @Test
+    public void testDoQueryPageCountsUncommittedChanges() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        for(String name: Arrays.asList("Emma", "Anna", "Dave")) {
+            creator.createTestPerson(town, name);
+        }
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        try {
+            TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+            dao.setPageCountExecutor(executor);
+            TypeSafeRootQuery peopleQuery = createPeopleQuery(dao.createQuery(), town);
+            peopleQuery.setMaxResults(2);
+
+            PagedQueryResult<Person> page = dao.doQueryPage(peopleQuery);
+            assertEquals(Arrays.asList("Anna", "Dave"), getNames(page.getResults()));
+            assertEquals(3, page.getTotalCount());
+            assertEquals(0, executor.getTaskCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The configurer is applied to the count query as well.
+     */
+    @Test
+    public void testDoQueryPageConfiguresCountQuery() {
+        final List<Query> configuredQueries = new ArrayList<>();
+        final int[] beforeQueryCount = { 0 };
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq("Josh");
+        query.setMaxResults(2);
+
+        getTypeSafeQueryDao().doQueryPage(query, new HibernateQueryConfigurerAdapter() {
+            @Override
+            public void beforeQuery(Session session) {
+                beforeQueryCount[0]++;
+            }
+
+            @Override
+            public void configureQuery(Query query) {
+                configuredQueries.add(query);
+            }
+        });
+        assertEquals(2, beforeQueryCount[0]);
+        assertEquals(2, configuredQueries.size());
+        assertEquals("select count(hobj1) from Person hobj1 where hobj1.name = :np1",
+                configuredQueries.get(1).getQueryString());
+    }
+
+    /**
+     * The counts of chunks can't be added up, a town with inhabitants in
+     * several chunks would be counted once per chunk.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testDoQueryPageWithChunkedParamFails() {
+        Town town = query.from(Town.class);
+        Person inhabitant = query.join(town.getInhabitants());
+        query.where(inhabitant.getName()).in(Arrays.asList("Josh", "Emma", "Anna"), 2);
+        query.setMaxResults(2);
+
+        getTypeSafeQueryDao().doQueryPage(query);
+    }
+
+    /**
+     * The read-only mode of the connection can't be changed in the middle of
+     * a transaction, the queries which were executed so far are committed first.
+     */
+    private void setReadOnly(final boolean readOnly) {
+        getSessionFactory().getCurrentSession().doWork(new Work() {
+            @Override
+            public void execute(Connection connection) throws SQLException {
+                connection.commit();
+                connection.setReadOnly(readOnly);
+            }
+        });
+    }
+
+    private TypeSafeRootQuery createPeopleQuery(TypeSafeRootQuery peopleQuery, Town town) {
+        Person person = peopleQuery.from(Person.class);
+        peopleQuery.join(person.getTown(), JoinType.LeftFetch);
+        peopleQuery.where(person.getTown().getId()).eq(town.getId());
+        peopleQuery.orderBy().asc(person.getName());
+        return peopleQuery;
+    }
+
+    private List<String> getNames(List<Person> persons) {
+        List<String> names = new ArrayList<>();
+        for(Person person: persons) {
+            names.add(person.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Validates the count hql and checks it can be executed.
+     */
+    private void validateCount(String expectedHql) {
+        assertEquals(expectedHql, query.toCountHqlQuery().getHql());
+        getTypeSafeQueryDao().doQueryPage(query);
+    }
+}
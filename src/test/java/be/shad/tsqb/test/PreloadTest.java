@@ -0,0 +1,115 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDao;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Product;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+import be.shad.tsqb.proxy.TypeSafeQueryProxyFactory;
+import be.shad.tsqb.proxy.TypeSafeQueryProxyType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class PreloadTest extends TypeSafeQueryTest {
+
+    /**
+     * The proxy classes are only generated once.
+     */
+    @Test
+    public void testPreload() {
+        TypeSafeQueryHelperImpl helper = new TypeSafeQueryHelperImpl(getSessionFactory());
+        assertTrue(helper.preload() > 0);
+        assertEquals(0, helper.preload());
+    }
+
+    /**
+     * Preloading with an executor generates the same proxy classes
+     * and the preloaded classes are used to build queries.
+     */
+    @Test
+    public void testPreloadWithExecutor() {
+        int expected = new TypeSafeQueryHelperImpl(getSessionFactory()).preload();
+        TypeSafeQueryHelperImpl helper = new TypeSafeQueryHelperImpl(getSessionFactory());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(expected, helper.preload(executor));
+        } finally {
+            executor.shutdown();
+        }
+
+        TypeSafeQueryDao dao = new TypeSafeQueryDaoImpl(getSessionFactory(), helper);
+        TypeSafeRootQuery query = dao.createQuery();
+        Town town = query.from(Town.class);
+        Person inhabitant = query.join(town.getInhabitants());
+        query.where(town.getGeographicCoordinate().getLattitude()).gt(50d).
+            and(inhabitant.getName()).eq("Josh");
+        dao.doQuery(query);
+
+        query = dao.createQuery();
+        Product product = query.from(Product.class);
+        query.where(product.getProductProperties().getPlanning().getAlgorithm()).eq("Fast");
+        dao.doQuery(query);
+    }
+
+    /**
+     * A proxy class requested by several threads at once is only created once.
+     */
+    @Test
+    public void testProxyClassCreatedOnceConcurrently() throws Exception {
+        final TypeSafeQueryProxyFactory proxyFactory = new TypeSafeQueryProxyFactory();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for(int i = 0; i < 8; i++) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        start.await();
+                        return proxyFactory.preloadProxyClass(Town.class, TypeSafeQueryProxyType.EntityType);
+                    }
+                }));
+            }
+            start.countDown();
+            int created = 0;
+            for(Future<Boolean> future: futures) {
+                if (future.get()) {
+                    created++;
+                }
+            }
+            assertEquals(1, created);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(proxyFactory.getProxy(Town.class, TypeSafeQueryProxyType.EntityType).getClass(),
+                proxyFactory.getProxy(Town.class, TypeSafeQueryProxyType.EntityType).getClass());
+    }
+}
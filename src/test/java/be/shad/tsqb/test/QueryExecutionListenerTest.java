@@ -0,0 +1,127 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import be.shad.tsqb.dao.QueryExecution;
+import be.shad.tsqb.dao.QueryExecutionListener;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class QueryExecutionListenerTest extends TypeSafeQueryTest {
+
+    private static class CollectingListener implements QueryExecutionListener {
+        private final List<QueryExecution> executions = new ArrayList<>();
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void queryExecuted(QueryExecution execution) {
+            executions.add(execution);
+        }
+    }
+
+    /**
+     * The listener receives the fingerprint, the row counts and the time of each phase.
+     */
+    @Test
+    public void testQueryExecuted() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+        creator.createTestPerson(town, "Emily");
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        CollectingListener listener = new CollectingListener();
+        dao.addQueryExecutionListener(listener);
+
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getTown().getId()).eq(town.getId());
+        query.select(person.getName());
+        assertEquals(2, dao.doQueryResults(query).size());
+
+        assertEquals(1, listener.executions.size());
+        QueryExecution execution = listener.executions.get(0);
+        assertEquals(query.toHqlQuery().getHql(), execution.getHql());
+        assertEquals(1, execution.getChunkCount());
+        assertEquals(2, execution.getRowCount());
+        assertEquals(2, execution.getResultCount());
+        assertNull(execution.getFailure());
+        assertTrue(execution.getBuildTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(execution.getListTime(TimeUnit.NANOSECONDS) > 0);
+        assertEquals(execution.getTotalTime(TimeUnit.NANOSECONDS),
+                execution.getBuildTime(TimeUnit.NANOSECONDS) + execution.getBindTime(TimeUnit.NANOSECONDS)
+                + execution.getListTime(TimeUnit.NANOSECONDS) + execution.getTransformTime(TimeUnit.NANOSECONDS));
+
+        // the same shape with other param values has the same fingerprint:
+        TypeSafeRootQuery otherQuery = dao.createQuery();
+        Person otherPerson = otherQuery.from(Person.class);
+        otherQuery.where(otherPerson.getTown().getId()).eq(town.getId() + 1);
+        otherQuery.select(otherPerson.getName());
+        dao.doQueryResults(otherQuery);
+        assertEquals(execution.getFingerprint(), listener.executions.get(1).getFingerprint());
+
+        dao.removeQueryExecutionListener(listener);
+        dao.doQueryResults(query);
+        assertEquals(2, listener.executions.size());
+    }
+
+    /**
+     * The chunks are counted and the single column rows of all chunks
+     * are transformed into dtos after they were listed.
+     */
+    @Test
+    public void testChunkedQueryExecuted() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = new ArrayList<>();
+        for(int i=0; i < 5; i++) {
+            ids.add(creator.createTestPerson(town, "P" + i).getId());
+        }
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        CollectingListener listener = new CollectingListener();
+        dao.addQueryExecutionListener(listener);
+
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids, 2);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setThePersonsName(person.getName());
+        List<PersonDto> results = dao.doQueryResults(query);
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).getThePersonsName().startsWith("P"));
+        QueryExecution execution = listener.executions.get(0);
+        assertEquals(3, execution.getChunkCount());
+        assertEquals(5, execution.getRowCount());
+        assertEquals(5, execution.getResultCount());
+    }
+}
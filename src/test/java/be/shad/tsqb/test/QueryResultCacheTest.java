@@ -0,0 +1,409 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.QueryResultCache;
+import be.shad.tsqb.dao.QueryResultCache.EvictionPolicy;
+import be.shad.tsqb.dao.QueryResultCacheInvalidator;
+import be.shad.tsqb.dao.QueryResultCacheKey;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.TypeSafeQueryFingerprint;
+import be.shad.tsqb.dao.result.QueryResult;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.helper.TypeSafeQueryHelperImpl;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeSubQuery;
+
+/**
+ * The data is committed because changes of a transaction
+ * which isn't completed yet are not cached.
+ * <p>
+ * Uses its own session factory and database, the invalidator
+ * must not remain registered on the session factory of the other tests.
+ */
+public class QueryResultCacheTest extends TypeSafeQueryTest {
+    private static SessionFactory sessionFactory;
+    private static TypeSafeQueryHelperImpl helper;
+    private static QueryResultCache cache;
+
+    private TypeSafeQueryDaoImpl dao;
+    private Town town;
+    private List<Person> persons = new ArrayList<>();
+
+    @BeforeClass
+    public static void createSessionFactory() {
+        Configuration config = new Configuration();
+        config.configure("be/shad/tsqb/tests/hibernate.cfg.xml");
+        config.setProperty("hibernate.connection.url", "jdbc:hsqldb:mem:resultcachedb;shutdown=false");
+        sessionFactory = config.buildSessionFactory();
+        helper = new TypeSafeQueryHelperImpl(sessionFactory);
+        cache = new QueryResultCache();
+        new QueryResultCacheInvalidator(cache).register(sessionFactory);
+    }
+
+    @AfterClass
+    public static void closeSessionFactory() {
+        sessionFactory.close();
+        sessionFactory = null;
+    }
+
+    @Override
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    @Override
+    public TypeSafeQueryHelperImpl getHelper() {
+        return helper;
+    }
+
+    @Before
+    public void createData() {
+        getSessionFactory().getCurrentSession().beginTransaction();
+        cache.clear();
+        dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.setQueryResultCache(cache);
+
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        town = creator.createTestTown();
+        for(String name: Arrays.asList("Josh", "Emily")) {
+            persons.add(creator.createTestPerson(town, name));
+        }
+        commit();
+    }
+
+    @After
+    public void deleteData() {
+        Session session = getSessionFactory().getCurrentSession();
+        session.clear();
+        for(Person person: persons) {
+            session.delete(person);
+        }
+        session.delete(town);
+        commit();
+        getSessionFactory().getCurrentSession().getTransaction().rollback();
+    }
+
+    @Test
+    public void testCacheableQueryResultsCached() {
+        long hitCount = cache.getHitCount();
+        List<String> names = dao.doQueryResults(createNamesQuery());
+        List<String> cachedNames = dao.doQueryResults(createNamesQuery());
+
+        assertEquals(Arrays.asList("Emily", "Josh"), names);
+        assertEquals(names, cachedNames);
+        assertEquals(1, cache.size());
+        assertEquals(hitCount + 1, cache.getHitCount());
+    }
+
+    @Test
+    public void testParamValuesArePartOfTheKey() {
+        TypeSafeRootQuery joshQuery = createNamesQuery("Josh");
+        TypeSafeRootQuery emilyQuery = createNamesQuery("Emily");
+
+        assertEquals(Arrays.asList("Josh"), dao.doQueryResults(joshQuery));
+        assertEquals(Arrays.asList("Emily"), dao.doQueryResults(emilyQuery));
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Changing the collection after querying doesn't change the key of the cached result.
+     */
+    @Test
+    public void testCollectionParamValuesCopiedIntoTheKey() {
+        long hitCount = cache.getHitCount();
+        List<String> names = new ArrayList<>(Arrays.asList("Josh"));
+        assertEquals(Arrays.asList("Josh"), dao.doQueryResults(createNamesInQuery(names)));
+        names.add("Emily");
+
+        assertEquals(Arrays.asList("Emily", "Josh"), dao.doQueryResults(createNamesInQuery(names)));
+        assertEquals(2, cache.size());
+        assertEquals(hitCount, cache.getHitCount());
+    }
+
+    /**
+     * Each caller gets its own list, which can't be modified.
+     */
+    @Test
+    public void testCachedResultsCopied() {
+        dao.doQueryResults(createNamesQuery());
+        List<String> cachedNames = dao.doQueryResults(createNamesQuery());
+        List<String> otherCachedNames = dao.doQueryResults(createNamesQuery());
+
+        assertNotSame(cachedNames, otherCachedNames);
+        try {
+            cachedNames.clear();
+            fail("The cached results were modified.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Entities are managed by the session which queried them, they are not shared.
+     */
+    @Test
+    public void testQuerySelectingEntitiesIsNotCached() {
+        TypeSafeRootQuery personsQuery = dao.createQuery();
+        Person person = personsQuery.from(Person.class);
+        personsQuery.where(person.getTown().getId()).eq(town.getId());
+        personsQuery.setCacheable(true);
+
+        assertEquals(2, dao.doQueryResults(personsQuery).size());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Entities wrapped in a function are managed by the session as well.
+     */
+    @Test
+    public void testQuerySelectingDistinctEntitiesIsNotCached() {
+        TypeSafeRootQuery townQuery = dao.createQuery();
+        Person person = townQuery.from(Person.class);
+        townQuery.where(person.getTown().getId()).eq(town.getId());
+        townQuery.select(townQuery.hqlFunction().distinct(person.getTown()));
+        townQuery.setCacheable(true);
+
+        assertEquals(1, dao.doQueryResults(townQuery).size());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testQueryNotMarkedCacheableIsNotCached() {
+        TypeSafeRootQuery namesQuery = createNamesQuery();
+        namesQuery.setCacheable(false);
+        dao.doQueryResults(namesQuery);
+
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * The cached results are evicted when a queried entity is updated.
+     */
+    @Test
+    public void testResultsEvictedWhenEntityUpdated() {
+        dao.doQueryResults(createNamesQuery());
+        assertEquals(1, cache.size());
+
+        Person josh = (Person) getSessionFactory().getCurrentSession().get(Person.class, persons.get(0).getId());
+        josh.setName("Adam");
+        commit();
+        assertEquals(0, cache.size());
+
+        List<String> names = dao.doQueryResults(createNamesQuery());
+        assertEquals(Arrays.asList("Adam", "Emily"), names);
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * The entities of the subqueries are queried as well.
+     */
+    @Test
+    public void testResultsEvictedWhenSubqueryEntityUpdated() {
+        TypeSafeRootQuery townQuery = createTownWithJoshQuery();
+        assertEquals(1, dao.doQueryResults(townQuery).size());
+        assertEquals(1, cache.size());
+
+        Person josh = (Person) getSessionFactory().getCurrentSession().get(Person.class, persons.get(0).getId());
+        josh.setName("Adam");
+        commit();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, dao.doQueryResults(createTownWithJoshQuery()).size());
+    }
+
+    /**
+     * The changes of a transaction aren't cached until the transaction is completed,
+     * otherwise the changes would remain cached when the transaction is rolled back.
+     */
+    @Test
+    public void testResultsNotCachedWhileTransactionChangesEntity() {
+        Session session = getSessionFactory().getCurrentSession();
+        Person josh = (Person) session.get(Person.class, persons.get(0).getId());
+        josh.setName("Adam");
+        session.flush();
+
+        assertEquals(Arrays.asList("Adam", "Emily"), dao.doQueryResults(createNamesQuery()));
+        assertEquals(0, cache.size());
+
+        session.getTransaction().rollback();
+        session = getSessionFactory().getCurrentSession();
+        session.beginTransaction();
+        assertEquals(Arrays.asList("Emily", "Josh"), dao.doQueryResults(createNamesQuery()));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Unflushed changes are flushed before the cache is used,
+     * the cached results of the changed entity are not returned.
+     */
+    @Test
+    public void testUnflushedChangesNotReadFromCache() {
+        dao.doQueryResults(createNamesQuery());
+        assertEquals(1, cache.size());
+
+        Session session = getSessionFactory().getCurrentSession();
+        Person josh = (Person) session.get(Person.class, persons.get(0).getId());
+        josh.setName("Adam");
+
+        assertEquals(Arrays.asList("Adam", "Emily"), dao.doQueryResults(createNamesQuery()));
+        assertEquals(0, cache.size());
+        session.getTransaction().rollback();
+        getSessionFactory().getCurrentSession().beginTransaction();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvicted() {
+        QueryResultCache lruCache = new QueryResultCache(2, 0, TimeUnit.SECONDS, EvictionPolicy.LRU);
+        putResult(lruCache, "a");
+        putResult(lruCache, "b");
+        lruCache.get(key("a"));
+        putResult(lruCache, "c");
+
+        assertNotNull(lruCache.get(key("a")));
+        assertNull(lruCache.get(key("b")));
+        assertNotNull(lruCache.get(key("c")));
+        assertEquals(1, lruCache.getEvictionCount());
+    }
+
+    @Test
+    public void testLeastFrequentlyUsedEvicted() {
+        QueryResultCache lfuCache = new QueryResultCache(2, 0, TimeUnit.SECONDS, EvictionPolicy.LFU);
+        putResult(lfuCache, "a");
+        putResult(lfuCache, "b");
+        lfuCache.get(key("a"));
+        lfuCache.get(key("a"));
+        lfuCache.get(key("b"));
+        putResult(lfuCache, "c");
+
+        assertNotNull(lfuCache.get(key("a")));
+        assertNull(lfuCache.get(key("b")));
+        assertNotNull(lfuCache.get(key("c")));
+    }
+
+    @Test
+    public void testExpiredResultEvicted() {
+        final long[] now = { 0 };
+        QueryResultCache ttlCache = new QueryResultCache(2, 10, TimeUnit.SECONDS, EvictionPolicy.LRU) {
+            @Override
+            protected long nanoTime() {
+                return now[0];
+            }
+        };
+        putResult(ttlCache, "a");
+        now[0] = TimeUnit.SECONDS.toNanos(9);
+        assertNotNull(ttlCache.get(key("a")));
+        now[0] = TimeUnit.SECONDS.toNanos(10);
+        assertNull(ttlCache.get(key("a")));
+        assertEquals(0, ttlCache.size());
+    }
+
+    /**
+     * A result which was queried before an invalidation is not cached.
+     */
+    @Test
+    public void testResultQueriedBeforeInvalidationNotCached() {
+        QueryResultCache staleCache = new QueryResultCache();
+        long invalidationCount = staleCache.getInvalidationCount();
+        staleCache.evict(Person.class);
+        staleCache.put(key("a"), new QueryResult<>(Arrays.asList("a")),
+                Collections.<Class<?>>singleton(Person.class), invalidationCount);
+
+        assertEquals(0, staleCache.size());
+    }
+
+    private void putResult(QueryResultCache resultCache, String hql) {
+        Set<Class<?>> entityClasses = Collections.<Class<?>>singleton(Person.class);
+        resultCache.put(key(hql), new QueryResult<>(Arrays.asList(hql)),
+                entityClasses, resultCache.getInvalidationCount());
+    }
+
+    private QueryResultCacheKey key(String hql) {
+        return new QueryResultCacheKey(new TypeSafeQueryFingerprint(hql,
+                Collections.emptyList()), Collections.emptyList(), -1, -1);
+    }
+
+    private TypeSafeRootQuery createNamesQuery() {
+        return createNamesQuery(null);
+    }
+
+    private TypeSafeRootQuery createNamesQuery(String name) {
+        TypeSafeRootQuery namesQuery = dao.createQuery();
+        Person person = namesQuery.from(Person.class);
+        namesQuery.where(person.getTown().getId()).eq(town.getId());
+        if (name != null) {
+            namesQuery.where(person.getName()).eq(name);
+        }
+        namesQuery.select(person.getName());
+        namesQuery.orderBy().asc(person.getName());
+        namesQuery.setCacheable(true);
+        return namesQuery;
+    }
+
+    private TypeSafeRootQuery createNamesInQuery(List<String> names) {
+        TypeSafeRootQuery namesQuery = dao.createQuery();
+        Person person = namesQuery.from(Person.class);
+        namesQuery.where(person.getTown().getId()).eq(town.getId()).
+            and(person.getName()).in(names);
+        namesQuery.select(person.getName());
+        namesQuery.orderBy().asc(person.getName());
+        namesQuery.setCacheable(true);
+        return namesQuery;
+    }
+
+    private TypeSafeRootQuery createTownWithJoshQuery() {
+        TypeSafeRootQuery townQuery = dao.createQuery();
+        Town townPx = townQuery.from(Town.class);
+        TypeSafeSubQuery<Long> joshQuery = townQuery.subquery(Long.class);
+        Person josh = joshQuery.from(Person.class);
+        joshQuery.where(josh.getTown().getId()).eq(townPx.getId()).
+            and(josh.getName()).eq("Josh");
+        joshQuery.select(josh.getId());
+        townQuery.whereExists(joshQuery);
+        townQuery.where(townPx.getId()).eq(town.getId());
+        townQuery.select(townPx.getId());
+        townQuery.setCacheable(true);
+        return townQuery;
+    }
+
+    private void commit() {
+        getSessionFactory().getCurrentSession().getTransaction().commit();
+        getSessionFactory().getCurrentSession().beginTransaction();
+    }
+}
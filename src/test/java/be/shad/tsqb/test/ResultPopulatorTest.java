@@ -0,0 +1,197 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.junit.Test;
+
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.selection.SelectionTree;
+import be.shad.tsqb.selection.populator.ReflectionResultPopulator;
+import be.shad.tsqb.selection.populator.ResultPopulator;
+import be.shad.tsqb.selection.populator.ResultPopulatorFactory;
+
+public class ResultPopulatorTest extends TypeSafeQueryTest {
+
+    /**
+     * Private fields are set using their setter handles, the populator is reused for the same fields.
+     */
+    @Test
+    public void testGeneratedPopulatorAssigningPrivateFields() throws Exception {
+        ResultPopulatorFactory factory = getHelper().getResultPopulatorFactory();
+        Field[] fields = fields(PersonDto.class, "id", "thePersonsName", "personAge");
+        ResultPopulator populator = factory.getPopulator(PersonDto.class, fields);
+        assertFalse(populator instanceof ReflectionResultPopulator);
+        assertSame(populator, factory.getPopulator(PersonDto.class, fields(PersonDto.class,
+                "id", "thePersonsName", "personAge")));
+
+        PersonDto dto = (PersonDto) populator.newInstance();
+        populator.setValue(dto, 0, 5L);
+        populator.setValue(dto, 1, "Josh");
+        populator.setValue(dto, 2, 25);
+        assertEquals(Long.valueOf(5L), dto.getId());
+        assertEquals("Josh", dto.getThePersonsName());
+        assertEquals(25, dto.getPersonAge());
+
+        populator.setValue(dto, 1, null);
+        assertNull(dto.getThePersonsName());
+    }
+
+    /**
+     * Values which can't be assigned directly are set using reflection,
+     * so the same conversions and exceptions apply.
+     */
+    @Test
+    public void testGeneratedPopulatorFallsBackToReflection() throws Exception {
+        ResultPopulator populator = getHelper().getResultPopulatorFactory().getPopulator(
+                PersonDto.class, fields(PersonDto.class, "personAge"));
+        PersonDto dto = (PersonDto) populator.newInstance();
+        // widening a short to int:
+        populator.setValue(dto, 0, (short) 3);
+        assertEquals(3, dto.getPersonAge());
+        try {
+            populator.setValue(dto, 0, null);
+            throw new AssertionError("null can't be set on a primitive field.");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Package private fields without setter are assigned directly.
+     */
+    @Test
+    public void testGeneratedPopulatorAssigningFields() throws Exception {
+        ResultPopulator populator = getHelper().getResultPopulatorFactory().getPopulator(
+                PackageFieldsDto.class, fields(PackageFieldsDto.class, "name", "age"));
+        assertFalse(populator instanceof ReflectionResultPopulator);
+
+        PackageFieldsDto dto = (PackageFieldsDto) populator.newInstance();
+        populator.setValue(dto, 0, "Josh");
+        populator.setValue(dto, 1, 25L);
+        assertEquals("Josh", dto.name);
+        assertEquals(25L, dto.age);
+    }
+
+    /**
+     * Private fields are assigned like reflection does, their setter isn't called.
+     */
+    @Test
+    public void testGeneratedPopulatorDoesntCallSetters() throws Exception {
+        Field[] fields = fields(PrivateFieldsDto.class, "name");
+        ResultPopulator populator = getHelper().getResultPopulatorFactory().getPopulator(
+                PrivateFieldsDto.class, fields);
+        assertFalse(populator instanceof ReflectionResultPopulator);
+
+        PrivateFieldsDto dto = (PrivateFieldsDto) populator.newInstance();
+        populator.setValue(dto, 0, "Josh");
+        PrivateFieldsDto reflectionDto = new PrivateFieldsDto();
+        new ReflectionResultPopulator(PrivateFieldsDto.class, fields).setValue(reflectionDto, 0, "Josh");
+        assertEquals("Josh", dto.getName());
+        assertEquals(reflectionDto.getName(), dto.getName());
+    }
+
+    /**
+     * Populators of different factories don't share generated class names.
+     */
+    @Test
+    public void testGeneratedPopulatorsOfDifferentFactories() throws Exception {
+        Field[] fields = fields(PackageFieldsDto.class, "name");
+        ResultPopulator populator = new ResultPopulatorFactory().getPopulator(PackageFieldsDto.class, fields);
+        ResultPopulator otherPopulator = new ResultPopulatorFactory().getPopulator(PackageFieldsDto.class, fields);
+        assertFalse(populator instanceof ReflectionResultPopulator);
+        assertFalse(otherPopulator instanceof ReflectionResultPopulator);
+        assertNotSame(populator.getClass(), otherPopulator.getClass());
+    }
+
+    /**
+     * Classes which can't be used from generated code are populated using reflection.
+     */
+    @Test
+    public void testReflectionPopulatorForPrivateClass() throws Exception {
+        ResultPopulator populator = getHelper().getResultPopulatorFactory().getPopulator(
+                PrivateDto.class, fields(PrivateDto.class, "name"));
+        assertTrue(populator instanceof ReflectionResultPopulator);
+    }
+
+    /**
+     * Selects into a dto through a query, the dto is created by its populator.
+     */
+    @Test
+    public void testSelectIntoDtoWithPackageFields() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+
+        Person person = query.from(Person.class);
+        PackageFieldsDto dto = query.select(PackageFieldsDto.class);
+        dto.setName(person.getName());
+        query.where(person.getName()).eq("Josh");
+
+        validate("select hobj1.name as name from Person hobj1 where hobj1.name = :np1", "Josh");
+        @SuppressWarnings("unchecked")
+        List<PackageFieldsDto> results = (List<PackageFieldsDto>) doQueryResult;
+        assertEquals(1, results.size());
+        assertEquals("Josh", results.get(0).name);
+    }
+
+    private Field[] fields(Class<?> resultType, String... names) {
+        Field[] fields = new Field[names.length];
+        for(int i=0; i < names.length; i++) {
+            fields[i] = SelectionTree.getField(resultType, names[i]);
+        }
+        return fields;
+    }
+
+    public static class PackageFieldsDto {
+        String name;
+        long age;
+
+        public void setName(String name) {
+            // not used by the populator, the field is assigned directly:
+            this.name = name;
+        }
+    }
+
+    public static class PrivateFieldsDto {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            // not used by the populator, the field is assigned directly:
+            this.name = name.toUpperCase();
+        }
+    }
+
+    private static class PrivateDto {
+        @SuppressWarnings("unused")
+        private String name;
+    }
+}
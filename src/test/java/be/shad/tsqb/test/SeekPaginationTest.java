@@ -0,0 +1,180 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import be.shad.tsqb.dao.result.SeekQueryResult;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.ordering.SeekToken;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class SeekPaginationTest extends TypeSafeQueryTest {
+
+    @Test
+    public void testSeekAfterToken() {
+        Person person = query.from(Person.class);
+        query.orderBy().asc(person.getName()).asc(person.getId());
+
+        query.seekAfter(new SeekToken("Josh", 5L));
+
+        validate(" from Person hobj1 where (hobj1.name > :np1 or (hobj1.name = :np2 and hobj1.id > :np3)) "
+                + "order by hobj1.name, hobj1.id", "Josh", "Josh", 5L);
+    }
+
+    @Test
+    public void testSeekAfterTokenDescending() {
+        Person person = query.from(Person.class);
+        query.where(person.isMarried()).isTrue();
+        query.orderBy().desc(person.getAge()).asc(person.getId());
+
+        query.seekAfter(new SeekToken(30, 5L));
+
+        validate(" from Person hobj1 where hobj1.married = :np1 and (hobj1.age < :np2 or "
+                + "(hobj1.age = :np3 and hobj1.id > :np4)) order by hobj1.age desc, hobj1.id",
+                Boolean.TRUE, 30, 30, 5L);
+    }
+
+    /**
+     * The values of the order bys on the selection dto are read from the dto row.
+     */
+    @Test
+    public void testSeekAfterSelectionDtoRow() {
+        Person person = query.from(Person.class);
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setThePersonsName(person.getName());
+        query.orderBy().asc(dto.getThePersonsName()).asc(dto.getId());
+
+        PersonDto lastRow = new PersonDto();
+        lastRow.setId(5L);
+        lastRow.setThePersonsName("Josh");
+        query.seekAfter(lastRow);
+
+        validate("select hobj1.id as id, hobj1.name as thePersonsName from Person hobj1 "
+                + "where (hobj1.name > :np1 or (hobj1.name = :np2 and hobj1.id > :np3)) "
+                + "order by hobj1.name, hobj1.id", "Josh", "Josh", 5L);
+    }
+
+    /**
+     * The values of the order bys are read from the object array row when selected.
+     */
+    @Test
+    public void testCreateSeekTokenFromObjectArrayRow() {
+        Person person = query.from(Person.class);
+        query.select(person.getId());
+        query.select(person.getName());
+        query.orderBy().asc(person.getName()).desc(person.getId());
+
+        SeekToken token = query.createSeekToken(new Object[] { 5L, "Josh" });
+        assertEquals(new SeekToken("Josh", 5L), token);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateSeekTokenNotSelected() {
+        Person person = query.from(Person.class);
+        query.select(person.getId());
+        query.orderBy().asc(person.getName());
+
+        query.createSeekToken(new Object[] { 5L });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSeekAfterUnordered() {
+        query.from(Person.class);
+        query.seekAfter(new SeekToken(5L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeekAfterTokenSizeMismatch() {
+        Person person = query.from(Person.class);
+        query.orderBy().asc(person.getName()).asc(person.getId());
+        query.seekAfter(new SeekToken(5L));
+    }
+
+    /**
+     * Walks all pages of the people in a town, each page seeks after the last row
+     * of the previous page. The original query is not modified.
+     */
+    @Test
+    public void testDoQuerySeekPages() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        for(String name: Arrays.asList("Emma", "Anna", "Dave", "Bob", "Carl")) {
+            creator.createTestPerson(town, name);
+        }
+
+        TypeSafeRootQuery peopleQuery = createQuery();
+        Person person = peopleQuery.from(Person.class);
+        peopleQuery.where(person.getTown().getId()).eq(town.getId());
+        PersonDto dto = peopleQuery.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setThePersonsName(person.getName());
+        peopleQuery.orderBy().asc(dto.getThePersonsName()).asc(dto.getId());
+
+        List<String> names = new ArrayList<>();
+        int pages = 0;
+        SeekToken token = null;
+        do {
+            SeekQueryResult<PersonDto> page = getTypeSafeQueryDao().doQuerySeek(peopleQuery, token, 2);
+            for(PersonDto row: page.getResults()) {
+                names.add(row.getThePersonsName());
+            }
+            token = page.getNextToken();
+            pages++;
+        } while (token != null);
+
+        assertEquals(Arrays.asList("Anna", "Bob", "Carl", "Dave", "Emma"), names);
+        assertEquals(3, pages);
+        assertFalse(peopleQuery.toHqlQuery().getHql().contains(">"));
+    }
+
+    /**
+     * A full last page still returns a token, the next page is empty without token.
+     */
+    @Test
+    public void testDoQuerySeekFullLastPage() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Anna");
+        creator.createTestPerson(town, "Bob");
+
+        TypeSafeRootQuery peopleQuery = createQuery();
+        Person person = peopleQuery.from(Person.class);
+        peopleQuery.where(person.getTown().getId()).eq(town.getId());
+        peopleQuery.select(person.getName());
+        peopleQuery.orderBy().asc(person.getName());
+
+        SeekQueryResult<String> page = getTypeSafeQueryDao().doQuerySeek(peopleQuery, null, 2);
+        assertEquals(Arrays.asList("Anna", "Bob"), page.getResults());
+        assertTrue(page.hasNext());
+
+        page = getTypeSafeQueryDao().doQuerySeek(peopleQuery, page.getNextToken(), 2);
+        assertTrue(page.isEmpty());
+        assertNull(page.getNextToken());
+    }
+}
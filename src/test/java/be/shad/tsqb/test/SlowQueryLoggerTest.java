@@ -0,0 +1,144 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import be.shad.tsqb.dao.SlowQueryLogger;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+
+public class SlowQueryLoggerTest extends TypeSafeQueryTest {
+
+    /**
+     * Collects the log entries instead of logging them and uses a fixed clock.
+     */
+    private static class TestSlowQueryLogger extends SlowQueryLogger {
+        private final List<String> entries = new ArrayList<>();
+        private long now;
+
+        private TestSlowQueryLogger(long threshold, TimeUnit unit) {
+            super(threshold, unit);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void log(String entry) {
+            entries.add(entry);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected long nanoTime() {
+            return now;
+        }
+    }
+
+    private TypeSafeRootQuery createPersonQuery(TypeSafeQueryDaoImpl dao, List<Long> ids) {
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).in(ids);
+        return query;
+    }
+
+    private List<Long> createIds(int n) {
+        List<Long> ids = new ArrayList<>(n);
+        for(long i=0; i < n; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    /**
+     * The entry contains the formatted hql, the truncated params and the phases.
+     */
+    @Test
+    public void testSlowQueryLogged() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        List<Long> ids = createIds(15);
+        ids.add(creator.createTestPerson(town, "Josh").getId());
+
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        TestSlowQueryLogger logger = new TestSlowQueryLogger(0, TimeUnit.MILLISECONDS);
+        dao.addQueryExecutionListener(logger);
+        dao.doQueryResults(createPersonQuery(dao, ids));
+
+        assertEquals(1, logger.entries.size());
+        String entry = logger.entries.get(0);
+        assertTrue(entry, entry.startsWith("Slow query took "));
+        assertTrue(entry, entry.contains("(1 chunks, 1 rows)"));
+        assertTrue(entry, entry.contains("(1 results)"));
+        assertTrue(entry, entry.contains("\nwhere hobj1.id in ("));
+        assertTrue(entry, entry.contains("[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, ... 6 more]"));
+    }
+
+    /**
+     * Executions faster than the threshold are not logged.
+     */
+    @Test
+    public void testFastQueryNotLogged() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        TestSlowQueryLogger logger = new TestSlowQueryLogger(1, TimeUnit.HOURS);
+        dao.addQueryExecutionListener(logger);
+        dao.doQueryResults(createPersonQuery(dao, createIds(2)));
+
+        assertTrue(logger.entries.isEmpty());
+    }
+
+    /**
+     * The same query is logged once per interval, the executions in between are counted.
+     * Other queries have their own interval.
+     */
+    @Test
+    public void testSlowQueryRateLimited() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        TestSlowQueryLogger logger = new TestSlowQueryLogger(0, TimeUnit.MILLISECONDS);
+        logger.setLogInterval(1, TimeUnit.SECONDS);
+        dao.addQueryExecutionListener(logger);
+
+        dao.doQueryResults(createPersonQuery(dao, createIds(2)));
+        dao.doQueryResults(createPersonQuery(dao, createIds(2)));
+        dao.doQueryResults(createPersonQuery(dao, createIds(2)));
+        assertEquals(1, logger.entries.size());
+
+        TypeSafeRootQuery townQuery = dao.createQuery();
+        townQuery.from(Town.class);
+        dao.doQueryResults(townQuery);
+        assertEquals(2, logger.entries.size());
+
+        logger.now += TimeUnit.SECONDS.toNanos(1);
+        dao.doQueryResults(createPersonQuery(dao, createIds(2)));
+        assertEquals(3, logger.entries.size());
+        String entry = logger.entries.get(2);
+        assertTrue(entry, entry.contains(" 2 slow executions of this query were not logged."));
+        assertFalse(entry, entry.contains("more]"));
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.hibernate.Session;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+import be.shad.tsqb.dto.PersonDto;
+import be.shad.tsqb.query.TypeSafeRootQuery;
+import be.shad.tsqb.query.TypeSafeRootQueryInternal;
+
+public class StatelessQueryTest extends TypeSafeQueryTest {
+
+    private TypeSafeQueryDaoImpl createStatelessDao() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.setStatelessProjectionQueries(true);
+        return dao;
+    }
+
+    private boolean isSelectingEntities(TypeSafeRootQuery query) {
+        return ((TypeSafeRootQueryInternal) query).getProjections().isSelectingEntities();
+    }
+
+    /**
+     * Dto projections are listed stateless and see the changes
+     * of the current session because it is flushed first.
+     */
+    @Test
+    public void testDtoProjectionListedStateless() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        Person josh = creator.createTestPerson(town, "Josh");
+        getSessionFactory().getCurrentSession().flush();
+        josh.setName("Joshua");
+
+        TypeSafeQueryDaoImpl dao = createStatelessDao();
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getId()).eq(josh.getId());
+        PersonDto dto = query.select(PersonDto.class);
+        dto.setId(person.getId());
+        dto.setThePersonsName(person.getName());
+        assertFalse(isSelectingEntities(query));
+
+        List<PersonDto> results = dao.doQueryResults(query);
+        assertEquals(1, results.size());
+        assertEquals("Joshua", results.get(0).getThePersonsName());
+    }
+
+    /**
+     * Queries which select entities are listed with the current session unless
+     * they are marked stateless, the stateless results are not attached to the session.
+     */
+    @Test
+    public void testEntityQueryRequiresOptIn() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        Session session = getSessionFactory().getCurrentSession();
+        session.flush();
+        session.clear();
+
+        TypeSafeQueryDaoImpl dao = createStatelessDao();
+        TypeSafeRootQuery query = dao.createQuery();
+        Town townPx = query.from(Town.class);
+        query.where(townPx.getId()).eq(town.getId());
+        assertTrue(isSelectingEntities(query));
+
+        Town attachedTown = dao.<Town>doQuery(query).getFirstResult();
+        assertTrue(session.contains(attachedTown));
+        session.clear();
+
+        query.setStateless(true);
+        assertTrue(query.copy().isStateless());
+        Town detachedTown = dao.<Town>doQuery(query).getFirstResult();
+        assertEquals(town.getId(), detachedTown.getId());
+        assertFalse(session.contains(detachedTown));
+        assertEquals(0, session.getStatistics().getEntityCount());
+    }
+
+    /**
+     * An entity selected in a projection also counts as selecting entities.
+     */
+    @Test
+    public void testSelectingEntityProperty() {
+        TypeSafeRootQuery query = createQuery();
+        Person person = query.from(Person.class);
+        query.select(person.getTown());
+        assertTrue(isSelectingEntities(query));
+
+        TypeSafeRootQuery valueQuery = createQuery();
+        Person valuePerson = valueQuery.from(Person.class);
+        valueQuery.select(valuePerson.getName());
+        assertFalse(isSelectingEntities(valueQuery));
+    }
+
+    /**
+     * An entity wrapped in a function returning the entity also counts as selecting
+     * entities, and is listed with the current session unless marked stateless.
+     */
+    @Test
+    public void testSelectingDistinctEntity() {
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        creator.createTestPerson(town, "Josh");
+        Session session = getSessionFactory().getCurrentSession();
+        session.flush();
+        session.clear();
+
+        TypeSafeQueryDaoImpl dao = createStatelessDao();
+        TypeSafeRootQuery query = dao.createQuery();
+        Person person = query.from(Person.class);
+        query.where(person.getTown().getId()).eq(town.getId());
+        query.select(query.hqlFunction().distinct(person.getTown()));
+        assertTrue(isSelectingEntities(query));
+
+        Town attachedTown = dao.<Town>doQuery(query).getFirstResult();
+        assertTrue(session.contains(attachedTown));
+
+        TypeSafeRootQuery countQuery = createQuery();
+        Person countPerson = countQuery.from(Person.class);
+        countQuery.select(countQuery.hqlFunction().countDistinct(countPerson.getTown()));
+        assertFalse(isSelectingEntities(countQuery));
+    }
+}
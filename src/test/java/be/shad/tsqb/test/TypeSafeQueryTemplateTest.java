@@ -0,0 +1,154 @@
+/*
+ * Copyright Gert Wijns gert.wijns@gmail.com
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package be.shad.tsqb.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import be.shad.tsqb.dao.TypeSafeQueryDao;
+import be.shad.tsqb.dao.TypeSafeQueryDaoImpl;
+import be.shad.tsqb.dao.TypeSafeQueryTemplate;
+import be.shad.tsqb.domain.Town;
+import be.shad.tsqb.domain.people.Person;
+
+public class TypeSafeQueryTemplateTest extends TypeSafeQueryTest {
+    private TypeSafeQueryDao dao;
+    private Person josh;
+    private Person emily;
+
+    @Before
+    public void createData() {
+        dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        TestDataCreator creator = new TestDataCreator(getSessionFactory());
+        Town town = creator.createTestTown();
+        josh = creator.createTestPerson(town, "Josh");
+        emily = creator.createTestPerson(town, "Emily");
+        creator.createTestPerson(town, "Hank");
+    }
+
+    /**
+     * The template is executed with the bound value instead of the original value.
+     */
+    @Test
+    public void testBindValue() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq().named("name");
+        query.named().setValue("name", "Josh");
+        query.select(person.getId());
+        TypeSafeQueryTemplate template = new TypeSafeQueryTemplate(query);
+
+        List<?> original = template.execute(dao).getResults();
+        List<?> bound = template.bind("name", "Emily").execute(dao).getResults();
+
+        assertEquals(Arrays.asList(josh.getId()), original);
+        assertEquals(Arrays.asList(emily.getId()), bound);
+    }
+
+    /**
+     * Collections are bound as parameter list.
+     */
+    @Test
+    public void testBindCollection() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).in().named("names");
+        query.named().setValue("names", Arrays.asList("Josh", "Hank"));
+        query.select(person.getId());
+        query.orderBy().asc(person.getId());
+        TypeSafeQueryTemplate template = new TypeSafeQueryTemplate(query);
+
+        List<?> bound = template.bind("names", Arrays.asList("Josh", "Emily")).execute(dao).getResults();
+
+        assertEquals(Arrays.asList(josh.getId(), emily.getId()), bound);
+    }
+
+    /**
+     * A template created by the dao uses the in values table
+     * when the collection reaches the threshold of the dao.
+     */
+    @Test
+    public void testCreateTemplateAppliesInValuesTableThreshold() {
+        TypeSafeQueryDaoImpl dao = new TypeSafeQueryDaoImpl(getSessionFactory(), getHelper());
+        dao.setInValuesTableThreshold(2);
+        Person person = query.from(Person.class);
+        query.where(person.getName()).in().named("names");
+        query.named().setValue("names", Arrays.asList("Josh", "Hank"));
+        query.select(person.getId());
+        query.orderBy().asc(person.getId());
+        TypeSafeQueryTemplate template = dao.createTemplate(query);
+
+        assertTrue(template.getCompiledQuery().getHql().contains("TypeSafeQueryInValue"));
+        List<?> bound = template.bind("names", Arrays.asList("Josh", "Emily")).execute(dao).getResults();
+
+        assertEquals(Arrays.asList(josh.getId(), emily.getId()), bound);
+    }
+
+    /**
+     * Changes to the query after the template was created don't affect the template.
+     */
+    @Test
+    public void testTemplateIsFrozen() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq().named("name");
+        query.named().setValue("name", "Josh");
+        query.select(person.getId());
+        TypeSafeQueryTemplate template = new TypeSafeQueryTemplate(query);
+        query.named().setValue("name", "Emily");
+
+        List<?> results = template.execute(dao).getResults();
+
+        assertEquals(Arrays.asList(josh.getId()), results);
+    }
+
+    /**
+     * Only named values can be bound.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testBindUnknownName() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq().named("name");
+        query.named().setValue("name", "Josh");
+        new TypeSafeQueryTemplate(query).bind("other", "Emily");
+    }
+
+    /**
+     * The value must have the same type as the named value.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testBindWrongType() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).eq().named("name");
+        query.named().setValue("name", "Josh");
+        new TypeSafeQueryTemplate(query).bind("name", 1L);
+    }
+
+    /**
+     * A single value 'in' may be transformed to an 'equals',
+     * so binding multiple values is not allowed.
+     */
+    @Test(expected=IllegalArgumentException.class)
+    public void testBindMultipleValuesForSingleValueCollection() {
+        Person person = query.from(Person.class);
+        query.where(person.getName()).in().named("names");
+        query.named().setValue("names", Arrays.asList("Josh"));
+        new TypeSafeQueryTemplate(query).bind("names", Arrays.asList("Josh", "Emily"));
+    }
+}
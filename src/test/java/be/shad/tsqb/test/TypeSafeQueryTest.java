@@ -103,6 +103,10 @@ public class TypeSafeQueryTest {
         return sessionFactory;
     }
 
+    public TypeSafeQueryDao getTypeSafeQueryDao() {
+        return typeSafeQueryDao;
+    }
+
     protected TypeSafeRootQuery createQuery() {
         return typeSafeQueryDao.createQuery();
     }
@@ -15,11 +15,15 @@
  */
 package be.shad.tsqb.test.copy;
 
+import static be.shad.tsqb.values.HqlQueryValueImpl.hql;
+import static org.junit.Assert.assertNotSame;
+
 import org.junit.Test;
 
 import be.shad.tsqb.domain.people.Person;
 import be.shad.tsqb.domain.people.Relation;
 import be.shad.tsqb.query.JoinType;
+import be.shad.tsqb.query.TypeSafeRootQuery;
 
 public class JoinsCopyTest extends TypeSafeQueryCopyTest {
 
@@ -54,4 +58,35 @@ public class JoinsCopyTest extends TypeSafeQueryCopyTest {
                 + "join hobj1.town hobj4");
     }
 
+    /**
+     * The proxies of copied joins are created when they are used,
+     * also when the copy is copied before its proxies were used.
+     */
+    @Test
+    public void testCopyOfCopyJoinProxies() {
+        Person personProxy = query.from(Person.class);
+        Relation relationProxy = query.join(personProxy.getChildRelations(), JoinType.Left);
+        query.join(relationProxy.getChild(), JoinType.Left);
+        query.join(personProxy.getTown(), JoinType.Left);
+        query.named().name(personProxy, PERSON_OBJ);
+
+        Person personProxyCopy = validateAndCopy(PERSON_OBJ,
+                " from Person hobj1 "
+                + "left join hobj1.childRelations hobj2 "
+                + "left join hobj2.child hobj3 "
+                + "left join hobj1.town hobj4");
+
+        TypeSafeRootQuery copyOfCopy = copy.copy();
+        Person personProxyCopyOfCopy = copyOfCopy.named().get(PERSON_OBJ);
+        assertNotSame(personProxyCopy, personProxyCopyOfCopy);
+        copyOfCopy.where(personProxyCopyOfCopy.getTown().getName()).eq("Springfield");
+
+        validate(copyOfCopy, hql(" from Person hobj1 "
+                + "left join hobj1.childRelations hobj2 "
+                + "left join hobj2.child hobj3 "
+                + "left join hobj1.town hobj4 "
+                + "where hobj4.name = :np1", "Springfield"));
+        validateHql();
+    }
+
 }